@@ -0,0 +1,133 @@
+package com.amigoscode.customer;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The log tier against the jdbc tier and the list tier, with 8 threads. Inserts are fsynced by
+ * both the log and Postgres. The jdbc benchmarks need the database from application.yml and
+ * delete the customers they inserted afterwards.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class CustomerLogStoreBenchmark {
+
+    private static final int CUSTOMERS = 10_000;
+    private static final String EMAIL_DOMAIN = "@jmh.test";
+
+    private final AtomicLong sequence = new AtomicLong();
+    private Path directory;
+    private HikariDataSource dataSource;
+    private CustomerLogDataAccessService log;
+    private CustomerJDBCDataAccessService jdbc;
+    private CustomerListDataAccessService list;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("customer-log");
+        log = new CustomerLogDataAccessService(new CustomerDAOProperties(
+                List.of("log"),
+                null,
+                null,
+                null,
+                new CustomerDAOProperties.Log(directory, DataSize.ofMegabytes(64), true, Duration.ofMinutes(1), 0.5)
+        ));
+        list = new CustomerListDataAccessService(new CustomerDAOProperties(List.of("list", "log"), null, null, null, null));
+
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:postgresql://localhost:5332/customer");
+        dataSource.setUsername("amigoscode");
+        dataSource.setPassword("password");
+        dataSource.setMaximumPoolSize(8);
+        jdbc = new CustomerJDBCDataAccessService(new JdbcTemplate(dataSource), new CustomerRowMapper());
+
+        List<Customer> customers = new ArrayList<>(CUSTOMERS);
+        for (int i = 1; i <= CUSTOMERS; i++) {
+            customers.add(new Customer((long) i, 20 + i % 50, "customer " + i, "customer" + i + "@amigoscode.com"));
+        }
+        list.insertCustomers(customers);
+        log.insertCustomers(customers.stream().map(c -> new Customer(c.getAge(), c.getName(), c.getEmail())).toList());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        new JdbcTemplate(dataSource).update("DELETE FROM customer WHERE email LIKE ?", "%" + EMAIL_DOMAIN);
+        dataSource.close();
+        log.close();
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public void insertLog() {
+        log.insertCustomer(newCustomer());
+    }
+
+    @Benchmark
+    public void insertJdbc() {
+        jdbc.insertCustomer(newCustomer());
+    }
+
+    @Benchmark
+    public Optional<Customer> selectByIdLog() {
+        return log.selectCustomerByID(randomId());
+    }
+
+    @Benchmark
+    public Optional<Customer> selectByIdList() {
+        return list.selectCustomerByID(randomId());
+    }
+
+    @Benchmark
+    public boolean existsByEmailLog() {
+        return log.existsPersonWithEmail(randomEmail());
+    }
+
+    @Benchmark
+    public boolean existsByEmailList() {
+        return list.existsPersonWithEmail(randomEmail());
+    }
+
+    private Customer newCustomer() {
+        long n = sequence.incrementAndGet();
+        return new Customer(30, "bench " + n, "bench" + n + "-" + System.nanoTime() + EMAIL_DOMAIN);
+    }
+
+    private static long randomId() {
+        return ThreadLocalRandom.current().nextLong(1, CUSTOMERS + 1);
+    }
+
+    private static String randomEmail() {
+        return "customer" + randomId() + "@amigoscode.com";
+    }
+}
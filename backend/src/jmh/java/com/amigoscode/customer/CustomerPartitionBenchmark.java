@@ -0,0 +1,103 @@
+package com.amigoscode.customer;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+
+/**
+ * The jdbc tier against a large customer table, partitioned or not, with 8 threads. Needs a
+ * database holding customers with ids 1 to {@code customers}, e.g. a new one after
+ * {@code java -jar app.jar --spring.profiles.active=generate --generator.count=10000000}, and
+ * deletes the customers it inserted afterwards. {@code -p url=} picks the database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(8)
+public class CustomerPartitionBenchmark {
+
+    private static final String EMAIL_DOMAIN = "@jmh.test";
+
+    @Param("jdbc:postgresql://localhost:5332/customer")
+    private String url;
+
+    @Param("10000000")
+    private long customers;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private HikariDataSource dataSource;
+    private CustomerJDBCDataAccessService jdbc;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername("amigoscode");
+        dataSource.setPassword("password");
+        dataSource.setMaximumPoolSize(8);
+        jdbc = new CustomerJDBCDataAccessService(new JdbcTemplate(dataSource), new CustomerRowMapper());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        new JdbcTemplate(dataSource).update("DELETE FROM customer WHERE email LIKE ?", "%" + EMAIL_DOMAIN);
+        dataSource.close();
+    }
+
+    @Benchmark
+    public Optional<Customer> selectById() {
+        return jdbc.selectCustomerByID(randomId());
+    }
+
+    @Benchmark
+    public List<Customer> selectTenByIds() {
+        return jdbc.selectCustomersByIDs(LongStream.generate(this::randomId).limit(10).boxed().toList());
+    }
+
+    //the check before every registration, which mostly finds nothing
+    @Benchmark
+    public boolean existsByEmail() {
+        return jdbc.existsPersonWithEmail("nobody" + randomId() + EMAIL_DOMAIN);
+    }
+
+    @Benchmark
+    public void updateAge() {
+        Customer update = new Customer();
+        update.setId(randomId());
+        update.setAge(ThreadLocalRandom.current().nextInt(18, 90));
+        jdbc.updateCustomerById(update);
+    }
+
+    @Benchmark
+    public void insert() {
+        long n = sequence.incrementAndGet();
+        jdbc.insertCustomer(new Customer(30, "bench " + n, "bench" + n + "-" + System.nanoTime() + EMAIL_DOMAIN));
+    }
+
+    private long randomId() {
+        return ThreadLocalRandom.current().nextLong(1, customers + 1);
+    }
+}
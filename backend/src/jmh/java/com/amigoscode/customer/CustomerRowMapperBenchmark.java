@@ -0,0 +1,103 @@
+package com.amigoscode.customer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.RowMapperResultSetExtractor;
+
+import javax.sql.rowset.CachedRowSet;
+import javax.sql.rowset.RowSetMetaDataImpl;
+import javax.sql.rowset.RowSetProvider;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CustomerRowMapper against the label based mapper it replaced, over an in memory result set
+ * so only the mapping is measured, not the driver or the database.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CustomerRowMapperBenchmark {
+
+    @Param({"1", "100", "10000"})
+    private int rows;
+
+    private CachedRowSet resultSet;
+    private final CustomerRowMapper customerRowMapper = new CustomerRowMapper();
+    private final RowMapper<Customer> labelRowMapper = (rs, rowNum) -> new Customer(
+            rs.getLong("id"),
+            rs.getInt("age"),
+            rs.getString("name"),
+            rs.getString("email")
+    );
+
+    @Setup
+    public void setUp() throws SQLException {
+        RowSetMetaDataImpl metaData = new RowSetMetaDataImpl();
+        metaData.setColumnCount(4);
+        column(metaData, 1, "id", Types.BIGINT);
+        column(metaData, 2, "age", Types.INTEGER);
+        column(metaData, 3, "name", Types.VARCHAR);
+        column(metaData, 4, "email", Types.VARCHAR);
+
+        resultSet = RowSetProvider.newFactory().createCachedRowSet();
+        resultSet.setMetaData(metaData);
+        for (int i = 1; i <= rows; i++) {
+            resultSet.moveToInsertRow();
+            resultSet.updateLong(1, i);
+            resultSet.updateInt(2, 20 + i % 50);
+            resultSet.updateString(3, "customer " + i);
+            resultSet.updateString(4, "customer" + i + "@amigoscode.com");
+            resultSet.insertRow();
+        }
+        resultSet.moveToCurrentRow();
+    }
+
+    @Benchmark
+    public List<Customer> listByLabel() throws SQLException {
+        return new RowMapperResultSetExtractor<>(labelRowMapper).extractData(rewind());
+    }
+
+    @Benchmark
+    public List<Customer> listByPosition() throws SQLException {
+        return customerRowMapper.list(rows).extractData(rewind());
+    }
+
+    @Benchmark
+    public Optional<Customer> singleByLabel() throws SQLException {
+        return new RowMapperResultSetExtractor<>(labelRowMapper).extractData(rewind()).stream().findFirst();
+    }
+
+    @Benchmark
+    public Optional<Customer> singleByPosition() throws SQLException {
+        return customerRowMapper.single().extractData(rewind());
+    }
+
+    private ResultSet rewind() throws SQLException {
+        resultSet.beforeFirst();
+        return resultSet;
+    }
+
+    private static void column(RowSetMetaDataImpl metaData, int column, String label, int type) throws SQLException {
+        metaData.setColumnName(column, label);
+        metaData.setColumnLabel(column, label);
+        metaData.setColumnType(column, type);
+    }
+}
@@ -5,13 +5,20 @@ import com.amigoscode.customer.CustomerRepository;
 import com.github.javafaker.Faker;
 import com.github.javafaker.Name;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.LazyInitializationExcludeFilter;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationInitializer;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
+import org.springframework.context.ApplicationListener;
 import org.springframework.context.annotation.Bean;
 
 import java.util.Random;
 
 @SpringBootApplication
+@ConfigurationPropertiesScan
 public class Main {
 
     public static void main(String[] args) {
@@ -19,7 +26,9 @@ public class Main {
         SpringApplication.run(Main.class, args);
     }
 
+    //bulk data for load testing comes from the "generate" profile, see CustomerDataGeneratorRunner
     @Bean
+    @ConditionalOnProperty(name = "app.seed-on-startup", havingValue = "true")
     CommandLineRunner runner(CustomerRepository customerRepository){
         return args -> {
             var faker = new Faker();
@@ -30,11 +39,29 @@ public class Main {
 
             Customer customer = new Customer(random.nextInt(16,99),
                     firstName + " " + lastName,
-                    firstName.toLowerCase() + "." + lastName.toLowerCase() + "amigoscode.com"
+                    firstName.toLowerCase() + "." + lastName.toLowerCase() + "@amigoscode.com"
                     );
 
             customerRepository.save(customer);
        };
     }
 
+    //with lazy initialization the schema would otherwise only be migrated on the first request
+    @Bean
+    static LazyInitializationExcludeFilter eagerFlywayMigration() {
+        return LazyInitializationExcludeFilter.forBeanTypes(FlywayMigrationInitializer.class);
+    }
+
+    //used by the AppCDS training run of the fast-startup maven profile. The property is read at runtime
+    //on purpose: conditions are frozen at build time once the context has been AOT processed
+    @Bean
+    ApplicationListener<ApplicationReadyEvent> exitAfterStartup() {
+        return event -> {
+            var context = event.getApplicationContext();
+            if (context.getEnvironment().getProperty("app.exit-after-startup", Boolean.class, false)) {
+                System.exit(SpringApplication.exit(context));
+            }
+        };
+    }
+
 }
@@ -0,0 +1,81 @@
+package com.amigoscode.concurrency;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * AIMD concurrency limit driven by observed latency.
+ * <p>
+ * The limit grows by one per limit's worth of fast, well utilised requests and is cut by
+ * {@code backoffRatio} whenever a request takes longer than {@code latencyThreshold} or
+ * fails. Requests above the limit are rejected straight away instead of queueing on a
+ * database connection.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final double backoffRatio;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile double limit;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit,
+                                      int minLimit,
+                                      int maxLimit,
+                                      Duration latencyThreshold,
+                                      double backoffRatio) {
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyThresholdNanos = latencyThreshold.toNanos();
+        this.backoffRatio = backoffRatio;
+    }
+
+    //returns the number of requests in flight including this one, or -1 when over the limit
+    public int tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                return -1;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return current + 1;
+            }
+        }
+    }
+
+    public void release(int inFlightAtStart, long latencyNanos, boolean failed) {
+        inFlight.decrementAndGet();
+        synchronized (this) {
+            if (failed || latencyNanos > latencyThresholdNanos) {
+                backOff();
+            } else if (inFlightAtStart * 2 >= limit) {
+                //only grow when the current limit is actually being used
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            }
+        }
+    }
+
+    //for requests whose latency says nothing about load, only a failure moves the limit
+    public void release(boolean failed) {
+        inFlight.decrementAndGet();
+        if (failed) {
+            synchronized (this) {
+                backOff();
+            }
+        }
+    }
+
+    private void backOff() {
+        limit = Math.max(minLimit, limit * backoffRatio);
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,110 @@
+package com.amigoscode.concurrency;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.io.IOException;
+
+/**
+ * Sheds load with a fast 503 once the reads or writes budget is used up.
+ * <p>
+ * Reading every customer, an exact count and a batch of operations take as long as the table
+ * or the batch is large rather than as loaded as the server is. They hold a permit while they
+ * run, but their latency is left out of the signal, otherwise a few of them would keep the
+ * limit at its minimum for every request. The change stream goes async, so it only holds its
+ * read permit until the stream is opened, not while it streams.
+ */
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private static final PathPattern ALL_CUSTOMERS = PathPatternParser.defaultInstance.parse("/api/v1/customers");
+    private static final PathPattern CHANGES = PathPatternParser.defaultInstance.parse("/api/v1/customers/changes");
+    private static final PathPattern COUNT = PathPatternParser.defaultInstance.parse("/api/v1/customers/count");
+    private static final PathPattern OPERATIONS = PathPatternParser.defaultInstance.parse("/api/v1/customers/operations");
+    //a read sent as POST for id sets too large for a query string
+    private static final PathPattern LOOKUP = PathPatternParser.defaultInstance.parse("/api/v1/customers/lookup");
+
+    private final AdaptiveConcurrencyLimiter reads;
+    private final AdaptiveConcurrencyLimiter writes;
+    private final String retryAfterSeconds;
+    private final Counter rejectedReads;
+    private final Counter rejectedWrites;
+
+    public ConcurrencyLimitFilter(ConcurrencyLimitProperties properties, MeterRegistry meterRegistry) {
+        this.reads = properties.reads().newLimiter();
+        this.writes = properties.writes().newLimiter();
+        this.retryAfterSeconds = Long.toString(Math.max(1, properties.retryAfter().toSeconds()));
+        this.rejectedReads = register(reads, "read", meterRegistry);
+        this.rejectedWrites = register(writes, "write", meterRegistry);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        PathContainer path = PathContainer.parsePath(request.getRequestURI().substring(request.getContextPath().length()));
+        boolean read = HttpMethod.GET.matches(request.getMethod())
+                || HttpMethod.HEAD.matches(request.getMethod())
+                || (HttpMethod.POST.matches(request.getMethod()) && LOOKUP.matches(path));
+        AdaptiveConcurrencyLimiter limiter = read ? reads : writes;
+        boolean unbounded = read ? isUnboundedRead(request, path) : isUnboundedWrite(request, path);
+
+        int inFlight = limiter.tryAcquire();
+        if (inFlight < 0) {
+            (read ? rejectedReads : rejectedWrites).increment();
+            response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "too many concurrent requests, retry later");
+            return;
+        }
+
+        long started = System.nanoTime();
+        boolean failed = true;
+        try {
+            filterChain.doFilter(request, response);
+            failed = response.getStatus() >= HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+        } finally {
+            if (unbounded) {
+                limiter.release(failed);
+            } else {
+                limiter.release(inFlight, System.nanoTime() - started, failed);
+            }
+        }
+    }
+
+    //?ids= reads at most CustomerService.MAX_LOOKUP_IDS customers, count without exact=true is cached
+    private static boolean isUnboundedRead(HttpServletRequest request, PathContainer path) {
+        return (ALL_CUSTOMERS.matches(path) && request.getParameter("ids") == null)
+                || CHANGES.matches(path)
+                || (COUNT.matches(path) && "true".equals(request.getParameter("exact")));
+    }
+
+    //one transaction of up to CustomerOperationsService.MAX_OPERATIONS writes
+    private static boolean isUnboundedWrite(HttpServletRequest request, PathContainer path) {
+        return HttpMethod.POST.matches(request.getMethod()) && OPERATIONS.matches(path);
+    }
+
+    private static Counter register(AdaptiveConcurrencyLimiter limiter, String type, MeterRegistry meterRegistry) {
+        Gauge.builder("customer.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Current adaptive concurrency limit")
+                .tag("type", type)
+                .register(meterRegistry);
+        Gauge.builder("customer.concurrency.in.flight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                .description("Requests currently holding a concurrency permit")
+                .tag("type", type)
+                .register(meterRegistry);
+        return Counter.builder("customer.concurrency.rejected")
+                .description("Requests rejected because the concurrency limit was reached")
+                .tag("type", type)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,251 @@
+package com.amigoscode.customer;
+
+import com.amigoscode.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Collects {@code selectCustomerByID} calls from concurrent callers and resolves them with
+ * one {@code selectCustomersByIDs} query.
+ * <p>
+ * A batch is loaded once it holds {@code maxBatchSize} ids, on the thread of the caller that
+ * filled it, or when {@code window} has passed since its first id, on a loader thread. A caller
+ * alone in its window therefore waits up to {@code window} longer than without batching.
+ * <p>
+ * A query on a loader thread is outside the callers' transactions and isn't counted in their
+ * requests' statements. Callers inside a transaction therefore skip batching and query the
+ * delegate themselves, so they see their own uncommitted writes.
+ */
+public class BatchingCustomerDAO implements CustomerDAO, AutoCloseable {
+
+    private final CustomerDAO delegate;
+    private final Duration window;
+    private final int maxBatchSize;
+    private final Duration timeout;
+    private final ScheduledExecutorService loader;
+    private final DistributionSummary batchSizes;
+
+    private final Object lock = new Object();
+    private Map<Long, CompletableFuture<Optional<Customer>>> pending = new HashMap<>();
+    private long generation;
+    private boolean closed;
+
+    public BatchingCustomerDAO(CustomerDAO delegate,
+                               Duration window,
+                               int maxBatchSize,
+                               Duration timeout,
+                               int loaderThreads,
+                               MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.window = window;
+        this.maxBatchSize = maxBatchSize;
+        this.timeout = timeout;
+        this.loader = Executors.newScheduledThreadPool(loaderThreads, runnable -> {
+            Thread thread = new Thread(runnable, "customer-batch-loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.batchSizes = DistributionSummary.builder("customer.dao.batch.size")
+                .description("Ids resolved per batched selectCustomersByIDs query")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public List<Customer> selectAllCustomers() {
+        return delegate.selectAllCustomers();
+    }
+
+    @Override
+    public Optional<Customer> selectCustomerByID(Long id) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return delegate.selectCustomerByID(id);
+        }
+        CompletableFuture<Optional<Customer>> result = null;
+        Map<Long, CompletableFuture<Optional<Customer>>> full = null;
+
+        synchronized (lock) {
+            if (!closed) {
+                result = enqueue(id);
+                if (pending.size() >= maxBatchSize) {
+                    full = takePending();
+                }
+            }
+        }
+
+        if (result == null) {
+            return delegate.selectCustomerByID(id);
+        }
+        if (full != null) {
+            load(full);
+        }
+        return await(result, id).map(CustomerCacheDataAccessService::copy);
+    }
+
+    @Override
+    public List<Customer> selectAllCustomers(Set<CustomerField> fields) {
+        return delegate.selectAllCustomers(fields);
+    }
+
+    //projected from the shared full read rather than loaded apart from it
+    @Override
+    public Optional<Customer> selectCustomerByID(Long id, Set<CustomerField> fields) {
+        return selectCustomerByID(id).map(customer -> CustomerField.project(customer, fields));
+    }
+
+    @Override
+    public List<Customer> selectCustomersByIDs(Collection<Long> ids) {
+        return delegate.selectCustomersByIDs(ids);
+    }
+
+    @Override
+    public void insertCustomer(Customer customer) {
+        delegate.insertCustomer(customer);
+    }
+
+    @Override
+    public void insertCustomers(List<Customer> customers) {
+        delegate.insertCustomers(customers);
+    }
+
+    @Override
+    public boolean existsPersonWithEmail(String email) {
+        return delegate.existsPersonWithEmail(email);
+    }
+
+    @Override
+    public Set<String> selectExistingEmails(Collection<String> emails) {
+        return delegate.selectExistingEmails(emails);
+    }
+
+    @Override
+    public void deleteCustomerById(Long customerId) {
+        delegate.deleteCustomerById(customerId);
+    }
+
+    @Override
+    public boolean existsPersonWithId(Long id) {
+        return delegate.existsPersonWithId(id);
+    }
+
+    @Override
+    public void updateCustomerById(Customer update) {
+        delegate.updateCustomerById(update);
+    }
+
+    @Override
+    public void updateCustomers(List<Customer> updates) {
+        delegate.updateCustomers(updates);
+    }
+
+    @Override
+    public void deleteCustomersByIds(Collection<Long> customerIds) {
+        delegate.deleteCustomersByIds(customerIds);
+    }
+
+    @Override
+    public long countCustomers() {
+        return delegate.countCustomers();
+    }
+
+    @Override
+    public long estimateCustomers() {
+        return delegate.estimateCustomers();
+    }
+
+    @Override
+    public void close() {
+        shutdown();
+    }
+
+    /**
+     * Stops the loader threads. Lookups still waiting for a batch fail, later lookups go
+     * straight to the delegate.
+     */
+    public void shutdown() {
+        Map<Long, CompletableFuture<Optional<Customer>>> abandoned;
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            abandoned = takePending();
+        }
+        loader.shutdownNow();
+        abandoned.values().forEach(result -> result.completeExceptionally(
+                new ServiceUnavailableException("customer lookups are shutting down")
+        ));
+    }
+
+    private void flush(long scheduledGeneration) {
+        Map<Long, CompletableFuture<Optional<Customer>>> batch;
+        synchronized (lock) {
+            //the batch already went out because it filled up before the window closed
+            if (scheduledGeneration != generation) {
+                return;
+            }
+            batch = takePending();
+        }
+        load(batch);
+    }
+
+    private Map<Long, CompletableFuture<Optional<Customer>>> takePending() {
+        Map<Long, CompletableFuture<Optional<Customer>>> batch = pending;
+        pending = new HashMap<>();
+        generation++;
+        return batch;
+    }
+
+    //callers of the same id share the future, so each takes its own copy of the customer
+    private CompletableFuture<Optional<Customer>> enqueue(Long id) {
+        CompletableFuture<Optional<Customer>> result = pending.computeIfAbsent(id, key -> new CompletableFuture<>());
+        if (pending.size() == 1) {
+            long scheduledGeneration = generation;
+            loader.schedule(() -> flush(scheduledGeneration), window.toNanos(), TimeUnit.NANOSECONDS);
+        }
+        return result;
+    }
+
+    private void load(Map<Long, CompletableFuture<Optional<Customer>>> batch) {
+        batchSizes.record(batch.size());
+        try {
+            Map<Long, Customer> found = new HashMap<>();
+            for (Customer customer : delegate.selectCustomersByIDs(batch.keySet())) {
+                found.put(customer.getId(), customer);
+            }
+            batch.forEach((id, result) -> result.complete(Optional.ofNullable(found.get(id))));
+        } catch (RuntimeException e) {
+            batch.values().forEach(result -> result.completeExceptionally(e));
+        }
+    }
+
+    private Optional<Customer> await(CompletableFuture<Optional<Customer>> result, Long id) {
+        try {
+            return result.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new ServiceUnavailableException("timed out waiting for lookup of [%s]".formatted(id));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("interrupted waiting for lookup of [%s]".formatted(id));
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.amigoscode.customer;
+
+import org.springframework.context.annotation.Conditional;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Registers a {@link CustomerDAO} only when its name is part of {@code customer.dao.tiers}.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Conditional(OnCustomerDAOTierCondition.class)
+public @interface ConditionalOnCustomerDAOTier {
+
+    String value();
+}
@@ -0,0 +1,23 @@
+package com.amigoscode.customer;
+
+import org.springframework.context.annotation.Conditional;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Registers a bean only when {@code customer.dao.tiers} names a tier backed by the database,
+ * {@code jdbc} or {@code jpa}, or with {@code false} only when it names none. Without one there
+ * is no DataSource.
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Conditional(OnCustomerDatabaseCondition.class)
+public @interface ConditionalOnCustomerDatabase {
+
+    boolean value() default true;
+}
@@ -1,10 +1,18 @@
 package com.amigoscode.customer;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import jakarta.persistence.*;
+import org.hibernate.annotations.SQLDelete;
+import org.hibernate.annotations.Where;
 
 import java.util.Objects;
 
+//fields left out of a ?fields= projection are null and not serialized
+@JsonInclude(JsonInclude.Include.NON_NULL)
 @Entity
+//soft deleted like the jdbc tier does, CustomerPurger removes the rows later
+@SQLDelete(sql = "UPDATE customer SET deleted_at = now() WHERE id = ?")
+@Where(clause = "deleted_at IS NULL")
 @Table(
         name = "customer",
         uniqueConstraints = {
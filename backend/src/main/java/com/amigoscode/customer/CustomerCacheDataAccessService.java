@@ -0,0 +1,181 @@
+package com.amigoscode.customer;
+
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Bounded in-memory tier meant to sit in front of a persistent CustomerDAO.
+ * It hands out copies, so callers mutating a customer never change the cached one.
+ * Pinned ids are never evicted to make room, see {@link #pin(Collection)}.
+ */
+@Repository("cache")
+@ConditionalOnCustomerDAOTier("cache")
+public class CustomerCacheDataAccessService implements CustomerDAO {
+
+    private final Map<Long, Customer> customers = new ConcurrentHashMap<>();
+    private final Map<String, Long> idsByEmail = new ConcurrentHashMap<>();
+    private final int maxSize;
+    private volatile Set<Long> pinned = Set.of();
+
+    public CustomerCacheDataAccessService(CustomerDAOProperties properties) {
+        this.maxSize = properties.cache().maxSize();
+    }
+
+    @Override
+    public List<Customer> selectAllCustomers() {
+        return customers.values().stream().map(CustomerCacheDataAccessService::copy).toList();
+    }
+
+    @Override
+    public Optional<Customer> selectCustomerByID(Long id) {
+        return Optional.ofNullable(customers.get(id)).map(CustomerCacheDataAccessService::copy);
+    }
+
+    @Override
+    public List<Customer> selectAllCustomers(Set<CustomerField> fields) {
+        return CustomerField.project(selectAllCustomers(), fields);
+    }
+
+    @Override
+    public Optional<Customer> selectCustomerByID(Long id, Set<CustomerField> fields) {
+        return selectCustomerByID(id).map(customer -> CustomerField.project(customer, fields));
+    }
+
+    @Override
+    public List<Customer> selectCustomersByIDs(Collection<Long> ids) {
+        return ids.stream()
+                .map(customers::get)
+                .filter(Objects::nonNull)
+                .map(CustomerCacheDataAccessService::copy)
+                .toList();
+    }
+
+    @Override
+    public void insertCustomer(Customer customer) {
+        //without an id there is nothing to look the customer up by, the next read fills it in
+        if (customer.getId() == null) {
+            return;
+        }
+        evictIfFull();
+        put(copy(customer));
+    }
+
+    @Override
+    public void insertCustomers(List<Customer> customers) {
+        customers.forEach(this::insertCustomer);
+    }
+
+    @Override
+    public boolean existsPersonWithEmail(String email) {
+        return idsByEmail.containsKey(email);
+    }
+
+    @Override
+    public Set<String> selectExistingEmails(Collection<String> emails) {
+        return emails.stream().filter(idsByEmail::containsKey).collect(Collectors.toSet());
+    }
+
+    @Override
+    public void deleteCustomerById(Long customerId) {
+        Customer removed = customers.remove(customerId);
+        if (removed != null) {
+            idsByEmail.remove(removed.getEmail(), customerId);
+        }
+    }
+
+    @Override
+    public boolean existsPersonWithId(Long id) {
+        return customers.containsKey(id);
+    }
+
+    @Override
+    public void updateCustomerById(Customer update) {
+        Customer cached = customers.get(update.getId());
+        if (cached == null) {
+            return;
+        }
+        Customer updated = copy(cached);
+        if (update.getName() != null) {
+            updated.setName(update.getName());
+        }
+        if (update.getEmail() != null) {
+            updated.setEmail(update.getEmail());
+        }
+        if (update.getAge() != null) {
+            updated.setAge(update.getAge());
+        }
+        idsByEmail.remove(cached.getEmail(), cached.getId());
+        put(updated);
+    }
+
+    @Override
+    public void updateCustomers(List<Customer> updates) {
+        updates.forEach(this::updateCustomerById);
+    }
+
+    @Override
+    public void deleteCustomersByIds(Collection<Long> customerIds) {
+        customerIds.forEach(this::deleteCustomerById);
+    }
+
+    //the customers cached, not those in the system of record
+    @Override
+    public long countCustomers() {
+        return customers.size();
+    }
+
+    @Override
+    public long estimateCustomers() {
+        return customers.size();
+    }
+
+    //fills the free capacity without evicting anything, returns how many customers were cached;
+    //the customers are cached as they are, so the caller must not hold on to them
+    int warm(Iterable<Customer> customers) {
+        int cached = 0;
+        for (Customer customer : customers) {
+            if (this.customers.size() >= maxSize) {
+                break;
+            }
+            put(customer);
+            cached++;
+        }
+        return cached;
+    }
+
+    //replaces the previously pinned ids, pinned customers are still updated and deleted as usual
+    public void pin(Collection<Long> ids) {
+        pinned = Set.copyOf(ids);
+    }
+
+    private void put(Customer customer) {
+        Customer previous = customers.put(customer.getId(), customer);
+        if (previous != null && !previous.getEmail().equals(customer.getEmail())) {
+            idsByEmail.remove(previous.getEmail(), previous.getId());
+        }
+        idsByEmail.put(customer.getEmail(), customer.getId());
+    }
+
+    private void evictIfFull() {
+        Iterator<Long> ids = customers.keySet().iterator();
+        while (customers.size() >= maxSize && ids.hasNext()) {
+            Long id = ids.next();
+            if (!pinned.contains(id)) {
+                deleteCustomerById(id);
+            }
+        }
+    }
+
+    static Customer copy(Customer customer) {
+        return new Customer(customer.getId(), customer.getAge(), customer.getName(), customer.getEmail());
+    }
+}
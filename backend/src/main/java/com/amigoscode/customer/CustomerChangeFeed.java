@@ -0,0 +1,342 @@
+package com.amigoscode.customer;
+
+import com.amigoscode.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Streams every {@link CustomerChangedEvent} to its subscribers as server-sent events, so
+ * clients can follow changes instead of polling the customer list.
+ * <p>
+ * Each change gets the next sequence number, sent as the event id {@code <epoch>:<sequence>}.
+ * The last {@code capacity} changes are kept in a ring, and a client reconnecting with
+ * {@code Last-Event-ID} gets the changes it missed from there. When they are gone, or the id is
+ * from before a restart, the client gets a {@code reset} followed by every customer read from
+ * the database as {@code snapshot} events instead. Every stream then gets a {@code synced} event
+ * before the live changes.
+ * <p>
+ * Live changes are queued per subscriber and sent on a thread of their own, so a slow client
+ * never holds up writers or other clients. One that falls {@code maxPending} changes behind is
+ * disconnected and catches up when it reconnects.
+ * <p>
+ * The feed is per instance: it only sees changes made through this instance, and sequence
+ * numbers follow the order of the after-commit callbacks, which for concurrent transactions may
+ * differ from their commit order. Run a single instance behind the feed, or have clients follow
+ * {@code GET /api/v1/customers?modifiedSince=} instead. An event id from another instance has a
+ * different epoch and gets a reset, never a replay of unrelated sequence numbers.
+ */
+@Component
+@ConditionalOnProperty(name = "customer.change-feed.enabled", havingValue = "true", matchIfMissing = true)
+public class CustomerChangeFeed implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(CustomerChangeFeed.class);
+
+    record CustomerChange(long sequence, CustomerChangedEvent.Type type, Customer customer) {
+    }
+
+    private static final CustomerChange HEARTBEAT = new CustomerChange(0, null, null);
+
+    private final CustomerDAO customerDAO;
+    //sequences start over on restart and differ between instances, ids from another epoch must not resume
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36)
+            + Long.toString(ThreadLocalRandom.current().nextLong(Long.MAX_VALUE), 36);
+    private final CustomerChange[] ring;
+    private final int maxPending;
+    private final int maxSubscribers;
+    private final long timeoutMillis;
+    private final long heartbeatMillis;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final Counter evictions;
+    //guarded by this
+    private long lastSequence;
+    private volatile ExecutorService senders;
+    private ScheduledExecutorService heartbeat;
+
+    public CustomerChangeFeed(CustomerDAO customerDAO,
+                              CustomerChangeFeedProperties properties,
+                              MeterRegistry meterRegistry) {
+        this.customerDAO = customerDAO;
+        this.ring = new CustomerChange[properties.capacity()];
+        this.maxPending = properties.maxPending();
+        this.maxSubscribers = properties.maxSubscribers();
+        this.timeoutMillis = properties.timeout().toMillis();
+        this.heartbeatMillis = properties.heartbeatInterval().toMillis();
+        this.evictions = Counter.builder("customer.change.feed.evicted")
+                .description("Subscribers disconnected for falling too far behind")
+                .register(meterRegistry);
+        Gauge.builder("customer.change.feed.subscribers", subscribers, Set::size)
+                .description("Open change feed streams")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param lastEventId the id of the last event the client got, null for a new client
+     * @param snapshot    for a new client, whether to send every customer before the live changes
+     */
+    public SseEmitter subscribe(String lastEventId, boolean snapshot) {
+        return subscribe(lastEventId, snapshot, new SseEmitter(timeoutMillis));
+    }
+
+    SseEmitter subscribe(String lastEventId, boolean snapshot, SseEmitter emitter) {
+        ExecutorService senders = this.senders;
+        if (senders == null || subscribers.size() >= maxSubscribers) {
+            throw new TooManyRequestsException("the change feed is not accepting subscribers right now");
+        }
+
+        Subscriber subscriber = new Subscriber(emitter, senders);
+        Long resumeAfter = lastEventId == null ? null : sequenceOf(lastEventId);
+        List<CustomerChange> missed;
+        long subscribedAt;
+        //together, so every change is either replayed or queued, never both or neither
+        synchronized (this) {
+            subscribedAt = lastSequence;
+            missed = resumeAfter == null ? null : retainedAfter(resumeAfter);
+            subscribers.add(subscriber);
+        }
+        emitter.onCompletion(subscriber::close);
+        emitter.onError(e -> subscriber.close());
+        emitter.onTimeout(() -> {
+            subscriber.close();
+            emitter.complete();
+        });
+
+        boolean reset = lastEventId != null && missed == null;
+        senders.execute(() -> subscriber.start(
+                reset ? "event [%s] is no longer retained".formatted(lastEventId) : null,
+                reset || (lastEventId == null && snapshot),
+                missed,
+                subscribedAt
+        ));
+        return emitter;
+    }
+
+    //after commit, so subscribers never see a change that was rolled back
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onCustomerChanged(CustomerChangedEvent event) {
+        for (Customer customer : event.customers()) {
+            CustomerChange change = new CustomerChange(
+                    ++lastSequence,
+                    event.type(),
+                    event.type() == CustomerChangedEvent.Type.DELETED
+                            ? new Customer(customer.getId(), null, null, null)
+                            : CustomerCacheDataAccessService.copy(customer)
+            );
+            ring[(int) (change.sequence() % ring.length)] = change;
+            for (Subscriber subscriber : subscribers) {
+                subscriber.offer(change);
+            }
+        }
+    }
+
+    //null when some of the changes after sequence were overwritten or never happened
+    private List<CustomerChange> retainedAfter(long sequence) {
+        long oldest = Math.max(1, lastSequence - ring.length + 1);
+        if (sequence > lastSequence || sequence < oldest - 1) {
+            return null;
+        }
+        List<CustomerChange> changes = new ArrayList<>((int) (lastSequence - sequence));
+        for (long next = sequence + 1; next <= lastSequence; next++) {
+            changes.add(ring[(int) (next % ring.length)]);
+        }
+        return changes;
+    }
+
+    private Long sequenceOf(String eventId) {
+        int separator = eventId.indexOf(':');
+        if (separator < 0 || !eventId.substring(0, separator).equals(epoch)) {
+            return null;
+        }
+        try {
+            return Long.parseLong(eventId.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private String eventId(long sequence) {
+        return epoch + ":" + sequence;
+    }
+
+    private SseEmitter.SseEventBuilder event(CustomerChange change) {
+        if (change == HEARTBEAT) {
+            return SseEmitter.event().comment("heartbeat");
+        }
+        return SseEmitter.event()
+                .id(eventId(change.sequence()))
+                .name(change.type().name().toLowerCase(Locale.ROOT))
+                .data(change.customer(), MediaType.APPLICATION_JSON);
+    }
+
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final ExecutorService senders;
+        private final Queue<CustomerChange> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pendingCount = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        //set once the replay or snapshot is sent, queued changes wait for it
+        private volatile boolean started;
+        private volatile boolean closed;
+
+        Subscriber(SseEmitter emitter, ExecutorService senders) {
+            this.emitter = emitter;
+            this.senders = senders;
+        }
+
+        void start(String resetReason, boolean snapshot, List<CustomerChange> missed, long subscribedAt) {
+            try {
+                if (resetReason != null) {
+                    emitter.send(SseEmitter.event().name("reset").data(Map.of("reason", resetReason), MediaType.APPLICATION_JSON));
+                }
+                if (snapshot) {
+                    //changes queued meanwhile may already be in it, applying them again is harmless
+                    for (Customer customer : customerDAO.selectAllCustomers()) {
+                        emitter.send(SseEmitter.event().name("snapshot").data(customer, MediaType.APPLICATION_JSON));
+                    }
+                } else if (missed != null) {
+                    for (CustomerChange change : missed) {
+                        emitter.send(event(change));
+                    }
+                }
+                emitter.send(SseEmitter.event()
+                        .id(eventId(subscribedAt))
+                        .name("synced")
+                        .data(Map.of("sequence", subscribedAt), MediaType.APPLICATION_JSON));
+            } catch (IOException | IllegalStateException e) {
+                //the client went away
+                close();
+                return;
+            } catch (RuntimeException e) {
+                log.warn("Could not start a change feed stream", e);
+                close();
+                emitter.completeWithError(e);
+                return;
+            }
+            started = true;
+            drain();
+        }
+
+        //called with the feed locked, so it must not block
+        void offer(CustomerChange change) {
+            if (closed) {
+                return;
+            }
+            if (pendingCount.incrementAndGet() > maxPending) {
+                evict();
+                return;
+            }
+            pending.add(change);
+            if (started) {
+                drain();
+            }
+        }
+
+        private void drain() {
+            if (!draining.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                senders.execute(() -> {
+                    try {
+                        CustomerChange change;
+                        while (!closed && (change = pending.poll()) != null) {
+                            pendingCount.decrementAndGet();
+                            emitter.send(event(change));
+                        }
+                    } catch (IOException | IllegalStateException e) {
+                        close();
+                    } finally {
+                        draining.set(false);
+                    }
+                    //offered after the loop ended but before draining was cleared
+                    if (!closed && !pending.isEmpty()) {
+                        drain();
+                    }
+                });
+            } catch (RuntimeException e) {
+                //senders shut down
+                draining.set(false);
+                close();
+            }
+        }
+
+        private void evict() {
+            if (closed) {
+                return;
+            }
+            close();
+            evictions.increment();
+            //complete waits for a send blocked on this client, so not here
+            senders.execute(emitter::complete);
+        }
+
+        void close() {
+            closed = true;
+            subscribers.remove(this);
+            pending.clear();
+        }
+    }
+
+    @Override
+    public void start() {
+        senders = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "customer-change-feed");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "customer-change-feed-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeat.scheduleWithFixedDelay(() -> {
+            synchronized (this) {
+                subscribers.forEach(subscriber -> subscriber.offer(HEARTBEAT));
+            }
+        }, heartbeatMillis, heartbeatMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() {
+        heartbeat.shutdownNow();
+        heartbeat = null;
+        //before the web server's graceful shutdown, which would wait for the streams to end
+        for (Subscriber subscriber : List.copyOf(subscribers)) {
+            subscriber.close();
+            senders.execute(subscriber.emitter::complete);
+        }
+        senders.shutdown();
+        senders = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return senders != null;
+    }
+}
@@ -0,0 +1,24 @@
+package com.amigoscode.customer;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * @param capacity          changes kept for subscribers resuming with Last-Event-ID, older ones get a snapshot
+ * @param maxPending        changes queued for one subscriber before it is disconnected as too slow
+ * @param maxSubscribers    open streams, further ones get 429
+ * @param timeout           how long a stream stays open, the client reconnects after it
+ * @param heartbeatInterval how often idle streams get a comment, so proxies keep them open and dead ones are noticed
+ */
+@ConfigurationProperties(prefix = "customer.change-feed")
+public record CustomerChangeFeedProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("10000") int capacity,
+        @DefaultValue("1000") int maxPending,
+        @DefaultValue("1000") int maxSubscribers,
+        @DefaultValue("30m") Duration timeout,
+        @DefaultValue("15s") Duration heartbeatInterval
+) {
+}
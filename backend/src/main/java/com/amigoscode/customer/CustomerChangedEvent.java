@@ -0,0 +1,27 @@
+package com.amigoscode.customer;
+
+import java.util.List;
+
+/**
+ * Published once customers were created, updated or deleted, after the transaction commits if
+ * there is one. Deleted customers only need their id.
+ */
+public record CustomerChangedEvent(Type type, List<Customer> customers) {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    public static CustomerChangedEvent deleted(List<Long> customerIds) {
+        return new CustomerChangedEvent(
+                Type.DELETED,
+                customerIds.stream().map(id -> new Customer(id, null, null, null)).toList()
+        );
+    }
+
+    public List<Long> customerIds() {
+        return customers.stream().map(Customer::getId).toList();
+    }
+}
@@ -1,6 +1,14 @@
 package com.amigoscode.customer;
 
+import com.amigoscode.exception.ResourceNotFoundException;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 
@@ -9,24 +17,107 @@ import java.util.List;
 public class CustomerController {
 
     private final CustomerService customerService;
+    private final CustomerOperationsService customerOperationsService;
+    private final CustomerCountService customerCountService;
+    private final CustomerWriteBehindRegistrar writeBehindRegistrar;
+    private final CustomerResponseCache responseCache;
+    private final CustomerChangeFeed changeFeed;
+    private final CustomerSyncService customerSyncService;
 
-    public CustomerController(CustomerService customerService) {
+    public CustomerController(CustomerService customerService,
+                              CustomerOperationsService customerOperationsService,
+                              CustomerCountService customerCountService,
+                              ObjectProvider<CustomerSyncService> customerSyncService,
+                              ObjectProvider<CustomerWriteBehindRegistrar> writeBehindRegistrar,
+                              ObjectProvider<CustomerResponseCache> responseCache,
+                              ObjectProvider<CustomerChangeFeed> changeFeed) {
         this.customerService = customerService;
+        this.customerOperationsService = customerOperationsService;
+        this.customerCountService = customerCountService;
+        this.customerSyncService = customerSyncService.getIfAvailable();
+        this.writeBehindRegistrar = writeBehindRegistrar.getIfAvailable();
+        this.responseCache = responseCache.getIfAvailable();
+        this.changeFeed = changeFeed.getIfAvailable();
     }
 
+    //fields=id,email selects and returns only those fields
     @GetMapping
-    public List<Customer> getCustomers() {
-        return customerService.getAllCustomers();
+    public List<Customer> getCustomers(@RequestParam(name = "fields", required = false) String fields) {
+        return customerService.getAllCustomers(CustomerField.parse(fields));
     }
 
+    //created, updated and deleted customers since the token of an earlier response, everything without one
+    @GetMapping(params = "modifiedSince")
+    public CustomerSyncResponse getCustomersModifiedSince(@RequestParam("modifiedSince") String token) {
+        if (customerSyncService == null) {
+            throw new ResourceNotFoundException("customer sync needs a jdbc or jpa tier");
+        }
+        return customerSyncService.modifiedSince(token);
+    }
+
+    @GetMapping(params = "ids")
+    public CustomerLookupResponse getCustomersByIds(@RequestParam("ids") List<Long> ids) {
+        return customerService.getCustomers(ids);
+    }
+
+    //same as GET ?ids= for id sets too large for a query string
+    @PostMapping("lookup")
+    public CustomerLookupResponse lookupCustomers(@RequestBody CustomerLookupRequest request) {
+        return customerService.getCustomers(request.ids());
+    }
+
+    //without exact the count cached in the background, exact=false estimates, exact=true counts now
+    @GetMapping("count")
+    public CustomerCount countCustomers(@RequestParam(name = "exact", required = false) Boolean exact) {
+        return customerCountService.countCustomers(exact);
+    }
+
+    //server-sent events for every change, resumed with Last-Event-ID, see CustomerChangeFeed;
+    //snapshot=true starts a new stream with every customer
+    @GetMapping(path = "changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(@RequestHeader(name = "Last-Event-ID", required = false) String lastEventId,
+                                    @RequestParam(name = "snapshot", defaultValue = "false") boolean snapshot) {
+        if (changeFeed == null) {
+            throw new ResourceNotFoundException("the change feed is disabled");
+        }
+        return changeFeed.subscribe(lastEventId, snapshot);
+    }
+
+    //with the response cache the body is written as cached bytes, a matching If-None-Match gets a 304;
+    //projections with fields= are never cached
     @GetMapping("{customerId}")
-    public Customer getCustomer(@PathVariable("customerId") Long customerId) {
-        return customerService.getCustomer(customerId);
+    public ResponseEntity<?> getCustomer(@PathVariable("customerId") Long customerId,
+                                         @RequestParam(name = "fields", required = false) String fields,
+                                         @RequestHeader(name = HttpHeaders.ACCEPT, required = false) String accept,
+                                         WebRequest request) throws HttpMediaTypeNotAcceptableException {
+        if (responseCache == null || fields != null) {
+            return ResponseEntity.ok(customerService.getCustomer(customerId, CustomerField.parse(fields)));
+        }
+        var encoded = responseCache.getCustomer(customerId, accept);
+        if (request.checkNotModified(encoded.eTag())) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .contentType(encoded.contentType())
+                .eTag(encoded.eTag())
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(encoded.body());
     }
 
     @PostMapping
-    public void registerCustomer(@RequestBody CustomerRegistrationRequest request){
+    public ResponseEntity<Void> registerCustomer(@RequestBody CustomerRegistrationRequest request){
+        if (writeBehindRegistrar != null) {
+            writeBehindRegistrar.register(request);
+            return ResponseEntity.accepted().build();
+        }
         customerService.addCustomer(request);
+        return ResponseEntity.ok().build();
+    }
+
+    //ordered creates, updates and deletes in one request, see CustomerOperationsService
+    @PostMapping("operations")
+    public CustomerOperationsResponse executeOperations(@RequestBody CustomerOperationsRequest request) {
+        return customerOperationsService.execute(request);
     }
 
     @DeleteMapping("{customerId}")
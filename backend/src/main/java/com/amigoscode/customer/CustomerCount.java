@@ -0,0 +1,14 @@
+package com.amigoscode.customer;
+
+import java.time.Instant;
+
+/**
+ * @param exact     false for an estimate from the planner statistics
+ * @param countedAt when the count was taken, older than the request for the cached count
+ */
+public record CustomerCount(
+        long count,
+        boolean exact,
+        Instant countedAt
+) {
+}
@@ -0,0 +1,15 @@
+package com.amigoscode.customer;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * @param refreshInterval how often the cached exact count is taken again
+ */
+@ConfigurationProperties(prefix = "customer.count")
+public record CustomerCountProperties(
+        @DefaultValue("1m") Duration refreshInterval
+) {
+}
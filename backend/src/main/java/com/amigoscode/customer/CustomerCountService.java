@@ -0,0 +1,88 @@
+package com.amigoscode.customer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counts customers three ways: exactly, which scans the table, as estimated from the planner
+ * statistics, which doesn't, and from an exact count taken in the background every
+ * {@code refreshInterval}. Until the first background count is in, the estimate stands in for it.
+ */
+@Service
+public class CustomerCountService implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(CustomerCountService.class);
+
+    private final CustomerDAO customerDAO;
+    private final Duration refreshInterval;
+    private volatile CustomerCount cached;
+    private ScheduledExecutorService scheduler;
+
+    public CustomerCountService(CustomerDAO customerDAO, CustomerCountProperties properties) {
+        this.customerDAO = customerDAO;
+        this.refreshInterval = properties.refreshInterval();
+    }
+
+    /**
+     * @param exact true to count now, false for the estimate, null for the cached exact count
+     */
+    public CustomerCount countCustomers(Boolean exact) {
+        CustomerServiceEvent event = CustomerServiceEvent.begin("countCustomers", null);
+        try {
+            if (exact == null) {
+                CustomerCount count = cached;
+                return count != null ? count : estimate();
+            }
+            return exact ? count() : estimate();
+        } finally {
+            event.commit();
+        }
+    }
+
+    void refresh() {
+        cached = count();
+    }
+
+    private CustomerCount count() {
+        return new CustomerCount(customerDAO.countCustomers(), true, Instant.now());
+    }
+
+    private CustomerCount estimate() {
+        return new CustomerCount(customerDAO.estimateCustomers(), false, Instant.now());
+    }
+
+    @Override
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "customer-count-refresher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                refresh();
+            } catch (RuntimeException e) {
+                log.warn("Could not count customers", e);
+            }
+        }, 0, refreshInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() {
+        scheduler.shutdownNow();
+        scheduler = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return scheduler != null;
+    }
+}
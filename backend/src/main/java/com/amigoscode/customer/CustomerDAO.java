@@ -1,15 +1,29 @@
 package com.amigoscode.customer;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 public interface CustomerDAO {
     List<Customer> selectAllCustomers();
+    //only the given fields are read, the others are left null
+    List<Customer> selectAllCustomers(Set<CustomerField> fields);
     Optional<Customer> selectCustomerByID(Long id);
+    Optional<Customer> selectCustomerByID(Long id, Set<CustomerField> fields);
+    List<Customer> selectCustomersByIDs(Collection<Long> ids);
     void insertCustomer(Customer customer);
+    void insertCustomers(List<Customer> customers);
     boolean existsPersonWithEmail(String email);
+    //the given emails that belong to a customer, checked together
+    Set<String> selectExistingEmails(Collection<String> emails);
     void deleteCustomerById(Long customerId);
     boolean existsPersonWithId(Long id);
     void updateCustomerById(Customer update);
+    void updateCustomers(List<Customer> updates);
+    void deleteCustomersByIds(Collection<Long> customerIds);
+    long countCustomers();
+    //cheap approximation of countCustomers(), exact where counting is cheap anyway
+    long estimateCustomers();
 
 }
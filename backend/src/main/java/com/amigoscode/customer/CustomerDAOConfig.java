@@ -0,0 +1,71 @@
+package com.amigoscode.customer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.List;
+
+@Configuration
+public class CustomerDAOConfig {
+
+    //the DAO used by CustomerService, composed from customer.dao.tiers
+    @Bean
+    @Primary
+    CustomerDAO customerDAO(CustomerDAOProperties properties,
+                            ObjectProvider<BatchingCustomerDAO> batchingCustomerDAO,
+                            BeanFactory beanFactory,
+                            MeterRegistry meterRegistry) {
+        CustomerDAO customerDAO = batchingCustomerDAO.getIfAvailable();
+        if (customerDAO == null) {
+            customerDAO = tiers(properties, beanFactory);
+        }
+
+        if (properties.singleFlight().enabled()) {
+            customerDAO = new SingleFlightCustomerDAO(customerDAO, properties.singleFlight().timeout(), meterRegistry);
+        }
+        return customerDAO;
+    }
+
+    //a bean of its own, so the context shuts its loader threads down
+    @Bean
+    @ConditionalOnProperty(name = "customer.dao.batching.enabled", havingValue = "true")
+    BatchingCustomerDAO batchingCustomerDAO(CustomerDAOProperties properties,
+                                            BeanFactory beanFactory,
+                                            MeterRegistry meterRegistry) {
+        var batching = properties.batching();
+        return new BatchingCustomerDAO(
+                tiers(properties, beanFactory),
+                batching.window(),
+                batching.maxBatchSize(),
+                batching.timeout(),
+                batching.loaderThreads(),
+                meterRegistry
+        );
+    }
+
+    //without a database tier there is no transaction manager, operations run without a transaction
+    @Bean
+    @ConditionalOnCustomerDatabase(false)
+    TransactionOperations transactionOperations() {
+        return TransactionOperations.withoutTransaction();
+    }
+
+    private static CustomerDAO tiers(CustomerDAOProperties properties, BeanFactory beanFactory) {
+        List<CustomerDAO> tiers = properties.tiers()
+                .stream()
+                //each tier emits its own flight recorder events, tagged with the tier name
+                .<CustomerDAO>map(tier -> new FlightRecorderCustomerDAO(tier, beanFactory.getBean(tier, CustomerDAO.class)))
+                .toList();
+
+        if (tiers.isEmpty()) {
+            throw new IllegalStateException("customer.dao.tiers must name at least one CustomerDAO");
+        }
+        return tiers.size() == 1 ? tiers.get(0) : new TieredCustomerDAO(tiers);
+    }
+}
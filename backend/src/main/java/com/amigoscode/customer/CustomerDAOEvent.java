@@ -0,0 +1,47 @@
+package com.amigoscode.customer;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event spanning one call into a CustomerDAO tier, emitted by
+ * {@link FlightRecorderCustomerDAO}.
+ */
+@Name("com.amigoscode.CustomerDAO")
+@Label("Customer DAO Call")
+@Category({"Amigoscode", "Customer"})
+@Description("A call into one CustomerDAO tier, e.g. jdbc or cache")
+@StackTrace(false)
+class CustomerDAOEvent extends Event {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("DAO")
+    @Description("Name of the tier in customer.dao.tiers")
+    String dao;
+
+    @Label("Customer Id")
+    @Description("0 when the call is not about a single customer")
+    long customerId;
+
+    @Label("Rows")
+    int rows;
+
+    @Label("Hit")
+    @Description("Whether a lookup found what it looked for, a cache hit for the cache tier")
+    boolean hit;
+
+    static CustomerDAOEvent begin(String operation, String dao, Long customerId) {
+        CustomerDAOEvent event = new CustomerDAOEvent();
+        event.operation = operation;
+        event.dao = dao;
+        event.customerId = customerId == null ? 0 : customerId;
+        event.begin();
+        return event;
+    }
+}
@@ -0,0 +1,54 @@
+package com.amigoscode.customer;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * @param tiers CustomerDAO bean names, fastest first. The last tier is the system of record.
+ */
+@ConfigurationProperties(prefix = "customer.dao")
+public record CustomerDAOProperties(
+        @DefaultValue("jdbc") List<String> tiers,
+        @DefaultValue Cache cache,
+        @DefaultValue SingleFlight singleFlight,
+        @DefaultValue Batching batching,
+        @DefaultValue Log log
+) {
+
+    static final List<String> DEFAULT_TIERS = List.of("jdbc");
+
+    //tiers backed by the customer table, the DataSource, Flyway and Hibernate are only set up for these
+    static final List<String> DATABASE_TIERS = List.of("jdbc", "jpa");
+
+    public record Cache(@DefaultValue("10000") int maxSize) {
+    }
+
+    public record SingleFlight(@DefaultValue("true") boolean enabled, @DefaultValue("5s") Duration timeout) {
+    }
+
+    public record Batching(
+            @DefaultValue("false") boolean enabled,
+            @DefaultValue("2ms") Duration window,
+            @DefaultValue("100") int maxBatchSize,
+            @DefaultValue("5s") Duration timeout,
+            @DefaultValue("2") int loaderThreads
+    ) {
+    }
+
+    /**
+     * @param compactionThreshold rolled segments with at most this share of live records are compacted
+     */
+    public record Log(
+            @DefaultValue("data/customers") Path directory,
+            @DefaultValue("64MB") DataSize segmentSize,
+            @DefaultValue("true") boolean fsync,
+            @DefaultValue("1m") Duration compactionInterval,
+            @DefaultValue("0.5") double compactionThreshold
+    ) {
+    }
+}
@@ -0,0 +1,74 @@
+package com.amigoscode.customer;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.config.ConfigDataEnvironmentPostProcessor;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Excludes the DataSource, Flyway and Hibernate auto-configuration when no tier in
+ * {@code customer.dao.tiers} uses the database, so e.g. {@code tiers: [cache, log]} starts
+ * without Postgres. Exclusions from {@code spring.autoconfigure.exclude} are kept.
+ * <p>
+ * With {@code customer.partitions.enabled}, adds {@code db/partitioning} to the Flyway locations,
+ * out of order as the partitioning migration can come after later ones that were applied already.
+ */
+class CustomerDatabaseEnvironmentPostProcessor implements EnvironmentPostProcessor, Ordered {
+
+    private static final String EXCLUDE = "spring.autoconfigure.exclude";
+    private static final String FLYWAY_LOCATIONS = "spring.flyway.locations";
+    private static final String PARTITIONING_MIGRATIONS = "classpath:db/partitioning";
+
+    private static final List<String> DATABASE_AUTO_CONFIGURATIONS = List.of(
+            "org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration",
+            "org.springframework.boot.autoconfigure.jdbc.DataSourceTransactionManagerAutoConfiguration",
+            "org.springframework.boot.autoconfigure.flyway.FlywayAutoConfiguration",
+            "org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration"
+    );
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        if (!OnCustomerDAOTierCondition.usesDatabase(environment)) {
+            excludeDatabase(environment);
+        } else if (environment.getProperty("customer.partitions.enabled", Boolean.class, false)) {
+            addPartitioningMigrations(environment);
+        }
+    }
+
+    private static void excludeDatabase(ConfigurableEnvironment environment) {
+        Set<String> excluded = new LinkedHashSet<>(Binder.get(environment)
+                .bind(EXCLUDE, String[].class)
+                .map(List::of)
+                .orElse(List.of()));
+        excluded.addAll(DATABASE_AUTO_CONFIGURATIONS);
+        environment.getPropertySources().addFirst(new MapPropertySource(
+                "customerDatabaseExclusions", Map.of(EXCLUDE, String.join(",", excluded))));
+    }
+
+    private static void addPartitioningMigrations(ConfigurableEnvironment environment) {
+        Set<String> locations = new LinkedHashSet<>(Binder.get(environment)
+                .bind(FLYWAY_LOCATIONS, String[].class)
+                .map(List::of)
+                .orElse(List.of("classpath:db/migration")));
+        locations.add(PARTITIONING_MIGRATIONS);
+        environment.getPropertySources().addFirst(new MapPropertySource(
+                "customerPartitioningMigrations", Map.of(
+                        FLYWAY_LOCATIONS, String.join(",", locations),
+                        "spring.flyway.out-of-order", "true"
+                )));
+    }
+
+    //after the application*.yml files are loaded, so profile specific tiers count
+    @Override
+    public int getOrder() {
+        return ConfigDataEnvironmentPostProcessor.ORDER + 1;
+    }
+}
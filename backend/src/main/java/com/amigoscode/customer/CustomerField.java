@@ -0,0 +1,85 @@
+package com.amigoscode.customer;
+
+import com.amigoscode.exception.RequestValidationException;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The fields a customer read can be narrowed to with {@code ?fields=}. Each one's name is both
+ * its column and its JSON property. Fields left out stay null and are not serialized.
+ */
+public enum CustomerField {
+    ID("id"),
+    AGE("age"),
+    NAME("name"),
+    EMAIL("email");
+
+    public static final Set<CustomerField> ALL = Collections.unmodifiableSet(EnumSet.allOf(CustomerField.class));
+
+    private final String column;
+
+    CustomerField(String column) {
+        this.column = column;
+    }
+
+    public String column() {
+        return column;
+    }
+
+    /**
+     * @param fields comma separated, e.g. {@code id,email}; null for all fields
+     */
+    public static Set<CustomerField> parse(String fields) {
+        if (fields == null) {
+            return ALL;
+        }
+        Set<CustomerField> parsed = EnumSet.noneOf(CustomerField.class);
+        for (String name : fields.split(",")) {
+            parsed.add(byColumn(name.strip()));
+        }
+        return parsed;
+    }
+
+    private static CustomerField byColumn(String column) {
+        for (CustomerField field : values()) {
+            if (field.column.equals(column)) {
+                return field;
+            }
+        }
+        throw new RequestValidationException(
+                "unknown customer field [%s], fields are id, age, name and email".formatted(column)
+        );
+    }
+
+    //for tiers that hold whole customers anyway
+    static Customer project(Customer customer, Set<CustomerField> fields) {
+        if (fields.size() == ALL.size()) {
+            return customer;
+        }
+        return new Customer(
+                fields.contains(ID) ? customer.getId() : null,
+                fields.contains(AGE) ? customer.getAge() : null,
+                fields.contains(NAME) ? customer.getName() : null,
+                fields.contains(EMAIL) ? customer.getEmail() : null
+        );
+    }
+
+    static List<Customer> project(List<Customer> customers, Set<CustomerField> fields) {
+        if (fields.size() == ALL.size()) {
+            return customers;
+        }
+        return customers.stream().map(customer -> project(customer, fields)).toList();
+    }
+
+    void set(Customer customer, Object value) {
+        switch (this) {
+            case ID -> customer.setId((Long) value);
+            case AGE -> customer.setAge((Integer) value);
+            case NAME -> customer.setName((String) value);
+            case EMAIL -> customer.setEmail((String) value);
+        }
+    }
+}
@@ -1,14 +1,27 @@
 package com.amigoscode.customer;
 
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Repository("jdbc")
+@ConditionalOnCustomerDAOTier("jdbc")
 public class CustomerJDBCDataAccessService implements CustomerDAO{
 
+    private static final String[] GENERATED_KEYS = {"id"};
+
     private final JdbcTemplate jdbcTemplate;
     private final CustomerRowMapper customerRowMapper;
 
@@ -21,10 +34,11 @@ public class CustomerJDBCDataAccessService implements CustomerDAO{
     public List<Customer> selectAllCustomers() {
         var sql = """
                 SELECT id, age, name, email
-                FROM customer              
+                FROM customer
+                WHERE deleted_at IS NULL
                 """;
 
-        return jdbcTemplate.query(sql, customerRowMapper);
+        return jdbcTemplate.query(sql, customerRowMapper.list());
     }
 
     @Override
@@ -32,9 +46,52 @@ public class CustomerJDBCDataAccessService implements CustomerDAO{
         var sql = """
                 SELECT id, age, name, email
                 FROM customer
-                WHERE id = ?            
+                WHERE id = ? AND deleted_at IS NULL
+                """;
+        return jdbcTemplate.query(sql, customerRowMapper.single(), id);
+    }
+
+    @Override
+    public List<Customer> selectAllCustomers(Set<CustomerField> fields) {
+        var mapper = new CustomerProjectionRowMapper(fields);
+        var sql = """
+                SELECT %s
+                FROM customer
+                WHERE deleted_at IS NULL
+                """.formatted(mapper.columns());
+
+        return jdbcTemplate.query(sql, mapper.list());
+    }
+
+    @Override
+    public Optional<Customer> selectCustomerByID(Long id, Set<CustomerField> fields) {
+        var mapper = new CustomerProjectionRowMapper(fields);
+        var sql = """
+                SELECT %s
+                FROM customer
+                WHERE id = ? AND deleted_at IS NULL
+                """.formatted(mapper.columns());
+        return jdbcTemplate.query(sql, mapper.single(), id);
+    }
+
+    @Override
+    public List<Customer> selectCustomersByIDs(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        //joined id by id, each lookup goes to the one partition holding it; id = ANY(?) would
+        //search every partition once the statement is prepared
+        var sql = """
+                SELECT c.id, c.age, c.name, c.email
+                FROM unnest(?) AS ids(id)
+                JOIN customer c ON c.id = ids.id
+                WHERE c.deleted_at IS NULL
                 """;
-        return jdbcTemplate.query(sql, customerRowMapper, id).stream().findFirst();
+        return jdbcTemplate.query(
+                sql,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", ids.toArray())),
+                customerRowMapper.list(ids.size())
+        );
     }
 
     @Override
@@ -44,21 +101,56 @@ public class CustomerJDBCDataAccessService implements CustomerDAO{
                 VALUES(?, ?, ?)
                 """;
 
-        int result = jdbcTemplate.update(
-                sql,
-                customer.getAge(),
-                customer.getName(),
-                customer.getEmail()
-                );
+        //the generated id goes back on the customer, for the cache tiers and the change feed
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql, GENERATED_KEYS);
+            setInsertParameters(ps, customer);
+            return ps;
+        }, keyHolder);
+        customer.setId(keyHolder.getKeyAs(Long.class));
+    }
 
-        System.out.println("jdbcTemplate.update" + result);
+    @Override
+    public void insertCustomers(List<Customer> customers) {
+        var sql = """
+                INSERT INTO customer(age, name, email)
+                VALUES(?, ?, ?)
+                """;
+
+        //one batch like batchUpdate would send, but reading back the generated ids in insert order
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(sql, GENERATED_KEYS)) {
+                for (Customer customer : customers) {
+                    setInsertParameters(ps, customer);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    for (Customer customer : customers) {
+                        if (!keys.next()) {
+                            break;
+                        }
+                        customer.setId(keys.getLong(1));
+                    }
+                }
+            }
+            return null;
+        });
+    }
+
+    private static void setInsertParameters(PreparedStatement ps, Customer customer) throws SQLException {
+        ps.setObject(1, customer.getAge(), Types.INTEGER);
+        ps.setString(2, customer.getName());
+        ps.setString(3, customer.getEmail());
     }
 
     @Override
     public boolean existsPersonWithEmail(String email) {
+        //one index lookup, where customer would need one per partition
         var sql = """
-                SELECT count(id)
-                FROM customer
+                SELECT count(*)
+                FROM customer_email
                 WHERE email = ?
                 """;
 
@@ -66,15 +158,34 @@ public class CustomerJDBCDataAccessService implements CustomerDAO{
         return count != null && count > 0;
     }
 
+    @Override
+    public Set<String> selectExistingEmails(Collection<String> emails) {
+        if (emails.isEmpty()) {
+            return Set.of();
+        }
+        //customer_email is never partitioned, ANY(?) is one index scan
+        var sql = """
+                SELECT email
+                FROM customer_email
+                WHERE email = ANY(?)
+                """;
+        return new HashSet<>(jdbcTemplate.query(
+                sql,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("text", emails.toArray())),
+                (rs, rowNum) -> rs.getString("email")
+        ));
+    }
+
     @Override
     public void deleteCustomerById(Long customerId) {
+        //soft delete, reads skip the row until CustomerPurger removes it
         var sql = """
-                DELETE FROM customer
-                WHERE id = ?
+                UPDATE customer
+                SET deleted_at = now()
+                WHERE id = ? AND deleted_at IS NULL
                 """;
 
-        int result = jdbcTemplate.update(sql, customerId);
-        System.out.println("deleteCustomerById result = " + result);
+        jdbcTemplate.update(sql, customerId);
     }
 
     @Override
@@ -82,7 +193,7 @@ public class CustomerJDBCDataAccessService implements CustomerDAO{
         var sql = """
                 SELECT count(*)
                 FROM customer
-                WHERE id = ?
+                WHERE id = ? AND deleted_at IS NULL
                 """;
 
         Integer count = jdbcTemplate.queryForObject(sql, Integer.class, id);
@@ -92,33 +203,97 @@ public class CustomerJDBCDataAccessService implements CustomerDAO{
     @Override
     public void updateCustomerById(Customer update) {
         if(update.getName() != null){
-            String sql = "UPDATE customer SET name = ? WHERE id = ?";
-            int result = jdbcTemplate.update(
+            String sql = "UPDATE customer SET name = ? WHERE id = ? AND deleted_at IS NULL";
+            jdbcTemplate.update(
                     sql,
                     update.getName(),
                     update.getId()
             );
-            System.out.println("updateCustomerById result = " + result);
         }
 
         if(update.getEmail() != null){
-            String sql = "UPDATE customer SET email = ? WHERE id = ?";
-            int result = jdbcTemplate.update(
+            String sql = "UPDATE customer SET email = ? WHERE id = ? AND deleted_at IS NULL";
+            jdbcTemplate.update(
                     sql,
                     update.getEmail(),
                     update.getId()
             );
-            System.out.println("updateCustomerById result = " + result);
         }
 
         if(update.getAge() != null){
-            String sql = "UPDATE customer SET age = ? WHERE id = ?";
-            int result = jdbcTemplate.update(
+            String sql = "UPDATE customer SET age = ? WHERE id = ? AND deleted_at IS NULL";
+            jdbcTemplate.update(
                     sql,
                     update.getAge(),
                     update.getId()
             );
-            System.out.println("updateCustomerById result = " + result);
         }
     }
+
+    @Override
+    public void updateCustomers(List<Customer> updates) {
+        //null fields stay unchanged, as in updateCustomerById
+        var sql = """
+                UPDATE customer
+                SET name = COALESCE(?, name), email = COALESCE(?, email), age = COALESCE(?, age)
+                WHERE id = ? AND deleted_at IS NULL
+                """;
+
+        jdbcTemplate.batchUpdate(sql, updates, updates.size(), (ps, update) -> {
+            ps.setString(1, update.getName());
+            ps.setString(2, update.getEmail());
+            ps.setObject(3, update.getAge(), Types.INTEGER);
+            ps.setLong(4, update.getId());
+        });
+    }
+
+    @Override
+    public void deleteCustomersByIds(Collection<Long> customerIds) {
+        if (customerIds.isEmpty()) {
+            return;
+        }
+        var sql = """
+                UPDATE customer c
+                SET deleted_at = now()
+                FROM unnest(?) AS ids(id)
+                WHERE c.id = ids.id AND c.deleted_at IS NULL
+                """;
+
+        jdbcTemplate.update(
+                sql,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", customerIds.toArray()))
+        );
+    }
+
+    @Override
+    public long countCustomers() {
+        var sql = """
+                SELECT count(*)
+                FROM customer
+                WHERE deleted_at IS NULL
+                """;
+
+        Long count = jdbcTemplate.queryForObject(sql, Long.class);
+        return count != null ? count : 0;
+    }
+
+    @Override
+    public long estimateCustomers() {
+        //the planner's estimate: rows per page as of the last ANALYZE times the pages there are now,
+        //or the statistics collector's live rows for a table that hasn't been analyzed yet, summed
+        //over the partitions
+        var sql = """
+                SELECT CAST(coalesce(sum(CASE
+                    WHEN c.reltuples < 0 OR c.relpages = 0 THEN coalesce(s.n_live_tup, 0)
+                    ELSE c.reltuples / c.relpages * (pg_relation_size(c.oid) / CAST(current_setting('block_size') AS int))
+                END), 0) AS bigint)
+                FROM pg_partition_tree(CAST('customer' AS regclass)) t
+                JOIN pg_class c ON c.oid = t.relid
+                LEFT JOIN pg_stat_user_tables s ON s.relid = c.oid
+                WHERE t.isleaf
+                """;
+
+        Long estimate = jdbcTemplate.queryForObject(sql, Long.class);
+        return estimate != null ? estimate : 0;
+    }
 }
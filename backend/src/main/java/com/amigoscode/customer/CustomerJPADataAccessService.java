@@ -1,22 +1,31 @@
 package com.amigoscode.customer;
 
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Repository("jpa")
+@ConditionalOnCustomerDAOTier("jpa")
 public class CustomerJPADataAccessService implements CustomerDAO{
 
     private final CustomerRepository customerRepository;
+    private final EntityManager entityManager;
 
-    public CustomerJPADataAccessService(CustomerRepository customerRepository) {
+    public CustomerJPADataAccessService(CustomerRepository customerRepository, EntityManager entityManager) {
         this.customerRepository = customerRepository;
+        this.entityManager = entityManager;
     }
 
     @Override
     public List<Customer> selectAllCustomers() {
-        return customerRepository.findAll();
+        return customerRepository.findAllUnmanaged();
     }
 
     @Override
@@ -24,16 +33,51 @@ public class CustomerJPADataAccessService implements CustomerDAO{
         return customerRepository.findById(id);
     }
 
+    //tuple queries select only the requested columns and never load an entity
+    @Override
+    public List<Customer> selectAllCustomers(Set<CustomerField> fields) {
+        return tupleQuery(fields, "").getResultStream()
+                .map(tuple -> customer(tuple, fields))
+                .toList();
+    }
+
+    @Override
+    public Optional<Customer> selectCustomerByID(Long id, Set<CustomerField> fields) {
+        return tupleQuery(fields, " WHERE c.id = :id")
+                .setParameter("id", id)
+                .getResultStream()
+                .findFirst()
+                .map(tuple -> customer(tuple, fields));
+    }
+
+    @Override
+    public List<Customer> selectCustomersByIDs(Collection<Long> ids) {
+        return customerRepository.findAllUnmanagedById(ids);
+    }
+
     @Override
     public void insertCustomer(Customer customer) {
         customerRepository.save(customer);
     }
 
+    @Override
+    public void insertCustomers(List<Customer> customers) {
+        customerRepository.saveAll(customers);
+    }
+
     @Override
     public boolean existsPersonWithEmail(String email) {
         return customerRepository.existsCustomerByEmail(email);
     }
 
+    @Override
+    public Set<String> selectExistingEmails(Collection<String> emails) {
+        if (emails.isEmpty()) {
+            return Set.of();
+        }
+        return Set.copyOf(customerRepository.findExistingEmails(emails));
+    }
+
     @Override
     public void deleteCustomerById(Long customerId) {
         customerRepository.deleteById(customerId);
@@ -49,4 +93,42 @@ public class CustomerJPADataAccessService implements CustomerDAO{
         customerRepository.save(customer);
     }
 
+    @Override
+    public void updateCustomers(List<Customer> customers) {
+        customerRepository.saveAll(customers);
+    }
+
+    @Override
+    public void deleteCustomersByIds(Collection<Long> customerIds) {
+        if (customerIds.isEmpty()) {
+            return;
+        }
+        customerRepository.softDeleteAllById(customerIds);
+    }
+
+    @Override
+    public long countCustomers() {
+        return customerRepository.count();
+    }
+
+    @Override
+    public long estimateCustomers() {
+        return customerRepository.estimateCustomers();
+    }
+
+    private TypedQuery<Tuple> tupleQuery(Set<CustomerField> fields, String where) {
+        String select = fields.stream()
+                .map(field -> "c.%1$s AS %1$s".formatted(field.column()))
+                .collect(Collectors.joining(", "));
+        return entityManager.createQuery("SELECT " + select + " FROM Customer c" + where, Tuple.class);
+    }
+
+    private static Customer customer(Tuple tuple, Set<CustomerField> fields) {
+        Customer customer = new Customer();
+        for (CustomerField field : fields) {
+            field.set(customer, tuple.get(field.column()));
+        }
+        return customer;
+    }
+
 }
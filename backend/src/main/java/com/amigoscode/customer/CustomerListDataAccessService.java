@@ -2,58 +2,140 @@ package com.amigoscode.customer;
 
 import org.springframework.stereotype.Repository;
 
-import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
-
-
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory customers keyed by id. As the system of record it starts with two sample
+ * customers and hands out ids. In front of a persistent tier it starts empty, so it never
+ * hides that tier's customers, and ignores customers that don't have an id yet.
+ */
 @Repository("list")
+@ConditionalOnCustomerDAOTier("list")
 public class CustomerListDataAccessService implements CustomerDAO{
 
-    private static List<Customer> customers;
-
-    static{
-        customers = new ArrayList<>();
-
-        Customer alex = new Customer(1L,21,"Alex","Alex@gmail.com");
-        customers.add(alex);
-        Customer Jamila = new Customer(2L,19,"Jamila","Jamila@gmail.com");
-        customers.add(Jamila);
+    private final Map<Long, Customer> customers = new ConcurrentHashMap<>();
+    private final AtomicLong ids = new AtomicLong();
+    private final boolean systemOfRecord;
+
+    public CustomerListDataAccessService(CustomerDAOProperties properties) {
+        List<String> tiers = properties.tiers();
+        this.systemOfRecord = tiers.get(tiers.size() - 1).equals("list");
+        if (systemOfRecord) {
+            insertCustomer(new Customer(1L,21,"Alex","Alex@gmail.com"));
+            insertCustomer(new Customer(2L,19,"Jamila","Jamila@gmail.com"));
+        }
     }
 
     @Override
     public List<Customer> selectAllCustomers() {
-        return customers;
+        return customers.values().stream().map(CustomerCacheDataAccessService::copy).toList();
     }
 
     @Override
     public Optional<Customer> selectCustomerByID(Long id) {
-        return customers.stream().filter(c ->  c.getId().equals(id)).findFirst();
+        return Optional.ofNullable(customers.get(id)).map(CustomerCacheDataAccessService::copy);
+    }
+
+    @Override
+    public List<Customer> selectAllCustomers(Set<CustomerField> fields) {
+        return CustomerField.project(selectAllCustomers(), fields);
+    }
+
+    @Override
+    public Optional<Customer> selectCustomerByID(Long id, Set<CustomerField> fields) {
+        return selectCustomerByID(id).map(customer -> CustomerField.project(customer, fields));
+    }
+
+    @Override
+    public List<Customer> selectCustomersByIDs(Collection<Long> ids) {
+        return ids.stream()
+                .map(customers::get)
+                .filter(Objects::nonNull)
+                .map(CustomerCacheDataAccessService::copy)
+                .toList();
     }
 
     @Override
     public void insertCustomer(Customer customer) {
-        customers.add(customer);
+        if (customer.getId() == null) {
+            if (!systemOfRecord) {
+                return;
+            }
+            customer.setId(ids.incrementAndGet());
+        } else {
+            ids.accumulateAndGet(customer.getId(), Math::max);
+        }
+        customers.put(customer.getId(), CustomerCacheDataAccessService.copy(customer));
+    }
+
+    @Override
+    public void insertCustomers(List<Customer> customers) {
+        customers.forEach(this::insertCustomer);
     }
 
     @Override
     public boolean existsPersonWithEmail(String email) {
-        return customers.stream().anyMatch(c ->  c.getEmail().equals(email));
+        return customers.values().stream().anyMatch(c ->  c.getEmail().equals(email));
+    }
+
+    @Override
+    public Set<String> selectExistingEmails(Collection<String> emails) {
+        return emails.stream().filter(this::existsPersonWithEmail).collect(Collectors.toSet());
     }
 
     @Override
     public void deleteCustomerById(Long customerId) {
-        customers.stream().filter(c -> c.getId().equals(customerId)).findFirst().ifPresent(customers::remove);
+        customers.remove(customerId);
     }
 
     @Override
     public boolean existsPersonWithId(Long id) {
-        return customers.stream().anyMatch(c ->  c.getId().equals(id));
+        return customers.containsKey(id);
+    }
+
+    @Override
+    public void updateCustomerById(Customer update) {
+        customers.computeIfPresent(update.getId(), (id, c) -> {
+            Customer updated = CustomerCacheDataAccessService.copy(c);
+            if (update.getName() != null) {
+                updated.setName(update.getName());
+            }
+            if (update.getEmail() != null) {
+                updated.setEmail(update.getEmail());
+            }
+            if (update.getAge() != null) {
+                updated.setAge(update.getAge());
+            }
+            return updated;
+        });
+    }
+
+    @Override
+    public void updateCustomers(List<Customer> updates) {
+        updates.forEach(this::updateCustomerById);
+    }
+
+    @Override
+    public void deleteCustomersByIds(Collection<Long> customerIds) {
+        customerIds.forEach(customers::remove);
+    }
+
+    @Override
+    public long countCustomers() {
+        return customers.size();
     }
 
     @Override
-    public void updateCustomerById(Customer customer) {
-        customers.add(customer);
+    public long estimateCustomers() {
+        return customers.size();
     }
 
 
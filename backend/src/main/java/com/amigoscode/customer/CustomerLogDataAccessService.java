@@ -0,0 +1,122 @@
+package com.amigoscode.customer;
+
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Persistent tier without a database, backed by a {@link CustomerLogStore}.
+ * Batch writes are validated up front but are not atomic: an I/O error in the middle of one
+ * leaves the customers before it written.
+ */
+@Repository("log")
+@ConditionalOnCustomerDAOTier("log")
+public class CustomerLogDataAccessService implements CustomerDAO, AutoCloseable {
+
+    private final CustomerLogStore store;
+
+    public CustomerLogDataAccessService(CustomerDAOProperties properties) {
+        var log = properties.log();
+        this.store = new CustomerLogStore(
+                log.directory(),
+                log.segmentSize().toBytes(),
+                log.fsync(),
+                log.compactionInterval(),
+                log.compactionThreshold()
+        );
+    }
+
+    @Override
+    public List<Customer> selectAllCustomers() {
+        return selectCustomersByIDs(store.ids());
+    }
+
+    @Override
+    public Optional<Customer> selectCustomerByID(Long id) {
+        return store.get(id);
+    }
+
+    @Override
+    public List<Customer> selectAllCustomers(Set<CustomerField> fields) {
+        return CustomerField.project(selectAllCustomers(), fields);
+    }
+
+    @Override
+    public Optional<Customer> selectCustomerByID(Long id, Set<CustomerField> fields) {
+        return selectCustomerByID(id).map(customer -> CustomerField.project(customer, fields));
+    }
+
+    @Override
+    public List<Customer> selectCustomersByIDs(Collection<Long> ids) {
+        return ids.stream()
+                .map(store::get)
+                .flatMap(Optional::stream)
+                .toList();
+    }
+
+    @Override
+    public void insertCustomer(Customer customer) {
+        store.insert(List.of(customer));
+    }
+
+    @Override
+    public void insertCustomers(List<Customer> customers) {
+        store.insert(customers);
+    }
+
+    @Override
+    public boolean existsPersonWithEmail(String email) {
+        return store.containsEmail(email);
+    }
+
+    @Override
+    public Set<String> selectExistingEmails(Collection<String> emails) {
+        return emails.stream().filter(store::containsEmail).collect(Collectors.toSet());
+    }
+
+    @Override
+    public void deleteCustomerById(Long customerId) {
+        store.delete(List.of(customerId));
+    }
+
+    @Override
+    public boolean existsPersonWithId(Long id) {
+        return store.contains(id);
+    }
+
+    @Override
+    public void updateCustomerById(Customer update) {
+        store.update(List.of(update));
+    }
+
+    @Override
+    public void updateCustomers(List<Customer> updates) {
+        store.update(updates);
+    }
+
+    @Override
+    public void deleteCustomersByIds(Collection<Long> customerIds) {
+        store.delete(customerIds.stream().filter(Objects::nonNull).toList());
+    }
+
+    @Override
+    public long countCustomers() {
+        return store.size();
+    }
+
+    @Override
+    public long estimateCustomers() {
+        return store.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        store.close();
+    }
+}
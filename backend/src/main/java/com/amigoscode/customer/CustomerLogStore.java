@@ -0,0 +1,768 @@
+package com.amigoscode.customer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.CREATE_NEW;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Durable customer storage in append-only segment files, for running without a database.
+ * <p>
+ * Every insert, update and delete appends a checksummed record to the active segment, which
+ * is rolled over once it reaches {@code segmentSize}. The only thing kept in memory is an index
+ * from id to the latest record of each customer, and from email to id. Writers append under
+ * one lock and then wait for a background thread that fsyncs whatever was appended since its
+ * last fsync, so concurrent writers share fsyncs (group commit). Readers see a write once it
+ * is appended, possibly a moment before it is durable.
+ * <p>
+ * Compaction copies the live records out of rolled segments that are mostly superseded or
+ * deleted and then deletes them. A checkpoint of the index is written after compaction, every
+ * {@code compactionInterval} and on close, so recovery only replays the records appended after
+ * it. A record torn by a crash at the end of the last segment was never acknowledged and is
+ * cut off; a bad record anywhere else fails the start.
+ */
+class CustomerLogStore implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(CustomerLogStore.class);
+
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+    //body length and checksum of the body
+    private static final int HEADER_BYTES = 8;
+    private static final int MAX_BODY_BYTES = 1 << 20;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String CHECKPOINT = "index.checkpoint";
+    private static final int CHECKPOINT_MAGIC = 0x434C4F47; //CLOG
+    private static final int CHECKPOINT_VERSION = 1;
+
+    private record Location(long segment, long offset, int length, String email) {
+    }
+
+    private record Record(byte type, long id, Customer customer, int length) {
+    }
+
+    private static final class Segment {
+
+        private final long id;
+        private final Path file;
+        //replaced when a thread interrupted during IO closed it
+        private volatile FileChannel channel;
+        //both guarded by the store
+        private long size;
+        private long liveBytes;
+
+        private Segment(long id, Path file, FileChannel channel) {
+            this.id = id;
+            this.file = file;
+            this.channel = channel;
+        }
+    }
+
+    private final Path directory;
+    private final long segmentSize;
+    private final boolean fsync;
+    private final double compactionThreshold;
+
+    private final Map<Long, Location> index = new ConcurrentHashMap<>();
+    private final Map<String, Long> idsByEmail = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+    //guarded by this
+    private Segment active;
+    private boolean shutdown;
+    private long maxId;
+    private long appended;
+
+    //guarded by durability
+    private final Object durability = new Object();
+    private long syncRequested;
+    private long synced;
+    private boolean closed;
+    private volatile IOException failure;
+    private final Thread syncer;
+    private final ScheduledExecutorService compactor;
+
+    CustomerLogStore(Path directory, long segmentSize, boolean fsync, Duration compactionInterval, double compactionThreshold) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.fsync = fsync;
+        this.compactionThreshold = compactionThreshold;
+        try {
+            Files.createDirectories(directory);
+            recover();
+        } catch (IOException e) {
+            throw new UncheckedIOException("could not open customer log in " + directory, e);
+        }
+
+        syncer = new Thread(this::syncLoop, "customer-log-sync");
+        syncer.setDaemon(true);
+        syncer.start();
+        compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "customer-log-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        compactor.scheduleWithFixedDelay(() -> {
+            try {
+                compact();
+                checkpoint();
+            } catch (IOException | RuntimeException e) {
+                log.warn("Could not compact the customer log in {}", directory, e);
+            }
+        }, compactionInterval.toMillis(), compactionInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    Optional<Customer> get(long id) {
+        while (true) {
+            Location location = index.get(id);
+            if (location == null) {
+                return Optional.empty();
+            }
+            Segment segment = segments.get(location.segment());
+            if (segment != null) {
+                FileChannel channel = segment.channel;
+                try {
+                    return Optional.of(read(segment, channel, location.offset()).customer());
+                } catch (ClosedByInterruptException e) {
+                    reopen(segment, channel);
+                    throw new DataAccessResourceFailureException("interrupted reading customer " + id, e);
+                } catch (ClosedChannelException e) {
+                    //compacted away in the meantime, the index already points to the copy,
+                    //or closed by another thread that was interrupted
+                    reopen(segment, channel);
+                } catch (IOException e) {
+                    throw new DataAccessResourceFailureException("could not read customer " + id, e);
+                }
+            }
+        }
+    }
+
+    boolean contains(long id) {
+        return index.containsKey(id);
+    }
+
+    Collection<Long> ids() {
+        return index.keySet();
+    }
+
+    boolean containsEmail(String email) {
+        return idsByEmail.containsKey(email);
+    }
+
+    int size() {
+        return index.size();
+    }
+
+    /**
+     * Assigns the customers their ids. Nothing is written unless every customer is valid.
+     */
+    void insert(List<Customer> customers) {
+        long end;
+        synchronized (this) {
+            Set<String> claimed = new HashSet<>();
+            for (Customer customer : customers) {
+                if (customer.getName() == null || customer.getEmail() == null || customer.getAge() == null) {
+                    throw new DataIntegrityViolationException("name, email and age of a customer are required");
+                }
+                if (idsByEmail.containsKey(customer.getEmail()) || !claimed.add(customer.getEmail())) {
+                    throw new DuplicateKeyException("email [%s] already taken".formatted(customer.getEmail()));
+                }
+            }
+            for (Customer customer : customers) {
+                customer.setId(maxId + 1);
+                put(customer);
+            }
+            end = appended;
+        }
+        awaitDurable(end);
+    }
+
+    //null fields stay unchanged, unknown ids are skipped
+    void update(List<Customer> updates) {
+        long end;
+        synchronized (this) {
+            List<Customer> updated = new ArrayList<>(updates.size());
+            Map<String, Long> claimed = new HashMap<>();
+            Set<String> released = new HashSet<>();
+            for (Customer update : updates) {
+                Location location = index.get(update.getId());
+                if (location == null) {
+                    continue;
+                }
+                Customer customer = get(update.getId()).orElseThrow();
+                if (update.getName() != null) {
+                    customer.setName(update.getName());
+                }
+                if (update.getAge() != null) {
+                    customer.setAge(update.getAge());
+                }
+                if (update.getEmail() != null && !update.getEmail().equals(location.email())) {
+                    Long owner = claimed.containsKey(update.getEmail()) ? claimed.get(update.getEmail())
+                            : released.contains(update.getEmail()) ? null
+                            : idsByEmail.get(update.getEmail());
+                    if (owner != null && !owner.equals(update.getId())) {
+                        throw new DuplicateKeyException("email [%s] already taken".formatted(update.getEmail()));
+                    }
+                    released.add(location.email());
+                    claimed.remove(location.email());
+                    claimed.put(update.getEmail(), update.getId());
+                    customer.setEmail(update.getEmail());
+                }
+                updated.add(customer);
+            }
+            for (Customer customer : updated) {
+                put(customer);
+            }
+            end = appended;
+        }
+        awaitDurable(end);
+    }
+
+    void delete(Collection<Long> ids) {
+        long end;
+        synchronized (this) {
+            for (Long id : ids) {
+                if (index.containsKey(id)) {
+                    append(encode(DELETE, id, null));
+                    applyDelete(id);
+                }
+            }
+            end = appended;
+        }
+        awaitDurable(end);
+    }
+
+    /**
+     * Copies the live records out of rolled segments that are at most {@code compactionThreshold}
+     * live, then deletes those segments.
+     */
+    void compact() throws IOException {
+        List<Segment> candidates = new ArrayList<>();
+        synchronized (this) {
+            for (Segment segment : segments.values()) {
+                if (segment != active && segment.liveBytes <= segment.size * compactionThreshold) {
+                    candidates.add(segment);
+                }
+            }
+        }
+        if (candidates.isEmpty()) {
+            return;
+        }
+
+        for (Segment segment : candidates) {
+            //deletes have to outlive every older segment that may still hold the customer
+            boolean oldest = segment.id == segments.firstKey();
+            long position = 0;
+            while (position < segment.size) {
+                Record record = read(segment, segment.channel, position);
+                synchronized (this) {
+                    if (record.type() == PUT) {
+                        Location location = index.get(record.id());
+                        if (location != null && location.segment() == segment.id && location.offset() == position) {
+                            put(record.customer());
+                        }
+                    } else if (!oldest) {
+                        append(encode(DELETE, record.id(), null));
+                    }
+                }
+                position += record.length();
+            }
+        }
+
+        //the copies have to be durable and the index checkpointed before their originals go
+        synchronized (this) {
+            active.channel.force(false);
+        }
+        checkpoint();
+        for (Segment segment : candidates) {
+            synchronized (this) {
+                segments.remove(segment.id);
+            }
+            segment.channel.close();
+            Files.delete(segment.file);
+            log.debug("Compacted {}", segment.file);
+        }
+        syncDirectory();
+    }
+
+    /**
+     * Writes the index, so recovery starts replaying from the current end of the log.
+     */
+    void checkpoint() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        synchronized (this) {
+            active.channel.force(false);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(CHECKPOINT_MAGIC);
+            out.writeInt(CHECKPOINT_VERSION);
+            out.writeLong(active.id);
+            out.writeLong(active.size);
+            out.writeLong(maxId);
+            out.writeInt(segments.size());
+            for (Segment segment : segments.values()) {
+                out.writeLong(segment.id);
+                out.writeLong(segment.size);
+                out.writeLong(segment.liveBytes);
+            }
+            out.writeInt(index.size());
+            for (Map.Entry<Long, Location> entry : index.entrySet()) {
+                out.writeLong(entry.getKey());
+                out.writeLong(entry.getValue().segment());
+                out.writeLong(entry.getValue().offset());
+                out.writeInt(entry.getValue().length());
+                out.writeUTF(entry.getValue().email());
+            }
+            out.flush();
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(bytes.toByteArray());
+        new DataOutputStream(bytes).writeLong(crc.getValue());
+
+        Path temporary = directory.resolve(CHECKPOINT + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, WRITE, CREATE, TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temporary, directory.resolve(CHECKPOINT), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        syncDirectory();
+    }
+
+    @Override
+    public void close() throws IOException {
+        //no shutdownNow, interrupting a thread in the middle of IO closes the channel
+        compactor.shutdown();
+        try {
+            compactor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure == null) {
+            checkpoint();
+        }
+        synchronized (durability) {
+            closed = true;
+            durability.notifyAll();
+        }
+        try {
+            syncer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            shutdown = true;
+            for (Segment segment : segments.values()) {
+                segment.channel.close();
+            }
+        }
+    }
+
+    //guarded by this
+    private void put(Customer customer) {
+        long offset = append(encode(PUT, customer.getId(), customer));
+        applyPut(active, offset, (int) (active.size - offset), customer.getId(), customer.getEmail());
+    }
+
+    //guarded by this, returns the offset of the record in the active segment
+    private long append(ByteBuffer record) {
+        if (failure != null) {
+            throw new DataAccessResourceFailureException("customer log failed to sync, restart to recover", failure);
+        }
+        FileChannel channel = active.channel;
+        try {
+            if (active.size > 0 && active.size + record.remaining() > segmentSize) {
+                roll();
+                channel = active.channel;
+            }
+            long offset = active.size;
+            int length = record.remaining();
+            while (record.hasRemaining()) {
+                channel.write(record, offset + length - record.remaining());
+            }
+            active.size += length;
+            appended += length;
+            return offset;
+        } catch (ClosedChannelException e) {
+            //nothing was acknowledged, the next append overwrites what made it to the file
+            reopen(active, channel);
+            throw new DataAccessResourceFailureException("append to customer log was interrupted", e);
+        } catch (IOException e) {
+            failure = e;
+            throw new DataAccessResourceFailureException("could not append to customer log", e);
+        }
+    }
+
+    //guarded by this
+    private void roll() throws IOException {
+        //the rest of an interrupted append would look like a damaged record to recovery
+        active.channel.truncate(active.size);
+        //the sync thread only ever forces the active segment
+        active.channel.force(false);
+        active = openSegment(active.id + 1, true);
+        syncDirectory();
+    }
+
+    private void applyPut(Segment segment, long offset, int length, long id, String email) {
+        Location previous = index.put(id, new Location(segment.id, offset, length, email));
+        if (previous != null) {
+            release(previous);
+            if (!previous.email().equals(email)) {
+                idsByEmail.remove(previous.email(), id);
+            }
+        }
+        idsByEmail.put(email, id);
+        segment.liveBytes += length;
+        maxId = Math.max(maxId, id);
+    }
+
+    private void applyDelete(long id) {
+        Location previous = index.remove(id);
+        if (previous != null) {
+            release(previous);
+            idsByEmail.remove(previous.email(), id);
+        }
+        maxId = Math.max(maxId, id);
+    }
+
+    private void release(Location location) {
+        Segment segment = segments.get(location.segment());
+        if (segment != null) {
+            segment.liveBytes -= location.length();
+        }
+    }
+
+    private void awaitDurable(long position) {
+        if (!fsync) {
+            return;
+        }
+        synchronized (durability) {
+            if (position > syncRequested) {
+                syncRequested = position;
+                durability.notifyAll();
+            }
+            boolean interrupted = false;
+            while (synced < position && failure == null) {
+                try {
+                    durability.wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (failure != null) {
+            throw new DataAccessResourceFailureException("customer log failed to sync, restart to recover", failure);
+        }
+    }
+
+    //fsyncs everything appended while the previous fsync ran in one go
+    private void syncLoop() {
+        while (true) {
+            synchronized (durability) {
+                while (syncRequested <= synced && !closed) {
+                    try {
+                        durability.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (syncRequested <= synced) {
+                    return;
+                }
+            }
+            long target;
+            Segment segment;
+            FileChannel channel;
+            synchronized (this) {
+                target = appended;
+                segment = active;
+                channel = segment.channel;
+            }
+            try {
+                channel.force(false);
+            } catch (ClosedChannelException e) {
+                synchronized (this) {
+                    if (segment == active && !shutdown) {
+                        //closed by an interrupted thread, fsync the same file through a new channel
+                        reopen(segment, channel);
+                        continue;
+                    }
+                }
+                //otherwise rolling forced it
+            } catch (IOException e) {
+                //after a failed fsync the page cache can't be trusted to still hold the writes
+                log.error("Could not sync the customer log in {}", directory, e);
+                failure = e;
+            }
+            synchronized (durability) {
+                synced = Math.max(synced, target);
+                durability.notifyAll();
+            }
+        }
+    }
+
+    private void recover() throws IOException {
+        List<Long> segmentIds;
+        try (Stream<Path> files = Files.list(directory)) {
+            segmentIds = files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        }
+        for (long id : segmentIds) {
+            openSegment(id, false);
+        }
+
+        long replaySegment = 0;
+        long replayOffset = 0;
+        if (readCheckpoint()) {
+            Segment last = segments.lastEntry().getValue();
+            replaySegment = active.id;
+            replayOffset = active.size;
+            active = last;
+        }
+        for (Segment segment : segments.values()) {
+            if (segment.id < replaySegment) {
+                segment.size = segment.channel.size();
+                continue;
+            }
+            replay(segment, segment.id == replaySegment ? replayOffset : 0, segment == lastSegment());
+        }
+        if (segments.isEmpty()) {
+            openSegment(1, true);
+        }
+        active = lastSegment();
+        log.info("Opened customer log in {} with {} customers in {} segments", directory, index.size(), segments.size());
+    }
+
+    /**
+     * Loads the index from the checkpoint and leaves {@code active} at the position it was
+     * taken at, false without a usable checkpoint.
+     */
+    private boolean readCheckpoint() throws IOException {
+        Path file = directory.resolve(CHECKPOINT);
+        if (!Files.exists(file) || segments.isEmpty()) {
+            return false;
+        }
+        byte[] bytes = Files.readAllBytes(file);
+        CRC32C crc = new CRC32C();
+        crc.update(bytes, 0, Math.max(0, bytes.length - Long.BYTES));
+        if (bytes.length < Long.BYTES || crc.getValue() != ByteBuffer.wrap(bytes, bytes.length - Long.BYTES, Long.BYTES).getLong()) {
+            log.warn("Ignoring damaged checkpoint {}, replaying the whole log", file);
+            return false;
+        }
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        if (in.readInt() != CHECKPOINT_MAGIC || in.readInt() != CHECKPOINT_VERSION) {
+            log.warn("Ignoring checkpoint {} of another format, replaying the whole log", file);
+            return false;
+        }
+        long activeId = in.readLong();
+        long activeSize = in.readLong();
+        long checkpointMaxId = in.readLong();
+        Map<Long, long[]> stats = new HashMap<>();
+        for (int i = in.readInt(); i > 0; i--) {
+            stats.put(in.readLong(), new long[]{in.readLong(), in.readLong()});
+        }
+        //every segment the checkpoint covers has to be there as it was
+        for (Map.Entry<Long, long[]> entry : stats.entrySet()) {
+            Segment segment = segments.get(entry.getKey());
+            if (segment == null || segment.channel.size() < entry.getValue()[0]) {
+                log.warn("Checkpoint {} doesn't match the segments, replaying the whole log", file);
+                return false;
+            }
+        }
+
+        for (int i = in.readInt(); i > 0; i--) {
+            long id = in.readLong();
+            Location location = new Location(in.readLong(), in.readLong(), in.readInt(), in.readUTF());
+            index.put(id, location);
+            idsByEmail.put(location.email(), id);
+        }
+        for (Segment segment : List.copyOf(segments.values())) {
+            long[] segmentStats = stats.get(segment.id);
+            if (segmentStats != null) {
+                segment.size = segmentStats[0];
+                segment.liveBytes = segmentStats[1];
+            } else if (segment.id < activeId) {
+                //compacted, but deleting it was cut short
+                segments.remove(segment.id);
+                segment.channel.close();
+                Files.delete(segment.file);
+            }
+        }
+        maxId = checkpointMaxId;
+        active = segments.get(activeId);
+        active.size = activeSize;
+        return true;
+    }
+
+    private void replay(Segment segment, long from, boolean last) throws IOException {
+        long position = from;
+        long end = segment.channel.size();
+        while (position < end) {
+            Record record = readIfIntact(segment.channel, position, end);
+            if (record == null) {
+                if (!last) {
+                    throw new IOException("damaged record in %s at %s".formatted(segment.file, position));
+                }
+                log.warn("Cutting off a torn write at {} of {}, it was never acknowledged", position, segment.file);
+                segment.channel.truncate(position);
+                segment.channel.force(true);
+                break;
+            }
+            if (record.type() == PUT) {
+                applyPut(segment, position, record.length(), record.id(), record.customer().getEmail());
+            } else {
+                applyDelete(record.id());
+            }
+            position += record.length();
+        }
+        segment.size = position;
+    }
+
+    private static Record read(Segment segment, FileChannel channel, long position) throws IOException {
+        Record record = readIfIntact(channel, position, channel.size());
+        if (record == null) {
+            throw new IOException("damaged record in %s at %s".formatted(segment.file, position));
+        }
+        return record;
+    }
+
+    private static Record readIfIntact(FileChannel channel, long position, long end) throws IOException {
+        if (end - position < HEADER_BYTES) {
+            return null;
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        readFully(channel, header, position);
+        int bodyLength = header.getInt(0);
+        if (bodyLength <= 0 || bodyLength > MAX_BODY_BYTES || end - position - HEADER_BYTES < bodyLength) {
+            return null;
+        }
+        ByteBuffer body = ByteBuffer.allocate(bodyLength);
+        readFully(channel, body, position + HEADER_BYTES);
+        CRC32C crc = new CRC32C();
+        crc.update(body.array());
+        if ((int) crc.getValue() != header.getInt(4)) {
+            return null;
+        }
+
+        byte type = body.get();
+        long id = body.getLong();
+        if (type == DELETE) {
+            return new Record(type, id, null, HEADER_BYTES + bodyLength);
+        }
+        int age = body.getInt();
+        String name = string(body);
+        String email = string(body);
+        return new Record(type, id, new Customer(id, age, name, email), HEADER_BYTES + bodyLength);
+    }
+
+    private static ByteBuffer encode(byte type, long id, Customer customer) {
+        byte[] name = customer == null ? null : customer.getName().getBytes(StandardCharsets.UTF_8);
+        byte[] email = customer == null ? null : customer.getEmail().getBytes(StandardCharsets.UTF_8);
+        int bodyLength = 1 + Long.BYTES + (customer == null ? 0 : 3 * Integer.BYTES + name.length + email.length);
+        ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + bodyLength);
+        record.putInt(bodyLength).putInt(0).put(type).putLong(id);
+        if (customer != null) {
+            record.putInt(customer.getAge());
+            record.putInt(name.length).put(name);
+            record.putInt(email.length).put(email);
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(record.array(), HEADER_BYTES, bodyLength);
+        record.putInt(4, (int) crc.getValue());
+        return record.flip();
+    }
+
+    private static String string(ByteBuffer body) {
+        byte[] bytes = new byte[body.getInt()];
+        body.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("unexpected end of segment");
+            }
+        }
+        buffer.flip();
+    }
+
+    private Segment openSegment(long id, boolean create) throws IOException {
+        Path file = directory.resolve(SEGMENT_PREFIX + "%020d".formatted(id) + SEGMENT_SUFFIX);
+        FileChannel channel = create ? FileChannel.open(file, READ, WRITE, CREATE_NEW) : FileChannel.open(file, READ, WRITE);
+        Segment segment = new Segment(id, file, channel);
+        segments.put(id, segment);
+        return segment;
+    }
+
+    //a thread interrupted during IO on a FileChannel closes it for every thread
+    private synchronized void reopen(Segment segment, FileChannel closed) {
+        if (shutdown) {
+            throw new DataAccessResourceFailureException("customer log in %s is closed".formatted(directory));
+        }
+        if (segment.channel == closed && segments.get(segment.id) == segment) {
+            try {
+                segment.channel = FileChannel.open(segment.file, READ, WRITE);
+            } catch (IOException e) {
+                throw new DataAccessResourceFailureException("could not reopen " + segment.file, e);
+            }
+        }
+    }
+
+    private Segment lastSegment() {
+        return segments.lastEntry().getValue();
+    }
+
+    //makes created, renamed and deleted files survive a crash
+    private void syncDirectory() throws IOException {
+        try (FileChannel channel = FileChannel.open(directory, READ)) {
+            channel.force(true);
+        }
+    }
+}
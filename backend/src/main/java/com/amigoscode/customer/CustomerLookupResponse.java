@@ -0,0 +1,9 @@
+package com.amigoscode.customer;
+
+import java.util.List;
+
+public record CustomerLookupResponse(
+        List<Customer> customers,
+        List<Long> missingIds
+) {
+}
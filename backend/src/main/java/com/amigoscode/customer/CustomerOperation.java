@@ -0,0 +1,17 @@
+package com.amigoscode.customer;
+
+/**
+ * One create, update or delete in a {@link CustomerOperationsRequest}. Creates use name, email
+ * and age, updates the customer id and the fields to change, deletes only the customer id.
+ */
+public record CustomerOperation(
+        Type type,
+        Long customerId,
+        String name,
+        String email,
+        Integer age
+) {
+    public enum Type {
+        CREATE, UPDATE, DELETE
+    }
+}
@@ -0,0 +1,15 @@
+package com.amigoscode.customer;
+
+public record CustomerOperationResult(
+        int index,
+        boolean succeeded,
+        String error
+) {
+    static CustomerOperationResult succeeded(int index) {
+        return new CustomerOperationResult(index, true, null);
+    }
+
+    static CustomerOperationResult failed(int index, String error) {
+        return new CustomerOperationResult(index, false, error);
+    }
+}
@@ -0,0 +1,14 @@
+package com.amigoscode.customer;
+
+import java.util.List;
+
+/**
+ * @param atomic all operations in one transaction, failing as a whole on the first invalid
+ *               one, which is the default; {@code false} reports failures per operation and
+ *               commits the rest
+ */
+public record CustomerOperationsRequest(
+        List<CustomerOperation> operations,
+        Boolean atomic
+) {
+}
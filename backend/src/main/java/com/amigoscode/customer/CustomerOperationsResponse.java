@@ -0,0 +1,8 @@
+package com.amigoscode.customer;
+
+import java.util.List;
+
+public record CustomerOperationsResponse(
+        List<CustomerOperationResult> results
+) {
+}
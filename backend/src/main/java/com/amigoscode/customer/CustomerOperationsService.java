@@ -0,0 +1,213 @@
+package com.amigoscode.customer;
+
+import com.amigoscode.exception.DuplicateResourceException;
+import com.amigoscode.exception.RequestValidationException;
+import com.amigoscode.exception.ResourceNotFoundException;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Executes an ordered list of creates, updates and deletes in as few round trips as possible.
+ * <p>
+ * Consecutive operations of the same type form a group, which is checked with at most one
+ * {@code selectCustomersByIDs} query and written with one batched DAO call. Atomic requests run
+ * every group in one transaction. Otherwise each group gets its own transaction, and a group
+ * whose batch fails is retried one operation per transaction to find the ones at fault. Email
+ * uniqueness is left to the database constraint instead of a query per operation.
+ */
+@Service
+public class CustomerOperationsService {
+
+    static final int MAX_OPERATIONS = 1000;
+
+    private final CustomerDAO customerDAO;
+    private final TransactionOperations transactionOperations;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public CustomerOperationsService(CustomerDAO customerDAO,
+                                     TransactionOperations transactionOperations,
+                                     ApplicationEventPublisher eventPublisher) {
+        this.customerDAO = customerDAO;
+        this.transactionOperations = transactionOperations;
+        this.eventPublisher = eventPublisher;
+    }
+
+    public CustomerOperationsResponse execute(CustomerOperationsRequest request) {
+        List<CustomerOperation> operations = request.operations();
+        if (operations == null || operations.isEmpty()) {
+            throw new RequestValidationException("no operations given");
+        }
+        if (operations.size() > MAX_OPERATIONS) {
+            throw new RequestValidationException("at most %s operations per request".formatted(MAX_OPERATIONS));
+        }
+        for (int i = 0; i < operations.size(); i++) {
+            if (operations.get(i).type() == null) {
+                throw new RequestValidationException("operation [%s]: type is required".formatted(i));
+            }
+        }
+
+        CustomerOperationResult[] results = new CustomerOperationResult[operations.size()];
+        List<List<Integer>> groups = group(operations);
+        if (request.atomic() == null || request.atomic()) {
+            transactionOperations.executeWithoutResult(
+                    status -> groups.forEach(group -> apply(operations, group, results, true, status))
+            );
+        } else {
+            groups.forEach(group -> applySeparately(operations, group, results));
+        }
+        return new CustomerOperationsResponse(Arrays.asList(results));
+    }
+
+    private void applySeparately(List<CustomerOperation> operations,
+                                 List<Integer> group,
+                                 CustomerOperationResult[] results) {
+        try {
+            transactionOperations.executeWithoutResult(status -> apply(operations, group, results, false, status));
+        } catch (RuntimeException batchFailure) {
+            //one bad row fails the whole batch, find it one operation at a time
+            for (int index : group) {
+                if (results[index] != null && !results[index].succeeded()) {
+                    continue;
+                }
+                try {
+                    transactionOperations.executeWithoutResult(
+                            status -> apply(operations, List.of(index), results, false, status)
+                    );
+                } catch (RuntimeException e) {
+                    results[index] = CustomerOperationResult.failed(index, e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void apply(List<CustomerOperation> operations,
+                       List<Integer> group,
+                       CustomerOperationResult[] results,
+                       boolean atomic,
+                       TransactionStatus status) {
+        CustomerOperation.Type type = operations.get(group.get(0)).type();
+        Map<Long, Customer> existing = type == CustomerOperation.Type.CREATE
+                ? Map.of()
+                : load(operations, group);
+
+        List<Integer> valid = new ArrayList<>(group.size());
+        List<Customer> customers = new ArrayList<>(group.size());
+        for (int index : group) {
+            try {
+                customers.add(prepare(operations.get(index), existing));
+                valid.add(index);
+            } catch (RequestValidationException | ResourceNotFoundException e) {
+                if (atomic) {
+                    throw atIndex(index, e);
+                }
+                results[index] = CustomerOperationResult.failed(index, e.getMessage());
+            }
+        }
+        if (customers.isEmpty()) {
+            return;
+        }
+
+        try {
+            switch (type) {
+                case CREATE -> customerDAO.insertCustomers(customers);
+                case UPDATE -> customerDAO.updateCustomers(customers);
+                case DELETE -> customerDAO.deleteCustomersByIds(customers.stream().map(Customer::getId).toList());
+            }
+            //the jpa tier writes on flush, a taken email has to fail here rather than on commit
+            status.flush();
+        } catch (DataIntegrityViolationException e) {
+            throw new DuplicateResourceException(valid.size() == 1
+                    ? "operation [%s]: email already taken".formatted(valid.get(0))
+                    : "operations %s: email already taken".formatted(valid));
+        }
+        eventPublisher.publishEvent(switch (type) {
+            case CREATE -> new CustomerChangedEvent(CustomerChangedEvent.Type.CREATED, customers);
+            case UPDATE -> new CustomerChangedEvent(CustomerChangedEvent.Type.UPDATED, customers);
+            case DELETE -> CustomerChangedEvent.deleted(customers.stream().map(Customer::getId).toList());
+        });
+        valid.forEach(index -> results[index] = CustomerOperationResult.succeeded(index));
+    }
+
+    private Map<Long, Customer> load(List<CustomerOperation> operations, List<Integer> group) {
+        List<Long> ids = group.stream()
+                .map(index -> operations.get(index).customerId())
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        Map<Long, Customer> existing = new HashMap<>();
+        customerDAO.selectCustomersByIDs(ids).forEach(c -> existing.put(c.getId(), c));
+        return existing;
+    }
+
+    private static Customer prepare(CustomerOperation operation, Map<Long, Customer> existing) {
+        if (operation.type() == CustomerOperation.Type.CREATE) {
+            if (operation.name() == null || operation.email() == null || operation.age() == null) {
+                throw new RequestValidationException("name, email and age are required");
+            }
+            return new Customer(operation.age(), operation.name(), operation.email());
+        }
+
+        Long id = operation.customerId();
+        if (id == null) {
+            throw new RequestValidationException("customer id is required");
+        }
+        //removed on delete so a second delete of the same id in this group is not found
+        Customer customer = operation.type() == CustomerOperation.Type.DELETE ? existing.remove(id) : existing.get(id);
+        if (customer == null) {
+            throw new ResourceNotFoundException("Customer with id [%s] not found".formatted(id));
+        }
+        if (operation.type() == CustomerOperation.Type.DELETE) {
+            return customer;
+        }
+
+        boolean changes = false;
+        if (operation.name() != null && !operation.name().equals(customer.getName())) {
+            customer.setName(operation.name());
+            changes = true;
+        }
+        if (operation.age() != null && !operation.age().equals(customer.getAge())) {
+            customer.setAge(operation.age());
+            changes = true;
+        }
+        if (operation.email() != null && !operation.email().equals(customer.getEmail())) {
+            customer.setEmail(operation.email());
+            changes = true;
+        }
+        if (!changes) {
+            throw new RequestValidationException("no data changes found");
+        }
+        return customer;
+    }
+
+    //runs of consecutive operations of the same type, as indexes into operations
+    private static List<List<Integer>> group(List<CustomerOperation> operations) {
+        List<List<Integer>> groups = new ArrayList<>();
+        List<Integer> current = new ArrayList<>();
+        for (int i = 0; i < operations.size(); i++) {
+            if (!current.isEmpty() && operations.get(current.get(0)).type() != operations.get(i).type()) {
+                groups.add(current);
+                current = new ArrayList<>();
+            }
+            current.add(i);
+        }
+        groups.add(current);
+        return groups;
+    }
+
+    private static RuntimeException atIndex(int index, RuntimeException e) {
+        String message = "operation [%s]: %s".formatted(index, e.getMessage());
+        return e instanceof ResourceNotFoundException
+                ? new ResourceNotFoundException(message)
+                : new RequestValidationException(message);
+    }
+}
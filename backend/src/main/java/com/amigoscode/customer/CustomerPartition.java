@@ -0,0 +1,19 @@
+package com.amigoscode.customer;
+
+/**
+ * A partition of the customer table, ids from {@code fromId} up to but not including {@code toId}.
+ *
+ * @param fromId        null for the first partition, which starts at the lowest id
+ * @param estimatedRows as of the last ANALYZE or VACUUM
+ * @param bytes         with its indexes
+ * @param current       new customers get ids in this partition or a later one, so it can't be archived
+ */
+public record CustomerPartition(
+        String name,
+        Long fromId,
+        long toId,
+        long estimatedRows,
+        long bytes,
+        boolean current
+) {
+}
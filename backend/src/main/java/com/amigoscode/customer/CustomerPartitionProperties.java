@@ -0,0 +1,22 @@
+package com.amigoscode.customer;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * @param enabled       partitions customer by id range, once enabled it has to stay enabled, see
+ *                      {@code db/partitioning/V5__Partition_Customers.sql}
+ * @param size          ids per partition created from now on, existing partitions keep theirs
+ * @param ahead         partitions kept ready past the one new customers go to, inserts fail past the last one
+ * @param checkInterval how often partitions are added when the ids come close
+ */
+@ConfigurationProperties(prefix = "customer.partitions")
+public record CustomerPartitionProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("1000000") long size,
+        @DefaultValue("2") int ahead,
+        @DefaultValue("1h") Duration checkInterval
+) {
+}
@@ -0,0 +1,168 @@
+package com.amigoscode.customer;
+
+import com.amigoscode.exception.RequestValidationException;
+import com.amigoscode.exception.ResourceNotFoundException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Looks after the partitions of the customer table, see {@code db/partitioning/V5__Partition_Customers.sql}.
+ * Partitions are added {@code ahead} of the ids handed out, as an insert past the last partition
+ * fails. A partition whose ids are all handed out and whose customers are all deleted can be
+ * archived: it is detached without blocking reads and writes of the others, its customers' ids are
+ * reported as deleted to {@code modifiedSince}, and the table is kept in the {@code customer_archive} schema.
+ */
+@Service
+@ConditionalOnCustomerDatabase
+@ConditionalOnProperty(name = "customer.partitions.enabled", havingValue = "true")
+public class CustomerPartitionService implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(CustomerPartitionService.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CustomerPartitionProperties properties;
+    //ids left before inserts fail
+    private final AtomicLong headroom = new AtomicLong();
+    private ScheduledExecutorService scheduler;
+
+    public CustomerPartitionService(JdbcTemplate jdbcTemplate,
+                                    CustomerPartitionProperties properties,
+                                    MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+        Gauge.builder("customer.partitions.headroom", headroom, AtomicLong::get)
+                .description("Customer ids left before the last partition is full")
+                .register(meterRegistry);
+    }
+
+    public List<CustomerPartition> partitions() {
+        var sql = """
+                SELECT p.name, p.from_id, p.to_id, p.estimated_rows, p.bytes, p.to_id > s.last_value
+                FROM customer_partitions p, customer_id_seq s
+                ORDER BY p.to_id
+                """;
+        return jdbcTemplate.query(sql, (rs, rowNum) -> new CustomerPartition(
+                rs.getString(1),
+                rs.getObject(2, Long.class),
+                rs.getLong(3),
+                rs.getLong(4),
+                rs.getLong(5),
+                rs.getBoolean(6)
+        ));
+    }
+
+    /**
+     * @return partitions created
+     */
+    public int addPartitions() {
+        Integer added = jdbcTemplate.queryForObject(
+                "SELECT customer_add_partitions(?, ?)",
+                Integer.class,
+                properties.size(),
+                properties.ahead()
+        );
+        Long left = jdbcTemplate.queryForObject(
+                "SELECT max(p.to_id) - s.last_value FROM customer_partitions p, customer_id_seq s GROUP BY s.last_value",
+                Long.class
+        );
+        headroom.set(left != null ? left : 0);
+        return added != null ? added : 0;
+    }
+
+    /**
+     * Can be run again after it failed part way: a detach that was interrupted is finished, and a
+     * partition detached already goes straight to being archived.
+     *
+     * @return customers the partition held
+     */
+    public long archive(String name) {
+        //the name comes from the catalog from here on
+        List<String> states = jdbcTemplate.queryForList("""
+                SELECT CASE WHEN i.inhrelid IS NULL THEN 'detached'
+                            WHEN i.inhdetachpending THEN 'detaching'
+                            ELSE 'attached' END
+                FROM pg_class c
+                LEFT JOIN pg_inherits i ON i.inhrelid = c.oid AND i.inhparent = 'customer'::regclass
+                WHERE c.relname = ? AND c.relname ~ '^customer_p[0-9]+$'
+                  AND c.relnamespace = current_schema()::regnamespace
+                """, String.class, name);
+        if (states.isEmpty()) {
+            throw new ResourceNotFoundException("customer partition [%s] not found".formatted(name));
+        }
+        switch (states.get(0)) {
+            case "attached" -> detach(name);
+            //DETACH ... CONCURRENTLY was cancelled or its connection lost between its two commits
+            case "detaching" -> jdbcTemplate.execute("ALTER TABLE customer DETACH PARTITION %s FINALIZE".formatted(name));
+            default -> log.info("Customer partition {} was detached already", name);
+        }
+
+        Long archived = jdbcTemplate.queryForObject("SELECT customer_archive_partition(?)", Long.class, name);
+        log.info("Archived customer partition {} with {} customers", name, archived);
+        return archived != null ? archived : 0;
+    }
+
+    private void detach(String name) {
+        CustomerPartition partition = partitions().stream()
+                .filter(p -> p.name().equals(name))
+                .findFirst()
+                .orElseThrow(() -> new ResourceNotFoundException("customer partition [%s] not found".formatted(name)));
+        if (partition.current()) {
+            throw new RequestValidationException("customer partition [%s] still gets new customers".formatted(name));
+        }
+        //reads stop seeing an archived partition, so it may only hold customers deleted already
+        Long lowestLiveId = jdbcTemplate.queryForObject(
+                "SELECT min(id) FROM customer WHERE deleted_at IS NULL",
+                Long.class
+        );
+        if (lowestLiveId != null && partition.toId() > lowestLiveId) {
+            throw new RequestValidationException(
+                    "customer partition [%s] holds live customers from id %d".formatted(name, lowestLiveId));
+        }
+
+        //CONCURRENTLY can't run in a transaction, it commits twice and waits for readers of the
+        //partition in between
+        jdbcTemplate.execute("ALTER TABLE customer DETACH PARTITION %s CONCURRENTLY".formatted(name));
+    }
+
+    @Override
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "customer-partitions");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                int added = addPartitions();
+                if (added > 0) {
+                    log.info("Added {} customer partitions of {} ids", added, properties.size());
+                }
+            } catch (RuntimeException e) {
+                log.warn("Could not add customer partitions", e);
+            }
+        }, 0, properties.checkInterval().toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() {
+        scheduler.shutdownNow();
+        scheduler = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return scheduler != null;
+    }
+}
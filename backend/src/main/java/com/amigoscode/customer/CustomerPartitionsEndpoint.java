@@ -0,0 +1,44 @@
+package com.amigoscode.customer;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@code /actuator/customerpartitions} lists the partitions of the customer table, a POST to
+ * {@code /actuator/customerpartitions/{name}} archives one. Not exposed over the web unless
+ * {@code management.endpoints.web.exposure.include} lists it, which should only be done behind authentication.
+ */
+@Component
+@Endpoint(id = "customerpartitions")
+@ConditionalOnCustomerDatabase
+@ConditionalOnProperty(name = "customer.partitions.enabled", havingValue = "true")
+public class CustomerPartitionsEndpoint {
+
+    private final CustomerPartitionService partitionService;
+
+    public CustomerPartitionsEndpoint(CustomerPartitionService partitionService) {
+        this.partitionService = partitionService;
+    }
+
+    @ReadOperation
+    public List<CustomerPartition> partitions() {
+        return partitionService.partitions();
+    }
+
+    @WriteOperation
+    public Map<String, Object> archive(@Selector String name) {
+        long customers = partitionService.archive(name);
+        Map<String, Object> archived = new LinkedHashMap<>();
+        archived.put("archived", "customer_archive." + name);
+        archived.put("customers", customers);
+        return archived;
+    }
+}
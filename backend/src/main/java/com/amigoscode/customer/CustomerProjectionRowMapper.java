@@ -0,0 +1,40 @@
+package com.amigoscode.customer;
+
+import com.amigoscode.database.IndexedRowMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * Maps rows selected with only some customer columns, see {@link CustomerField}.
+ */
+class CustomerProjectionRowMapper extends IndexedRowMapper<Customer> {
+
+    private final CustomerField[] fields;
+
+    CustomerProjectionRowMapper(Set<CustomerField> fields) {
+        super(fields.stream().map(CustomerField::column).toArray(String[]::new));
+        this.fields = fields.toArray(CustomerField[]::new);
+    }
+
+    //the column list to select, in the order of the fields
+    String columns() {
+        return String.join(", ", Arrays.stream(fields).map(CustomerField::column).toList());
+    }
+
+    @Override
+    protected Customer mapRow(ResultSet rs, int[] columns) throws SQLException {
+        Customer customer = new Customer();
+        for (int i = 0; i < fields.length; i++) {
+            switch (fields[i]) {
+                case ID -> customer.setId(rs.getLong(columns[i]));
+                case AGE -> customer.setAge(rs.getInt(columns[i]));
+                case NAME -> customer.setName(rs.getString(columns[i]));
+                case EMAIL -> customer.setEmail(rs.getString(columns[i]));
+            }
+        }
+        return customer;
+    }
+}
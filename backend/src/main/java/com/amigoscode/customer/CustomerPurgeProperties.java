@@ -0,0 +1,27 @@
+package com.amigoscode.customer;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.time.LocalTime;
+import java.time.ZoneId;
+
+/**
+ * @param gracePeriod how long a deleted customer is kept before it may be purged
+ * @param batchSize   rows deleted per statement, which holds their locks until it commits
+ * @param pause       between batches, so at most batchSize rows are purged per pause
+ * @param windowStart when purging may start, in zone
+ * @param windowEnd   when it stops, before windowStart for a window across midnight, equal to it for all day
+ */
+@ConfigurationProperties(prefix = "customer.purge")
+public record CustomerPurgeProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("1d") Duration gracePeriod,
+        @DefaultValue("500") int batchSize,
+        @DefaultValue("1s") Duration pause,
+        @DefaultValue("01:00") LocalTime windowStart,
+        @DefaultValue("05:00") LocalTime windowEnd,
+        @DefaultValue("UTC") ZoneId zone
+) {
+}
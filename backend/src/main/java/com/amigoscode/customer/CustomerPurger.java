@@ -0,0 +1,150 @@
+package com.amigoscode.customer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Removes soft deleted customers for good, {@code batchSize} rows per statement with a
+ * {@code pause} between statements, and only inside the off-peak window. Each batch is its own
+ * transaction, so locks are held briefly and vacuum can keep up. Rows a running transaction has
+ * locked are skipped and picked up by a later batch.
+ */
+@Component
+@ConditionalOnCustomerDatabase
+@ConditionalOnProperty(name = "customer.purge.enabled", havingValue = "true", matchIfMissing = true)
+public class CustomerPurger implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(CustomerPurger.class);
+    private static final Duration BACKLOG_REFRESH = Duration.ofMinutes(1);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration gracePeriod;
+    private final int batchSize;
+    private final Duration pause;
+    private final LocalTime windowStart;
+    private final LocalTime windowEnd;
+    private final ZoneId zone;
+    private final AtomicLong backlog = new AtomicLong();
+    private final Counter purged;
+    private final Timer batches;
+    private long backlogCountedAt;
+    private ScheduledExecutorService scheduler;
+
+    public CustomerPurger(JdbcTemplate jdbcTemplate, CustomerPurgeProperties properties, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.gracePeriod = properties.gracePeriod();
+        this.batchSize = properties.batchSize();
+        this.pause = properties.pause();
+        this.windowStart = properties.windowStart();
+        this.windowEnd = properties.windowEnd();
+        this.zone = properties.zone();
+        this.purged = Counter.builder("customer.purge.purged")
+                .description("Soft deleted customers removed for good")
+                .register(meterRegistry);
+        this.batches = Timer.builder("customer.purge.batch")
+                .description("Time per purge batch, its rows stay locked meanwhile")
+                .register(meterRegistry);
+        Gauge.builder("customer.purge.backlog", backlog, AtomicLong::get)
+                .description("Soft deleted customers not purged yet")
+                .register(meterRegistry);
+    }
+
+    //one batch if the window is open
+    void purge(Instant now) {
+        if (!inWindow(LocalTime.ofInstant(now, zone))) {
+            if (now.toEpochMilli() - backlogCountedAt >= BACKLOG_REFRESH.toMillis()) {
+                countBacklog(now);
+            }
+            return;
+        }
+
+        int deleted = batches.record(this::deleteBatch);
+        purged.increment(deleted);
+        if (deleted < batchSize) {
+            //caught up, or what's left is still in its grace period
+            countBacklog(now);
+        } else {
+            backlog.addAndGet(-deleted);
+        }
+    }
+
+    boolean inWindow(LocalTime time) {
+        if (windowStart.equals(windowEnd)) {
+            return true;
+        }
+        if (windowStart.isBefore(windowEnd)) {
+            return !time.isBefore(windowStart) && time.isBefore(windowEnd);
+        }
+        return !time.isBefore(windowStart) || time.isBefore(windowEnd);
+    }
+
+    private int deleteBatch() {
+        var sql = """
+                DELETE FROM customer
+                WHERE id IN (
+                    SELECT id
+                    FROM customer
+                    WHERE deleted_at < now() - make_interval(secs => ?)
+                    ORDER BY deleted_at
+                    LIMIT ?
+                    FOR UPDATE SKIP LOCKED
+                )
+                """;
+        return jdbcTemplate.update(sql, (double) gracePeriod.toSeconds(), batchSize);
+    }
+
+    private void countBacklog(Instant now) {
+        var sql = """
+                SELECT count(*)
+                FROM customer
+                WHERE deleted_at IS NOT NULL
+                """;
+        Long count = jdbcTemplate.queryForObject(sql, Long.class);
+        backlog.set(count != null ? count : 0);
+        backlogCountedAt = now.toEpochMilli();
+    }
+
+    @Override
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "customer-purger");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                purge(Instant.now());
+            } catch (RuntimeException e) {
+                log.warn("Could not purge deleted customers", e);
+            }
+        }, pause.toMillis(), pause.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() {
+        scheduler.shutdownNow();
+        scheduler = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return scheduler != null;
+    }
+}
@@ -0,0 +1,153 @@
+package com.amigoscode.customer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Append-only journal of accepted registrations, one JSON line per entry.
+ * <p>
+ * Entries up to the checkpoint are in the database. Whatever is after it is replayed on
+ * startup, a line torn by a crash while it was being written is skipped since its
+ * registration was never acknowledged.
+ */
+class CustomerRegistrationJournal implements AutoCloseable {
+
+    record Entry(long sequence, Integer age, String name, String email) {
+    }
+
+    private static final String JOURNAL = "registrations.log";
+    private static final String CHECKPOINT = "registrations.checkpoint";
+
+    private final Path directory;
+    private final ObjectMapper objectMapper;
+    private final List<Entry> pending;
+    private FileChannel channel;
+    private long lastSequence;
+    private long checkpoint;
+
+    CustomerRegistrationJournal(Path directory, ObjectMapper objectMapper) {
+        this.directory = directory;
+        this.objectMapper = objectMapper;
+        try {
+            Files.createDirectories(directory);
+            checkpoint = readCheckpoint();
+            pending = readEntriesAfter(checkpoint);
+            lastSequence = pending.isEmpty() ? checkpoint : pending.get(pending.size() - 1).sequence();
+            channel = FileChannel.open(directory.resolve(JOURNAL), CREATE, WRITE, APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException("could not open registration journal in " + directory, e);
+        }
+    }
+
+    //entries not yet checkpointed when the journal was opened
+    List<Entry> pendingEntries() {
+        return pending;
+    }
+
+    //the entry is only durable once sync() returned
+    synchronized Entry append(CustomerRegistrationRequest request) {
+        Entry entry = new Entry(lastSequence + 1, request.age(), request.name(), request.email());
+        try {
+            byte[] line = (objectMapper.writeValueAsString(entry) + "\n").getBytes(StandardCharsets.UTF_8);
+            ByteBuffer buffer = ByteBuffer.wrap(line);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("could not append to registration journal", e);
+        }
+        lastSequence = entry.sequence();
+        return entry;
+    }
+
+    void sync() {
+        try {
+            channel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("could not sync registration journal", e);
+        }
+    }
+
+    synchronized void checkpoint(long sequence) {
+        try {
+            //the new checkpoint is on disk before the rename, and the rename before the journal is truncated
+            Path temp = directory.resolve(CHECKPOINT + ".tmp");
+            try (FileChannel file = FileChannel.open(temp, CREATE, WRITE, TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = ByteBuffer.wrap(Long.toString(sequence).getBytes(StandardCharsets.UTF_8));
+                while (buffer.hasRemaining()) {
+                    file.write(buffer);
+                }
+                file.force(true);
+            }
+            forceDirectory();
+            Files.move(temp, directory.resolve(CHECKPOINT), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            forceDirectory();
+            checkpoint = sequence;
+
+            //everything is in the database, start over with an empty journal
+            if (checkpoint == lastSequence) {
+                channel.truncate(0);
+                channel.force(true);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("could not checkpoint registration journal", e);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    //an empty or garbled checkpoint replays the whole journal, the writer skips emails already stored
+    private long readCheckpoint() {
+        Path file = directory.resolve(CHECKPOINT);
+        try {
+            return Files.exists(file) ? Long.parseLong(Files.readString(file).trim()) : 0;
+        } catch (IOException | NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private void forceDirectory() throws IOException {
+        try (FileChannel dir = FileChannel.open(directory, READ)) {
+            dir.force(true);
+        }
+    }
+
+    private List<Entry> readEntriesAfter(long sequence) throws IOException {
+        Path file = directory.resolve(JOURNAL);
+        List<Entry> entries = new ArrayList<>();
+        if (!Files.exists(file)) {
+            return entries;
+        }
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            try {
+                Entry entry = objectMapper.readValue(line, Entry.class);
+                if (entry.sequence() > sequence) {
+                    entries.add(entry);
+                }
+            } catch (JsonProcessingException e) {
+                //torn write of an unacknowledged registration
+            }
+        }
+        return entries;
+    }
+}
@@ -1,11 +1,80 @@
 package com.amigoscode.customer;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
 
 public interface CustomerRepository extends JpaRepository<Customer, Long> {
 
-    boolean existsCustomerByEmail(String email);
+    //see CustomerJDBCDataAccessService.existsPersonWithEmail
+    @Query(value = """
+            SELECT count(*) > 0
+            FROM customer_email
+            WHERE email = :email
+            """, nativeQuery = true)
+    @Transactional(readOnly = true)
+    boolean existsCustomerByEmail(@Param("email") String email);
+
+    @Query(value = """
+            SELECT email
+            FROM customer_email
+            WHERE email IN (:emails)
+            """, nativeQuery = true)
+    @Transactional(readOnly = true)
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
 
     boolean existsCustomerById(Long id);
 
+    /*
+     * Reads of many customers: customers built by a constructor expression are never managed, so
+     * the persistence context neither tracks nor holds on to them for the rest of the request.
+     * A single customer is cheaper through findById, which Spring Data already runs read-only.
+     */
+    @Query("SELECT new com.amigoscode.customer.Customer(c.id, c.age, c.name, c.email) FROM Customer c")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "MANUAL")
+    })
+    @Transactional(readOnly = true)
+    List<Customer> findAllUnmanaged();
+
+    @Query("SELECT new com.amigoscode.customer.Customer(c.id, c.age, c.name, c.email) FROM Customer c WHERE c.id IN :ids")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "MANUAL")
+    })
+    @Transactional(readOnly = true)
+    List<Customer> findAllUnmanagedById(@Param("ids") Collection<Long> ids);
+
+    //deleteAllByIdInBatch would bypass @SQLDelete and remove the rows
+    @Modifying
+    @Query(value = """
+            UPDATE customer
+            SET deleted_at = now()
+            WHERE id IN (:ids) AND deleted_at IS NULL
+            """, nativeQuery = true)
+    @Transactional
+    int softDeleteAllById(@Param("ids") Collection<Long> ids);
+
+    //see CustomerJDBCDataAccessService.estimateCustomers
+    @Query(value = """
+            SELECT CAST(coalesce(sum(CASE
+                WHEN c.reltuples < 0 OR c.relpages = 0 THEN coalesce(s.n_live_tup, 0)
+                ELSE c.reltuples / c.relpages * (pg_relation_size(c.oid) / CAST(current_setting('block_size') AS int))
+            END), 0) AS bigint)
+            FROM pg_partition_tree(CAST('customer' AS regclass)) t
+            JOIN pg_class c ON c.oid = t.relid
+            LEFT JOIN pg_stat_user_tables s ON s.relid = c.oid
+            WHERE t.isleaf
+            """, nativeQuery = true)
+    @Transactional(readOnly = true)
+    long estimateCustomers();
 }
@@ -0,0 +1,153 @@
+package com.amigoscode.customer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Encoded {@code GET /api/v1/customers/{id}} bodies, one per customer and format, each with the
+ * ETag of its bytes. A hit skips both the DAO and Jackson. Entries are dropped on
+ * {@link CustomerChangedEvent}, and a body loaded while an invalidation happened isn't cached,
+ * so it can't bring back what the invalidation removed.
+ */
+@Component
+@ConditionalOnProperty(name = "customer.response-cache.enabled", havingValue = "true")
+public class CustomerResponseCache {
+
+    public record EncodedCustomer(byte[] body, MediaType contentType, String eTag) {
+    }
+
+    private record Key(long customerId, MediaType contentType) {
+    }
+
+    private final CustomerService customerService;
+    private final Map<MediaType, ObjectMapper> objectMappers = new LinkedHashMap<>();
+    private final Map<Key, EncodedCustomer> encoded = new ConcurrentHashMap<>();
+    private final int maxSize;
+    private final Counter hits;
+    private final Counter misses;
+    //guarded by this
+    private long invalidations;
+
+    public CustomerResponseCache(CustomerService customerService,
+                                 CustomerResponseCacheProperties properties,
+                                 MappingJackson2HttpMessageConverter json,
+                                 MappingJackson2CborHttpMessageConverter cbor,
+                                 MappingJackson2SmileHttpMessageConverter smile,
+                                 MeterRegistry meterRegistry) {
+        this.customerService = customerService;
+        this.maxSize = properties.maxSize();
+        //the first one is the default for */*
+        objectMappers.put(MediaType.APPLICATION_JSON, json.getObjectMapper());
+        objectMappers.put(MediaType.APPLICATION_CBOR, cbor.getObjectMapper());
+        objectMappers.put(MediaType.valueOf("application/x-jackson-smile"), smile.getObjectMapper());
+        this.hits = Counter.builder("customer.response.cache").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("customer.response.cache").tag("result", "miss").register(meterRegistry);
+    }
+
+    /**
+     * @param accept the Accept header, picks the format
+     */
+    public EncodedCustomer getCustomer(Long customerId, String accept) throws HttpMediaTypeNotAcceptableException {
+        Key key = new Key(customerId, negotiate(accept));
+        EncodedCustomer cached = encoded.get(key);
+        if (cached != null) {
+            hits.increment();
+            customerService.recordCachedRead(customerId);
+            return cached;
+        }
+
+        misses.increment();
+        long invalidationsBefore;
+        synchronized (this) {
+            invalidationsBefore = invalidations;
+        }
+        EncodedCustomer loaded = encode(customerService.getCustomer(customerId), key.contentType());
+        synchronized (this) {
+            if (invalidations == invalidationsBefore) {
+                evictIfFull();
+                encoded.put(key, loaded);
+            }
+        }
+        return loaded;
+    }
+
+    //after commit, so a miss can't cache what the committing transaction replaces
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onCustomerChanged(CustomerChangedEvent event) {
+        //nothing is cached for a new id, not found isn't
+        if (event.type() == CustomerChangedEvent.Type.CREATED) {
+            return;
+        }
+        invalidations++;
+        for (Long customerId : event.customerIds()) {
+            for (MediaType contentType : objectMappers.keySet()) {
+                encoded.remove(new Key(customerId, contentType));
+            }
+        }
+    }
+
+    private MediaType negotiate(String accept) throws HttpMediaTypeNotAcceptableException {
+        List<MediaType> accepted;
+        try {
+            accepted = accept == null || accept.isBlank()
+                    ? List.of(MediaType.ALL)
+                    : new ArrayList<>(MediaType.parseMediaTypes(accept));
+        } catch (InvalidMediaTypeException e) {
+            throw new HttpMediaTypeNotAcceptableException(e.getMessage());
+        }
+        if (accepted.size() > 1) {
+            //stable, so types of equal quality keep the client's order
+            accepted.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed());
+        }
+        for (MediaType mediaType : accepted) {
+            if (mediaType.getQualityValue() == 0) {
+                continue;
+            }
+            for (MediaType supported : objectMappers.keySet()) {
+                if (mediaType.includes(supported)) {
+                    return supported;
+                }
+            }
+        }
+        throw new HttpMediaTypeNotAcceptableException(List.copyOf(objectMappers.keySet()));
+    }
+
+    private EncodedCustomer encode(Customer customer, MediaType contentType) {
+        try {
+            byte[] body = objectMappers.get(contentType).writeValueAsBytes(customer);
+            return new EncodedCustomer(body, contentType, "\"" + DigestUtils.md5DigestAsHex(body) + "\"");
+        } catch (JsonProcessingException e) {
+            throw new HttpMessageNotWritableException("could not encode customer " + customer.getId(), e);
+        }
+    }
+
+    //guarded by this
+    private void evictIfFull() {
+        Iterator<Key> keys = encoded.keySet().iterator();
+        while (encoded.size() >= maxSize && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.amigoscode.customer;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * @param maxSize encoded bodies kept, one per customer and format
+ */
+@ConfigurationProperties(prefix = "customer.response-cache")
+public record CustomerResponseCacheProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("10000") int maxSize
+) {
+}
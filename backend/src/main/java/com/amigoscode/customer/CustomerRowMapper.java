@@ -1,20 +1,30 @@
 package com.amigoscode.customer;
 
-import org.springframework.jdbc.core.RowMapper;
+import com.amigoscode.database.IndexedRowMapper;
 import org.springframework.stereotype.Component;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
 
 @Component
-public class CustomerRowMapper implements RowMapper {
+public class CustomerRowMapper extends IndexedRowMapper<Customer> {
+
+    private static final int ID = 0;
+    private static final int AGE = 1;
+    private static final int NAME = 2;
+    private static final int EMAIL = 3;
+
+    public CustomerRowMapper() {
+        super("id", "age", "name", "email");
+    }
+
     @Override
-    public Customer mapRow(ResultSet rs, int rowNum) throws SQLException {
+    protected Customer mapRow(ResultSet rs, int[] columns) throws SQLException {
         return new Customer(
-                rs.getLong("id"),
-                rs.getInt("age"),
-                rs.getString("name"),
-                rs.getString("email")
+                rs.getLong(columns[ID]),
+                rs.getInt(columns[AGE]),
+                rs.getString(columns[NAME]),
+                rs.getString(columns[EMAIL])
         );
     }
 }
@@ -3,102 +3,190 @@ package com.amigoscode.customer;
 import com.amigoscode.exception.DuplicateResourceException;
 import com.amigoscode.exception.RequestValidationException;
 import com.amigoscode.exception.ResourceNotFoundException;
-import org.springframework.beans.factory.annotation.Qualifier;
+import com.amigoscode.hotkey.CustomerHotKeys;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 @Service
 public class CustomerService {
 
+    static final int MAX_LOOKUP_IDS = 1000;
+
     private final CustomerDAO customerDAO;
+    private final CustomerHotKeys hotKeys;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public CustomerService(@Qualifier("jdbc") CustomerDAO customerDAO) {
+    public CustomerService(CustomerDAO customerDAO, CustomerHotKeys hotKeys, ApplicationEventPublisher eventPublisher) {
         this.customerDAO = customerDAO;
+        this.hotKeys = hotKeys;
+        this.eventPublisher = eventPublisher;
     }
 
     public List<Customer> getAllCustomers(){
-        return customerDAO.selectAllCustomers();
+        return getAllCustomers(CustomerField.ALL);
     }
 
-    public Customer getCustomer(Long id){
-        return customerDAO.selectCustomerByID(id).
-                orElseThrow(() -> new ResourceNotFoundException("Customer with id [%s] not found".formatted(id)));
-    }
-
-    public void addCustomer(CustomerRegistrationRequest customerRegistrationRequest){
-
-        String email = customerRegistrationRequest.email();
-        //check if email exists
-        if(customerDAO.existsPersonWithEmail(email)){
-            throw new DuplicateResourceException("email already taken");
+    public List<Customer> getAllCustomers(Set<CustomerField> fields){
+        CustomerServiceEvent event = CustomerServiceEvent.begin("getAllCustomers", null);
+        try {
+            List<Customer> customers = fields.size() == CustomerField.ALL.size()
+                    ? customerDAO.selectAllCustomers()
+                    : customerDAO.selectAllCustomers(fields);
+            event.rows = customers.size();
+            return customers;
+        } finally {
+            event.commit();
         }
-
-        //otherwise add
-        Customer customer = new Customer(
-                customerRegistrationRequest.age(),
-                customerRegistrationRequest.name(),
-                customerRegistrationRequest.email()
-        );
-        customerDAO.insertCustomer(customer);
-
     }
 
-    public void deleteCustomerById(Long custmerId){
+    public Customer getCustomer(Long id){
+        return getCustomer(id, CustomerField.ALL);
+    }
 
-        //check if id exists
-        if(!customerDAO.existsPersonWithId(custmerId)){
-            throw new ResourceNotFoundException("Customer with id [%s] not found".formatted(custmerId));
+    public Customer getCustomer(Long id, Set<CustomerField> fields){
+        CustomerServiceEvent event = CustomerServiceEvent.begin("getCustomer", id);
+        try {
+            hotKeys.recordRead(id);
+            Customer customer = fields.size() == CustomerField.ALL.size()
+                    ? selectCustomer(id)
+                    : customerDAO.selectCustomerByID(id, fields).orElseThrow(
+                            () -> new ResourceNotFoundException("Customer with id [%s] not found".formatted(id))
+                    );
+            event.rows = 1;
+            return customer;
+        } finally {
+            event.commit();
         }
-
-        //otherwise remove
-        customerDAO.deleteCustomerById(custmerId);
-
     }
 
-    public void updateCustomer(CustomerUpdateRequest updateRequest, Long customerId){
+    //a read answered by CustomerResponseCache without calling getCustomer
+    public void recordCachedRead(Long id){
+        hotKeys.recordRead(id);
+    }
 
-        Customer customer = getCustomer(customerId);
-        boolean changes = false;
-        //check if attributes need change exists
-        if (updateRequest.name() != null && !updateRequest.name().equals(customer.getName())){
-            customer.setName(updateRequest.name());
-            changes = true;
-        }
+    //customers in the order of the requested ids, each id at most once
+    public CustomerLookupResponse getCustomers(List<Long> ids){
+        CustomerServiceEvent event = CustomerServiceEvent.begin("getCustomers", null);
+        try {
+            if (ids == null || ids.isEmpty()) {
+                throw new RequestValidationException("no customer ids given");
+            }
+            if (ids.stream().anyMatch(Objects::isNull)) {
+                throw new RequestValidationException("customer ids must not be null");
+            }
+            List<Long> distinctIds = ids.stream().distinct().toList();
+            if (distinctIds.size() > MAX_LOOKUP_IDS) {
+                throw new RequestValidationException("at most %s customer ids per request".formatted(MAX_LOOKUP_IDS));
+            }
 
-        if (updateRequest.age() != null && !updateRequest.age().equals(customer.getAge())){
-            customer.setAge(updateRequest.age());
-            changes = true;
+            distinctIds.forEach(hotKeys::recordRead);
+            Map<Long, Customer> found = new HashMap<>();
+            customerDAO.selectCustomersByIDs(distinctIds).forEach(c -> found.put(c.getId(), c));
+
+            List<Customer> customers = new ArrayList<>(found.size());
+            List<Long> missingIds = new ArrayList<>();
+            for (Long id : distinctIds) {
+                Customer customer = found.get(id);
+                if (customer != null) {
+                    customers.add(customer);
+                } else {
+                    missingIds.add(id);
+                }
+            }
+            event.rows = customers.size();
+            return new CustomerLookupResponse(customers, missingIds);
+        } finally {
+            event.commit();
         }
+    }
 
-        if (updateRequest.email() != null && !updateRequest.email().equals(customer.getEmail())){
-            if(customerDAO.existsPersonWithEmail(updateRequest.email())){
+    public void addCustomer(CustomerRegistrationRequest customerRegistrationRequest){
+        CustomerServiceEvent event = CustomerServiceEvent.begin("addCustomer", null);
+        try {
+            String email = customerRegistrationRequest.email();
+            //check if email exists
+            if(customerDAO.existsPersonWithEmail(email)){
                 throw new DuplicateResourceException("email already taken");
             }
-            customer.setEmail(updateRequest.email());
-            changes = true;
-        }
-        //otherwise update
 
-        if (!changes){
-            throw new RequestValidationException("no data changes found");
+            //otherwise add
+            Customer customer = new Customer(
+                    customerRegistrationRequest.age(),
+                    customerRegistrationRequest.name(),
+                    customerRegistrationRequest.email()
+            );
+            customerDAO.insertCustomer(customer);
+            eventPublisher.publishEvent(new CustomerChangedEvent(CustomerChangedEvent.Type.CREATED, List.of(customer)));
+            event.rows = 1;
+        } finally {
+            event.commit();
         }
-
-        customerDAO.updateCustomerById(customer);
     }
-}
-
-
-
-
-
-
-
 
+    public void deleteCustomerById(Long custmerId){
+        CustomerServiceEvent event = CustomerServiceEvent.begin("deleteCustomerById", custmerId);
+        try {
+            //check if id exists
+            if(!customerDAO.existsPersonWithId(custmerId)){
+                throw new ResourceNotFoundException("Customer with id [%s] not found".formatted(custmerId));
+            }
 
+            //otherwise remove
+            customerDAO.deleteCustomerById(custmerId);
+            eventPublisher.publishEvent(CustomerChangedEvent.deleted(List.of(custmerId)));
+            event.rows = 1;
+        } finally {
+            event.commit();
+        }
+    }
 
+    public void updateCustomer(CustomerUpdateRequest updateRequest, Long customerId){
+        CustomerServiceEvent event = CustomerServiceEvent.begin("updateCustomer", customerId);
+        try {
+            hotKeys.recordUpdate(customerId);
+            Customer customer = selectCustomer(customerId);
+            boolean changes = false;
+            //check if attributes need change exists
+            if (updateRequest.name() != null && !updateRequest.name().equals(customer.getName())){
+                customer.setName(updateRequest.name());
+                changes = true;
+            }
 
+            if (updateRequest.age() != null && !updateRequest.age().equals(customer.getAge())){
+                customer.setAge(updateRequest.age());
+                changes = true;
+            }
 
+            if (updateRequest.email() != null && !updateRequest.email().equals(customer.getEmail())){
+                if(customerDAO.existsPersonWithEmail(updateRequest.email())){
+                    throw new DuplicateResourceException("email already taken");
+                }
+                customer.setEmail(updateRequest.email());
+                changes = true;
+            }
+            //otherwise update
 
+            if (!changes){
+                throw new RequestValidationException("no data changes found");
+            }
 
+            customerDAO.updateCustomerById(customer);
+            eventPublisher.publishEvent(new CustomerChangedEvent(CustomerChangedEvent.Type.UPDATED, List.of(customer)));
+            event.rows = 1;
+        } finally {
+            event.commit();
+        }
+    }
 
+    private Customer selectCustomer(Long id){
+        return customerDAO.selectCustomerByID(id).
+                orElseThrow(() -> new ResourceNotFoundException("Customer with id [%s] not found".formatted(id)));
+    }
+}
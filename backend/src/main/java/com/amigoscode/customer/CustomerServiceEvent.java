@@ -0,0 +1,38 @@
+package com.amigoscode.customer;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event spanning one CustomerService call. Enabled by default, without a
+ * threshold, see {@code jfr/customer.jfc} for a recording profile.
+ */
+@Name("com.amigoscode.CustomerService")
+@Label("Customer Service Call")
+@Category({"Amigoscode", "Customer"})
+@Description("A CustomerService call, with the customer it was about and the rows it returned")
+@StackTrace(false)
+class CustomerServiceEvent extends Event {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Customer Id")
+    @Description("0 when the call is not about a single customer")
+    long customerId;
+
+    @Label("Rows")
+    int rows;
+
+    static CustomerServiceEvent begin(String operation, Long customerId) {
+        CustomerServiceEvent event = new CustomerServiceEvent();
+        event.operation = operation;
+        event.customerId = customerId == null ? 0 : customerId;
+        event.begin();
+        return event;
+    }
+}
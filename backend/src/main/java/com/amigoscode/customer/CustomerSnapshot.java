@@ -0,0 +1,175 @@
+package com.amigoscode.customer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Read-only view of a customer snapshot file, memory mapped so opening it reads nothing but
+ * the header. Customers are decoded from the mapping when they are asked for.
+ * <p>
+ * The file is a header followed by columns, customers sorted by id:
+ * <pre>
+ *   int magic, int version, int count, int unused
+ *   long change xmin, long created at (epoch millis), long string bytes
+ *   long[count] ids
+ *   int[count] ages
+ *   int[2 * count + 1] string offsets, name i spans [2i, 2i + 1) and email i [2i + 1, 2i + 2)
+ *   byte[string bytes] UTF-8 names and emails, back to back
+ * </pre>
+ * The change xmin is the oldest transaction still running when the customers were read, together
+ * with the creation time it is the {@link CustomerSyncService} token for what changed since.
+ */
+final class CustomerSnapshot {
+
+    static final int MAGIC = 0x43534E50; //CSNP
+    static final int VERSION = 2;
+    private static final int HEADER_BYTES = 40;
+
+    private final ByteBuffer buffer;
+    private final int count;
+    private final long changeXmin;
+    private final Instant createdAt;
+    private final int ids;
+    private final int ages;
+    private final int offsets;
+    private final int strings;
+
+    private CustomerSnapshot(ByteBuffer buffer) throws IOException {
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException("not a customer snapshot");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("unsupported customer snapshot version " + buffer.getInt(4));
+        }
+        int count = buffer.getInt(8);
+        long columnBytes = (long) Long.BYTES * count + (long) Integer.BYTES * (3L * count + 1);
+        if (count < 0 || HEADER_BYTES + columnBytes + buffer.getLong(32) != buffer.capacity()) {
+            throw new IOException("customer snapshot is truncated");
+        }
+        this.buffer = buffer;
+        this.count = count;
+        this.changeXmin = buffer.getLong(16);
+        this.createdAt = Instant.ofEpochMilli(buffer.getLong(24));
+        this.ids = HEADER_BYTES;
+        this.ages = ids + Long.BYTES * count;
+        this.offsets = ages + Integer.BYTES * count;
+        this.strings = offsets + Integer.BYTES * (2 * count + 1);
+    }
+
+    static CustomerSnapshot open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, READ)) {
+            //the mapping stays valid after the channel is closed
+            return new CustomerSnapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Writes the customers to a temporary file next to {@code file} and moves it in place, so a
+     * reader finds either the previous snapshot or the complete new one.
+     */
+    static void write(Path file, Collection<Customer> customers, long changeXmin, Instant createdAt) throws IOException {
+        List<Customer> sorted = customers.stream().sorted(Comparator.comparing(Customer::getId)).toList();
+        int count = sorted.size();
+        byte[][] encoded = new byte[2 * count][];
+        long stringBytes = 0;
+        for (int i = 0; i < count; i++) {
+            encoded[2 * i] = sorted.get(i).getName().getBytes(StandardCharsets.UTF_8);
+            encoded[2 * i + 1] = sorted.get(i).getEmail().getBytes(StandardCharsets.UTF_8);
+            stringBytes += encoded[2 * i].length + encoded[2 * i + 1].length;
+        }
+        long size = HEADER_BYTES + (long) Long.BYTES * count + (long) Integer.BYTES * (3L * count + 1) + stringBytes;
+        //a single mapping, and int offsets, can't go past 2 GB
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("%s customers take %s bytes, more than a snapshot holds".formatted(count, size));
+        }
+
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, READ, WRITE)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+                buffer.putInt(MAGIC).putInt(VERSION).putInt(count).putInt(0);
+                buffer.putLong(changeXmin);
+                buffer.putLong(createdAt.toEpochMilli());
+                buffer.putLong(stringBytes);
+                sorted.forEach(customer -> buffer.putLong(customer.getId()));
+                sorted.forEach(customer -> buffer.putInt(customer.getAge()));
+                int offset = 0;
+                buffer.putInt(offset);
+                for (byte[] string : encoded) {
+                    offset += string.length;
+                    buffer.putInt(offset);
+                }
+                for (byte[] string : encoded) {
+                    buffer.put(string);
+                }
+                buffer.force();
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    int size() {
+        return count;
+    }
+
+    long changeXmin() {
+        return changeXmin;
+    }
+
+    Instant createdAt() {
+        return createdAt;
+    }
+
+    //decodes a customer each time one is read
+    List<Customer> customers() {
+        return new AbstractList<>() {
+            @Override
+            public Customer get(int index) {
+                return customer(index);
+            }
+
+            @Override
+            public int size() {
+                return count;
+            }
+        };
+    }
+
+    Customer customer(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return new Customer(
+                buffer.getLong(ids + Long.BYTES * index),
+                buffer.getInt(ages + Integer.BYTES * index),
+                string(2 * index),
+                string(2 * index + 1)
+        );
+    }
+
+    private String string(int index) {
+        int start = buffer.getInt(offsets + Integer.BYTES * index);
+        int end = buffer.getInt(offsets + Integer.BYTES * (index + 1));
+        byte[] bytes = new byte[end - start];
+        buffer.get(strings + start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,21 @@
+package com.amigoscode.customer;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * @param writeInterval how often a new snapshot is written
+ * @param maxAge        older snapshots are not loaded, catching up on what changed since would
+ *                      take about as long as reading every customer
+ */
+@ConfigurationProperties(prefix = "customer.snapshot")
+public record CustomerSnapshotProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("data/customers.snapshot") Path file,
+        @DefaultValue("15m") Duration writeInterval,
+        @DefaultValue("1h") Duration maxAge
+) {
+}
@@ -0,0 +1,123 @@
+package com.amigoscode.customer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fills the cache tier from a {@link CustomerSnapshot} before the web server starts, then
+ * catches up on the customers inserted, updated and deleted since, as recorded for
+ * {@link CustomerSyncService}. Every {@code writeInterval} the customers that aren't deleted are
+ * written to a new snapshot for the next start.
+ */
+@Component
+@ConditionalOnCustomerDatabase
+@ConditionalOnCustomerDAOTier("cache")
+@ConditionalOnProperty(name = "customer.snapshot.enabled", havingValue = "true")
+public class CustomerSnapshotWarmer implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(CustomerSnapshotWarmer.class);
+
+    private final CustomerCacheDataAccessService cache;
+    private final CustomerSyncService customerSyncService;
+    private final Path file;
+    private final Duration writeInterval;
+    private final Duration maxAge;
+    private ScheduledExecutorService scheduler;
+
+    public CustomerSnapshotWarmer(CustomerCacheDataAccessService cache,
+                                  CustomerSyncService customerSyncService,
+                                  CustomerSnapshotProperties properties) {
+        this.cache = cache;
+        this.customerSyncService = customerSyncService;
+        this.file = properties.file();
+        this.writeInterval = properties.writeInterval();
+        this.maxAge = properties.maxAge();
+    }
+
+    void load() {
+        if (!Files.exists(file)) {
+            log.info("No customer snapshot at {}, the cache fills up as customers are read", file);
+            return;
+        }
+        try {
+            CustomerSnapshot snapshot = CustomerSnapshot.open(file);
+            Duration age = Duration.between(snapshot.createdAt(), Instant.now());
+            if (age.compareTo(maxAge) > 0) {
+                log.info("Not loading the customer snapshot at {}, it is {} old", file, age);
+                return;
+            }
+
+            //inserted, updated and deleted by transactions the snapshot didn't see
+            var since = new CustomerSyncService.Token(snapshot.changeXmin(), snapshot.createdAt());
+            CustomerSyncResponse changes = customerSyncService.modifiedSince(since.toString());
+            if (changes.reset()) {
+                int loaded = cache.warm(changes.customers());
+                log.info("Loaded {} customers from the database, the snapshot at {} is older than the tombstones", loaded, file);
+                return;
+            }
+            int loaded = cache.warm(snapshot.customers());
+            //dropped first, so a changed customer is either cached as it is now or not at all
+            cache.deleteCustomersByIds(changes.customers().stream().map(Customer::getId).toList());
+            cache.deleteCustomersByIds(changes.deletedIds());
+            int changed = cache.warm(changes.customers());
+            log.info("Loaded {} customers from the snapshot at {}, {} changed and {} deleted since",
+                    loaded, file, changed, changes.deletedIds().size());
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not load the customer snapshot at {}", file, e);
+        }
+    }
+
+    void write() throws IOException {
+        //the customers and the token come from one database snapshot
+        CustomerSyncResponse customers = customerSyncService.modifiedSince(null);
+        var token = CustomerSyncService.Token.parse(customers.token());
+        CustomerSnapshot.write(file, customers.customers(), token.xmin(), token.at());
+        log.debug("Wrote {} customers to the snapshot at {}", customers.customers().size(), file);
+    }
+
+    @Override
+    public void start() {
+        load();
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "customer-snapshot-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                write();
+            } catch (IOException | RuntimeException e) {
+                log.warn("Could not write the customer snapshot to {}", file, e);
+            }
+        }, writeInterval.toMillis(), writeInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() {
+        scheduler.shutdownNow();
+        scheduler = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return scheduler != null;
+    }
+
+    //loaded before the web server takes requests
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 2048;
+    }
+}
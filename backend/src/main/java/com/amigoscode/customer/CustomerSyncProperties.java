@@ -0,0 +1,17 @@
+package com.amigoscode.customer;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * @param tombstoneRetention how long ids of deleted customers are kept, older modifiedSince tokens get everything again
+ * @param purgeInterval      how often expired tombstones are deleted
+ */
+@ConfigurationProperties(prefix = "customer.sync")
+public record CustomerSyncProperties(
+        @DefaultValue("30d") Duration tombstoneRetention,
+        @DefaultValue("1h") Duration purgeInterval
+) {
+}
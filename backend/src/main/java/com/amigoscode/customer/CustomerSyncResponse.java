@@ -0,0 +1,17 @@
+package com.amigoscode.customer;
+
+import java.util.List;
+
+/**
+ * @param customers  created or updated since the token, every customer on a reset
+ * @param deletedIds deleted since the token
+ * @param token      for the next {@code modifiedSince}
+ * @param reset      true when the client must replace what it has with customers
+ */
+public record CustomerSyncResponse(
+        List<Customer> customers,
+        List<Long> deletedIds,
+        String token,
+        boolean reset
+) {
+}
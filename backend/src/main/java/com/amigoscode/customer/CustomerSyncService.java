@@ -0,0 +1,183 @@
+package com.amigoscode.customer;
+
+import com.amigoscode.exception.RequestValidationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Answers {@code GET /api/v1/customers?modifiedSince=} from what the database records about
+ * every write, see {@code V3__Track_Customer_Changes.sql}: the transaction that last wrote each
+ * customer, and tombstones for deleted ones.
+ * <p>
+ * A token is the oldest transaction still running when it was handed out, and the time. Every
+ * older transaction was finished and in that answer, so the next one reads only rows written by
+ * that transaction or newer ones. A few may be sent twice, applying them again is harmless.
+ * Tokens older than the tombstone retention get every customer again, as some deletes are gone.
+ * <p>
+ * Only writes through the jdbc and jpa tiers reach the database.
+ */
+@Service
+@ConditionalOnCustomerDatabase
+public class CustomerSyncService implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(CustomerSyncService.class);
+
+    record Token(long xmin, Instant at) {
+
+        static Token parse(String token) {
+            int separator = token.indexOf('-');
+            try {
+                return new Token(
+                        Long.parseLong(token.substring(0, separator)),
+                        Instant.ofEpochSecond(Long.parseLong(token.substring(separator + 1)))
+                );
+            } catch (RuntimeException e) {
+                throw new RequestValidationException("invalid modifiedSince token [%s]".formatted(token));
+            }
+        }
+
+        @Override
+        public String toString() {
+            return xmin + "-" + at.getEpochSecond();
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CustomerRowMapper customerRowMapper;
+    //one snapshot for the watermark and the rows read after it
+    private final TransactionTemplate snapshotTransaction;
+    private final Duration tombstoneRetention;
+    private final Duration purgeInterval;
+    private final boolean databaseBacked;
+    private volatile boolean running;
+    private ScheduledExecutorService scheduler;
+
+    public CustomerSyncService(JdbcTemplate jdbcTemplate,
+                               CustomerRowMapper customerRowMapper,
+                               PlatformTransactionManager transactionManager,
+                               CustomerSyncProperties properties,
+                               CustomerDAOProperties daoProperties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.customerRowMapper = customerRowMapper;
+        this.snapshotTransaction = new TransactionTemplate(transactionManager);
+        this.snapshotTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.snapshotTransaction.setReadOnly(true);
+        this.tombstoneRetention = properties.tombstoneRetention();
+        this.purgeInterval = properties.purgeInterval();
+        this.databaseBacked = daoProperties.tiers().contains("jdbc") || daoProperties.tiers().contains("jpa");
+    }
+
+    /**
+     * @param token from the previous response, blank for every customer
+     */
+    public CustomerSyncResponse modifiedSince(String token) {
+        CustomerServiceEvent event = CustomerServiceEvent.begin("modifiedSince", null);
+        try {
+            if (!databaseBacked) {
+                throw new RequestValidationException("modifiedSince needs the jdbc or jpa tier");
+            }
+            Token since = token == null || token.isBlank() ? null : Token.parse(token);
+            CustomerSyncResponse response = snapshotTransaction.execute(status -> read(since));
+            event.rows = response.customers().size() + response.deletedIds().size();
+            return response;
+        } finally {
+            event.commit();
+        }
+    }
+
+    private CustomerSyncResponse read(Token since) {
+        Token next = jdbcTemplate.queryForObject(
+                "SELECT pg_snapshot_xmin(pg_current_snapshot())::text, now()",
+                (rs, rowNum) -> new Token(Long.parseLong(rs.getString(1)), rs.getTimestamp(2).toInstant())
+        );
+        if (since == null || since.at().isBefore(next.at().minus(tombstoneRetention))) {
+            var sql = """
+                    SELECT id, age, name, email
+                    FROM customer
+                    WHERE deleted_at IS NULL
+                    """;
+            return new CustomerSyncResponse(jdbcTemplate.query(sql, customerRowMapper.list()), List.of(), next.toString(), true);
+        }
+
+        var customersSql = """
+                SELECT id, age, name, email
+                FROM customer
+                WHERE change_xid >= ?::xid8 AND deleted_at IS NULL
+                """;
+        //soft deleted customers, and tombstones of those purged since
+        var deletedSql = """
+                SELECT id
+                FROM customer
+                WHERE change_xid >= ?::xid8 AND deleted_at IS NOT NULL
+                UNION
+                SELECT id
+                FROM customer_tombstone
+                WHERE change_xid >= ?::xid8
+                """;
+        String xmin = Long.toString(since.xmin());
+        return new CustomerSyncResponse(
+                jdbcTemplate.query(customersSql, customerRowMapper.list(), xmin),
+                jdbcTemplate.queryForList(deletedSql, Long.class, xmin, xmin),
+                next.toString(),
+                false
+        );
+    }
+
+    int purgeTombstones() {
+        var sql = """
+                DELETE FROM customer_tombstone
+                WHERE deleted_at < now() - make_interval(secs => ?)
+                """;
+        return jdbcTemplate.update(sql, (double) tombstoneRetention.toSeconds());
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        if (!databaseBacked) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "customer-tombstone-purger");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                int purged = purgeTombstones();
+                if (purged > 0) {
+                    log.info("Purged {} customer tombstones older than {}", purged, tombstoneRetention);
+                }
+            } catch (RuntimeException e) {
+                log.warn("Could not purge customer tombstones", e);
+            }
+        }, purgeInterval.toMillis(), purgeInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
@@ -0,0 +1,15 @@
+package com.amigoscode.customer;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+
+@ConfigurationProperties(prefix = "customer.registration.write-behind")
+public record CustomerWriteBehindProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("data/registrations") Path journalDirectory,
+        @DefaultValue("10000") int capacity,
+        @DefaultValue("500") int batchSize
+) {
+}
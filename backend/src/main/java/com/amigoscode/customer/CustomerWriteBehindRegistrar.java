@@ -0,0 +1,230 @@
+package com.amigoscode.customer;
+
+import com.amigoscode.exception.DuplicateResourceException;
+import com.amigoscode.exception.RequestValidationException;
+import com.amigoscode.exception.TooManyRequestsException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Accepts registrations into a bounded, journaled queue and inserts them in batches on a
+ * background writer, so registration bursts don't hold a database connection per request.
+ * <p>
+ * A request only checks its email against the registrations still queued. The writer checks
+ * each batch against the customers already stored and drops those whose email is taken, which
+ * also makes replaying registrations written but not yet checkpointed before a crash a no-op.
+ */
+@Component
+@ConditionalOnProperty(name = "customer.registration.write-behind.enabled", havingValue = "true")
+public class CustomerWriteBehindRegistrar implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(CustomerWriteBehindRegistrar.class);
+    private static final Duration RETRY_BACKOFF = Duration.ofSeconds(1);
+    private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(30);
+
+    private final CustomerDAO customerDAO;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CustomerRegistrationJournal journal;
+    private final int batchSize;
+    private final Semaphore capacity;
+    private final BlockingQueue<CustomerRegistrationJournal.Entry> queue = new LinkedBlockingQueue<>();
+    private final Set<String> pendingEmails = ConcurrentHashMap.newKeySet();
+    private final Counter rejected;
+    private final Counter dropped;
+    private volatile boolean running;
+    private Thread writer;
+
+    public CustomerWriteBehindRegistrar(CustomerDAO customerDAO,
+                                        CustomerWriteBehindProperties properties,
+                                        ObjectMapper objectMapper,
+                                        MeterRegistry meterRegistry,
+                                        ApplicationEventPublisher eventPublisher) {
+        this.customerDAO = customerDAO;
+        this.eventPublisher = eventPublisher;
+        this.journal = new CustomerRegistrationJournal(properties.journalDirectory(), objectMapper);
+        this.batchSize = properties.batchSize();
+        this.capacity = new Semaphore(properties.capacity());
+        this.rejected = Counter.builder("customer.registration.rejected")
+                .description("Registrations rejected because the write-behind queue was full")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("customer.registration.dropped")
+                .description("Accepted registrations not written because their email was taken")
+                .register(meterRegistry);
+        Gauge.builder("customer.registration.queued", queue, BlockingQueue::size)
+                .description("Registrations accepted but not yet written to the database")
+                .register(meterRegistry);
+    }
+
+    public void register(CustomerRegistrationRequest request) {
+        if (!running) {
+            throw new TooManyRequestsException("registrations are not accepted right now");
+        }
+        if (request.name() == null || request.email() == null || request.age() == null) {
+            throw new RequestValidationException("name, email and age are required");
+        }
+        if (!pendingEmails.add(request.email())) {
+            throw new DuplicateResourceException("email already taken");
+        }
+
+        boolean accepted = false;
+        try {
+            if (!capacity.tryAcquire()) {
+                rejected.increment();
+                throw new TooManyRequestsException("too many pending registrations, retry later");
+            }
+            //queued under the journal lock so the queue stays in sequence order for checkpoints
+            synchronized (journal) {
+                queue.add(journal.append(request));
+            }
+            accepted = true;
+        } finally {
+            if (!accepted) {
+                pendingEmails.remove(request.email());
+            }
+        }
+        journal.sync();
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        writer = new Thread(this::drain, "customer-write-behind");
+        writer.start();
+
+        List<CustomerRegistrationJournal.Entry> replay = journal.pendingEntries();
+        if (!replay.isEmpty()) {
+            log.info("Replaying {} journaled registrations", replay.size());
+        }
+        for (CustomerRegistrationJournal.Entry entry : replay) {
+            capacity.acquireUninterruptibly();
+            pendingEmails.add(entry.email());
+            queue.add(entry);
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        try {
+            writer.join(SHUTDOWN_TIMEOUT.toMillis());
+            writer.interrupt();
+            writer.join();
+            journal.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            log.warn("Could not close registration journal", e);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    //started before and stopped after the web server, so no accepted registration misses the writer
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 2048;
+    }
+
+    private void drain() {
+        List<CustomerRegistrationJournal.Entry> batch = new ArrayList<>(batchSize);
+        //keeps draining after stop() until everything accepted is written
+        while (running || !queue.isEmpty() || !batch.isEmpty()) {
+            try {
+                if (batch.isEmpty()) {
+                    CustomerRegistrationJournal.Entry first = queue.poll(100, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                }
+                write(batch);
+                batch.clear();
+            } catch (InterruptedException e) {
+                //whatever is left stays journaled and is replayed on the next start
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Could not write {} registrations, retrying", batch.size(), e);
+                try {
+                    Thread.sleep(RETRY_BACKOFF.toMillis());
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void write(List<CustomerRegistrationJournal.Entry> batch) {
+        //one query for the whole batch
+        Set<String> taken = customerDAO.selectExistingEmails(
+                batch.stream().map(CustomerRegistrationJournal.Entry::email).toList());
+        List<CustomerRegistrationJournal.Entry> absent = new ArrayList<>(batch.size());
+        for (CustomerRegistrationJournal.Entry entry : batch) {
+            if (taken.contains(entry.email())) {
+                drop(entry, "email already taken");
+            } else {
+                absent.add(entry);
+            }
+        }
+
+        List<Customer> inserted = absent.stream().map(CustomerWriteBehindRegistrar::toCustomer).toList();
+        try {
+            if (!inserted.isEmpty()) {
+                customerDAO.insertCustomers(inserted);
+            }
+        } catch (DataIntegrityViolationException batchFailure) {
+            //one bad row, e.g. an email registered through another instance since, fails the whole batch
+            inserted = new ArrayList<>(absent.size());
+            for (CustomerRegistrationJournal.Entry entry : absent) {
+                try {
+                    Customer customer = toCustomer(entry);
+                    customerDAO.insertCustomer(customer);
+                    inserted.add(customer);
+                } catch (DataIntegrityViolationException e) {
+                    drop(entry, e.getMessage());
+                }
+            }
+        }
+        if (!inserted.isEmpty()) {
+            eventPublisher.publishEvent(new CustomerChangedEvent(CustomerChangedEvent.Type.CREATED, inserted));
+        }
+
+        journal.checkpoint(batch.get(batch.size() - 1).sequence());
+        batch.forEach(entry -> pendingEmails.remove(entry.email()));
+        capacity.release(batch.size());
+    }
+
+    private void drop(CustomerRegistrationJournal.Entry entry, String reason) {
+        dropped.increment();
+        log.warn("Dropping registration of [{}]: {}", entry.email(), reason);
+    }
+
+    private static Customer toCustomer(CustomerRegistrationJournal.Entry entry) {
+        return new Customer(entry.age(), entry.name(), entry.email());
+    }
+}
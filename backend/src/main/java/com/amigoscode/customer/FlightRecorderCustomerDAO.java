@@ -0,0 +1,203 @@
+package com.amigoscode.customer;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Wraps a CustomerDAO tier to emit a {@link CustomerDAOEvent} per call. Without a running
+ * recording that enables the event, begin and commit are a couple of field checks.
+ */
+public class FlightRecorderCustomerDAO implements CustomerDAO {
+
+    private final String dao;
+    private final CustomerDAO delegate;
+
+    public FlightRecorderCustomerDAO(String dao, CustomerDAO delegate) {
+        this.dao = dao;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public List<Customer> selectAllCustomers() {
+        CustomerDAOEvent event = CustomerDAOEvent.begin("selectAllCustomers", dao, null);
+        try {
+            List<Customer> customers = delegate.selectAllCustomers();
+            event.rows = customers.size();
+            return customers;
+        } finally {
+            event.commit();
+        }
+    }
+
+    @Override
+    public Optional<Customer> selectCustomerByID(Long id) {
+        CustomerDAOEvent event = CustomerDAOEvent.begin("selectCustomerByID", dao, id);
+        try {
+            Optional<Customer> customer = delegate.selectCustomerByID(id);
+            event.hit = customer.isPresent();
+            event.rows = event.hit ? 1 : 0;
+            return customer;
+        } finally {
+            event.commit();
+        }
+    }
+
+    @Override
+    public List<Customer> selectAllCustomers(Set<CustomerField> fields) {
+        CustomerDAOEvent event = CustomerDAOEvent.begin("selectAllCustomers", dao, null);
+        try {
+            List<Customer> customers = delegate.selectAllCustomers(fields);
+            event.rows = customers.size();
+            return customers;
+        } finally {
+            event.commit();
+        }
+    }
+
+    @Override
+    public Optional<Customer> selectCustomerByID(Long id, Set<CustomerField> fields) {
+        CustomerDAOEvent event = CustomerDAOEvent.begin("selectCustomerByID", dao, id);
+        try {
+            Optional<Customer> customer = delegate.selectCustomerByID(id, fields);
+            event.hit = customer.isPresent();
+            event.rows = event.hit ? 1 : 0;
+            return customer;
+        } finally {
+            event.commit();
+        }
+    }
+
+    @Override
+    public List<Customer> selectCustomersByIDs(Collection<Long> ids) {
+        CustomerDAOEvent event = CustomerDAOEvent.begin("selectCustomersByIDs", dao, null);
+        try {
+            List<Customer> customers = delegate.selectCustomersByIDs(ids);
+            event.rows = customers.size();
+            event.hit = customers.size() == ids.size();
+            return customers;
+        } finally {
+            event.commit();
+        }
+    }
+
+    @Override
+    public void insertCustomer(Customer customer) {
+        CustomerDAOEvent event = CustomerDAOEvent.begin("insertCustomer", dao, customer.getId());
+        try {
+            delegate.insertCustomer(customer);
+            event.rows = 1;
+        } finally {
+            event.commit();
+        }
+    }
+
+    @Override
+    public void insertCustomers(List<Customer> customers) {
+        CustomerDAOEvent event = CustomerDAOEvent.begin("insertCustomers", dao, null);
+        try {
+            delegate.insertCustomers(customers);
+            event.rows = customers.size();
+        } finally {
+            event.commit();
+        }
+    }
+
+    @Override
+    public boolean existsPersonWithEmail(String email) {
+        CustomerDAOEvent event = CustomerDAOEvent.begin("existsPersonWithEmail", dao, null);
+        try {
+            event.hit = delegate.existsPersonWithEmail(email);
+            return event.hit;
+        } finally {
+            event.commit();
+        }
+    }
+
+    @Override
+    public Set<String> selectExistingEmails(Collection<String> emails) {
+        CustomerDAOEvent event = CustomerDAOEvent.begin("selectExistingEmails", dao, null);
+        try {
+            Set<String> existing = delegate.selectExistingEmails(emails);
+            event.rows = existing.size();
+            event.hit = !existing.isEmpty();
+            return existing;
+        } finally {
+            event.commit();
+        }
+    }
+
+    @Override
+    public void deleteCustomerById(Long customerId) {
+        CustomerDAOEvent event = CustomerDAOEvent.begin("deleteCustomerById", dao, customerId);
+        try {
+            delegate.deleteCustomerById(customerId);
+        } finally {
+            event.commit();
+        }
+    }
+
+    @Override
+    public boolean existsPersonWithId(Long id) {
+        CustomerDAOEvent event = CustomerDAOEvent.begin("existsPersonWithId", dao, id);
+        try {
+            event.hit = delegate.existsPersonWithId(id);
+            return event.hit;
+        } finally {
+            event.commit();
+        }
+    }
+
+    @Override
+    public void updateCustomerById(Customer update) {
+        CustomerDAOEvent event = CustomerDAOEvent.begin("updateCustomerById", dao, update.getId());
+        try {
+            delegate.updateCustomerById(update);
+        } finally {
+            event.commit();
+        }
+    }
+
+    @Override
+    public void updateCustomers(List<Customer> updates) {
+        CustomerDAOEvent event = CustomerDAOEvent.begin("updateCustomers", dao, null);
+        try {
+            delegate.updateCustomers(updates);
+            event.rows = updates.size();
+        } finally {
+            event.commit();
+        }
+    }
+
+    @Override
+    public void deleteCustomersByIds(Collection<Long> customerIds) {
+        CustomerDAOEvent event = CustomerDAOEvent.begin("deleteCustomersByIds", dao, null);
+        try {
+            delegate.deleteCustomersByIds(customerIds);
+            event.rows = customerIds.size();
+        } finally {
+            event.commit();
+        }
+    }
+
+    @Override
+    public long countCustomers() {
+        CustomerDAOEvent event = CustomerDAOEvent.begin("countCustomers", dao, null);
+        try {
+            return delegate.countCustomers();
+        } finally {
+            event.commit();
+        }
+    }
+
+    @Override
+    public long estimateCustomers() {
+        CustomerDAOEvent event = CustomerDAOEvent.begin("estimateCustomers", dao, null);
+        try {
+            return delegate.estimateCustomers();
+        } finally {
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.amigoscode.customer;
+
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Condition;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.core.env.Environment;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+
+import java.util.List;
+import java.util.Map;
+
+class OnCustomerDAOTierCondition implements Condition {
+
+    @Override
+    public boolean matches(ConditionContext context, AnnotatedTypeMetadata metadata) {
+        Map<String, Object> attributes = metadata.getAnnotationAttributes(ConditionalOnCustomerDAOTier.class.getName());
+        String tier = (String) attributes.get("value");
+        return tiers(context.getEnvironment()).contains(tier);
+    }
+
+    static List<String> tiers(Environment environment) {
+        return Binder.get(environment)
+                .bind("customer.dao.tiers", Bindable.listOf(String.class))
+                .orElse(CustomerDAOProperties.DEFAULT_TIERS);
+    }
+
+    static boolean usesDatabase(Environment environment) {
+        return tiers(environment).stream().anyMatch(CustomerDAOProperties.DATABASE_TIERS::contains);
+    }
+}
@@ -0,0 +1,16 @@
+package com.amigoscode.customer;
+
+import org.springframework.context.annotation.Condition;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+
+import java.util.Map;
+
+class OnCustomerDatabaseCondition implements Condition {
+
+    @Override
+    public boolean matches(ConditionContext context, AnnotatedTypeMetadata metadata) {
+        Map<String, Object> attributes = metadata.getAnnotationAttributes(ConditionalOnCustomerDatabase.class.getName());
+        return OnCustomerDAOTierCondition.usesDatabase(context.getEnvironment()) == (boolean) attributes.get("value");
+    }
+}
@@ -0,0 +1,199 @@
+package com.amigoscode.customer;
+
+import com.amigoscode.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Coalesces concurrent lookups of the same key into one call to the delegate.
+ * <p>
+ * The first caller for a key runs the query on its own thread, callers arriving while it
+ * is in flight wait for its result for at most {@code timeout}. A waiter giving up never
+ * cancels the shared query, the other callers still get its result, each its own copy. Writes drop the
+ * in-flight entries of the keys they touch, so callers arriving after a write never join
+ * a query that started before it. Callers inside a transaction always run their own query.
+ */
+public class SingleFlightCustomerDAO implements CustomerDAO {
+
+    private final CustomerDAO delegate;
+    private final Duration timeout;
+    private final ConcurrentMap<Long, CompletableFuture<Optional<Customer>>> customersById = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, CompletableFuture<Boolean>> emailExists = new ConcurrentHashMap<>();
+    private final Counter coalescedSelectById;
+    private final Counter coalescedExistsByEmail;
+
+    public SingleFlightCustomerDAO(CustomerDAO delegate, Duration timeout, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.timeout = timeout;
+        this.coalescedSelectById = coalescedCounter(meterRegistry, "selectCustomerByID");
+        this.coalescedExistsByEmail = coalescedCounter(meterRegistry, "existsPersonWithEmail");
+    }
+
+    @Override
+    public List<Customer> selectAllCustomers() {
+        return delegate.selectAllCustomers();
+    }
+
+    @Override
+    public Optional<Customer> selectCustomerByID(Long id) {
+        //every waiter gets its own copy, callers go on to mutate the customer they read
+        return coalesce(
+                customersById,
+                id,
+                () -> delegate.selectCustomerByID(id),
+                customer -> customer.map(CustomerCacheDataAccessService::copy),
+                coalescedSelectById
+        );
+    }
+
+    @Override
+    public List<Customer> selectAllCustomers(Set<CustomerField> fields) {
+        return delegate.selectAllCustomers(fields);
+    }
+
+    //projected from the shared full read rather than loaded apart from it
+    @Override
+    public Optional<Customer> selectCustomerByID(Long id, Set<CustomerField> fields) {
+        return selectCustomerByID(id).map(customer -> CustomerField.project(customer, fields));
+    }
+
+    @Override
+    public List<Customer> selectCustomersByIDs(Collection<Long> ids) {
+        return delegate.selectCustomersByIDs(ids);
+    }
+
+    @Override
+    public void insertCustomer(Customer customer) {
+        delegate.insertCustomer(customer);
+        emailExists.remove(customer.getEmail());
+    }
+
+    @Override
+    public void insertCustomers(List<Customer> customers) {
+        delegate.insertCustomers(customers);
+        customers.forEach(customer -> emailExists.remove(customer.getEmail()));
+    }
+
+    @Override
+    public boolean existsPersonWithEmail(String email) {
+        return coalesce(emailExists, email, () -> delegate.existsPersonWithEmail(email), exists -> exists, coalescedExistsByEmail);
+    }
+
+    @Override
+    public Set<String> selectExistingEmails(Collection<String> emails) {
+        return delegate.selectExistingEmails(emails);
+    }
+
+    @Override
+    public void deleteCustomerById(Long customerId) {
+        delegate.deleteCustomerById(customerId);
+        customersById.remove(customerId);
+        //the deleted email is unknown here
+        emailExists.clear();
+    }
+
+    @Override
+    public boolean existsPersonWithId(Long id) {
+        return delegate.existsPersonWithId(id);
+    }
+
+    @Override
+    public void updateCustomerById(Customer update) {
+        delegate.updateCustomerById(update);
+        customersById.remove(update.getId());
+        if (update.getEmail() != null) {
+            //the previous email is unknown here
+            emailExists.clear();
+        }
+    }
+
+    @Override
+    public void updateCustomers(List<Customer> updates) {
+        delegate.updateCustomers(updates);
+        updates.forEach(update -> customersById.remove(update.getId()));
+        emailExists.clear();
+    }
+
+    @Override
+    public void deleteCustomersByIds(Collection<Long> customerIds) {
+        delegate.deleteCustomersByIds(customerIds);
+        customerIds.forEach(customersById::remove);
+        emailExists.clear();
+    }
+
+    @Override
+    public long countCustomers() {
+        return delegate.countCustomers();
+    }
+
+    @Override
+    public long estimateCustomers() {
+        return delegate.estimateCustomers();
+    }
+
+    private <K, V> V coalesce(ConcurrentMap<K, CompletableFuture<V>> inFlight,
+                              K key,
+                              Supplier<V> query,
+                              UnaryOperator<V> share,
+                              Counter coalesced) {
+        //a transaction reads its own snapshot and writes, it must neither join nor share a flight
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return query.get();
+        }
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            coalesced.increment();
+            return share.apply(await(existing, key));
+        }
+
+        try {
+            V value = query.get();
+            flight.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    private <V> V await(CompletableFuture<V> flight, Object key) {
+        try {
+            return flight.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new ServiceUnavailableException("timed out waiting for lookup of [%s]".formatted(key));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("interrupted waiting for lookup of [%s]".formatted(key));
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static Counter coalescedCounter(MeterRegistry meterRegistry, String operation) {
+        return Counter.builder("customer.dao.coalesced")
+                .description("Lookups served by joining an identical in-flight query")
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,192 @@
+package com.amigoscode.customer;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.Optional;
+
+/**
+ * Composes CustomerDAOs into a read-through, write-through pipeline.
+ * <p>
+ * Tiers are ordered fastest first and the last tier is the system of record. Reads
+ * walk down the tiers and back fill the faster tiers that missed. Writes go to the
+ * system of record first so a failed write never leaves a faster tier ahead of it,
+ * and are then propagated up the chain. Faster tiers are not transactional, so inside a
+ * transaction that rolls back the customers written through them are evicted again.
+ */
+public class TieredCustomerDAO implements CustomerDAO {
+
+    private final List<CustomerDAO> tiers;
+    private final CustomerDAO systemOfRecord;
+
+    public TieredCustomerDAO(List<CustomerDAO> tiers) {
+        this.tiers = List.copyOf(tiers);
+        this.systemOfRecord = this.tiers.get(this.tiers.size() - 1);
+    }
+
+    @Override
+    public List<Customer> selectAllCustomers() {
+        //faster tiers only hold a subset
+        return systemOfRecord.selectAllCustomers();
+    }
+
+    @Override
+    public Optional<Customer> selectCustomerByID(Long id) {
+        for (int i = 0; i < tiers.size(); i++) {
+            Optional<Customer> customer = tiers.get(i).selectCustomerByID(id);
+            if (customer.isPresent()) {
+                backFill(i, customer.get());
+                return customer;
+            }
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public List<Customer> selectAllCustomers(Set<CustomerField> fields) {
+        return systemOfRecord.selectAllCustomers(fields);
+    }
+
+    //projected from a full read, so a miss still fills the faster tiers
+    @Override
+    public Optional<Customer> selectCustomerByID(Long id, Set<CustomerField> fields) {
+        return selectCustomerByID(id).map(customer -> CustomerField.project(customer, fields));
+    }
+
+    @Override
+    public List<Customer> selectCustomersByIDs(Collection<Long> ids) {
+        List<Customer> found = new ArrayList<>(ids.size());
+        Set<Long> missing = new LinkedHashSet<>(ids);
+        for (int i = 0; i < tiers.size() && !missing.isEmpty(); i++) {
+            List<Customer> customers = tiers.get(i).selectCustomersByIDs(missing);
+            for (Customer customer : customers) {
+                missing.remove(customer.getId());
+                backFill(i, customer);
+            }
+            found.addAll(customers);
+        }
+        return found;
+    }
+
+    @Override
+    public void insertCustomer(Customer customer) {
+        systemOfRecord.insertCustomer(customer);
+        //a system of record that doesn't hand back ids leaves the faster tiers to the next read
+        if (customer.getId() == null) {
+            return;
+        }
+        for (int i = tiers.size() - 2; i >= 0; i--) {
+            tiers.get(i).insertCustomer(customer);
+        }
+        evictOnRollback(List.of(customer));
+    }
+
+    @Override
+    public void insertCustomers(List<Customer> customers) {
+        systemOfRecord.insertCustomers(customers);
+        List<Customer> identified = customers.stream().filter(c -> c.getId() != null).toList();
+        if (identified.isEmpty()) {
+            return;
+        }
+        for (int i = tiers.size() - 2; i >= 0; i--) {
+            tiers.get(i).insertCustomers(identified);
+        }
+        evictOnRollback(identified);
+    }
+
+    @Override
+    public boolean existsPersonWithEmail(String email) {
+        return tiers.stream().anyMatch(tier -> tier.existsPersonWithEmail(email));
+    }
+
+    //each tier is only asked for the emails the faster ones didn't find
+    @Override
+    public Set<String> selectExistingEmails(Collection<String> emails) {
+        Set<String> found = new HashSet<>();
+        Set<String> missing = new LinkedHashSet<>(emails);
+        for (int i = 0; i < tiers.size() && !missing.isEmpty(); i++) {
+            Set<String> existing = tiers.get(i).selectExistingEmails(missing);
+            missing.removeAll(existing);
+            found.addAll(existing);
+        }
+        return found;
+    }
+
+    @Override
+    public void deleteCustomerById(Long customerId) {
+        for (int i = tiers.size() - 1; i >= 0; i--) {
+            tiers.get(i).deleteCustomerById(customerId);
+        }
+    }
+
+    @Override
+    public boolean existsPersonWithId(Long id) {
+        return tiers.stream().anyMatch(tier -> tier.existsPersonWithId(id));
+    }
+
+    @Override
+    public void updateCustomerById(Customer update) {
+        for (int i = tiers.size() - 1; i >= 0; i--) {
+            tiers.get(i).updateCustomerById(update);
+        }
+        evictOnRollback(List.of(update));
+    }
+
+    @Override
+    public void updateCustomers(List<Customer> updates) {
+        for (int i = tiers.size() - 1; i >= 0; i--) {
+            tiers.get(i).updateCustomers(updates);
+        }
+        evictOnRollback(updates);
+    }
+
+    @Override
+    public void deleteCustomersByIds(Collection<Long> customerIds) {
+        for (int i = tiers.size() - 1; i >= 0; i--) {
+            tiers.get(i).deleteCustomersByIds(customerIds);
+        }
+    }
+
+    @Override
+    public long countCustomers() {
+        return systemOfRecord.countCustomers();
+    }
+
+    @Override
+    public long estimateCustomers() {
+        return systemOfRecord.estimateCustomers();
+    }
+
+    private void evictOnRollback(List<Customer> written) {
+        if (tiers.size() < 2 || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        List<Long> ids = written.stream().map(Customer::getId).filter(Objects::nonNull).toList();
+        if (ids.isEmpty()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    for (int i = 0; i < tiers.size() - 1; i++) {
+                        tiers.get(i).deleteCustomersByIds(ids);
+                    }
+                }
+            }
+        });
+    }
+
+    private void backFill(int hitTier, Customer customer) {
+        for (int i = hitTier - 1; i >= 0; i--) {
+            tiers.get(i).insertCustomer(customer);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.amigoscode.database;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class DatabaseStatementsConfig {
+
+    //static, a post processor has to exist before the DataSource it wraps
+    @Bean
+    static StatementTrackingPostProcessor statementTrackingPostProcessor(ObjectProvider<StatementListener> listeners) {
+        return new StatementTrackingPostProcessor(listeners);
+    }
+
+    @Configuration
+    @ConditionalOnProperty(name = "app.db-statements.enabled", havingValue = "true", matchIfMissing = true)
+    static class RequestAccounting {
+
+        @Bean
+        RequestStatements requestStatements() {
+            return new RequestStatements();
+        }
+
+        @Bean
+        FilterRegistrationBean<DatabaseStatementsFilter> databaseStatementsFilter(RequestStatements requestStatements,
+                                                                                  DatabaseStatementsProperties properties,
+                                                                                  MeterRegistry meterRegistry) {
+            return new FilterRegistrationBean<>(new DatabaseStatementsFilter(requestStatements, properties, meterRegistry));
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.amigoscode.database;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Accounts the statements every request runs: a metric per endpoint, a warning when an
+ * endpoint goes over its budget or repeats a statement, and optionally response headers.
+ * The headers need the body buffered, as they can only be set once the handler is done.
+ * Responses the handler keeps writing asynchronously, like event streams, are let through once
+ * it returns.
+ */
+public class DatabaseStatementsFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(DatabaseStatementsFilter.class);
+
+    private final RequestStatements requestStatements;
+    private final DatabaseStatementsProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    DatabaseStatementsFilter(RequestStatements requestStatements,
+                             DatabaseStatementsProperties properties,
+                             MeterRegistry meterRegistry) {
+        this.requestStatements = requestStatements;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        BufferedResponse buffered = properties.responseHeaders()
+                ? new BufferedResponse(response)
+                : null;
+
+        RequestStatements.Tally tally = requestStatements.begin();
+        try {
+            filterChain.doFilter(request, buffered != null ? buffered : response);
+        } finally {
+            requestStatements.end();
+        }
+
+        account(request, tally);
+        if (buffered != null) {
+            buffered.setHeader("X-DB-Queries", Integer.toString(tally.count()));
+            buffered.setHeader("X-DB-Time", String.format(Locale.ROOT, "%.3f", tally.nanos() / 1e6));
+            if (request.isAsyncStarted()) {
+                buffered.startStreaming();
+            } else {
+                buffered.copyBodyToResponse();
+            }
+        }
+    }
+
+    private void account(HttpServletRequest request, RequestStatements.Tally tally) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+        String endpoint = request.getMethod() + " " + uri;
+
+        DistributionSummary.builder("http.server.requests.db.statements")
+                .description("Statements run per request")
+                .tags("method", request.getMethod(), "uri", uri)
+                .register(meterRegistry)
+                .record(tally.count());
+        Timer.builder("http.server.requests.db.time")
+                .description("Time per request spent executing statements")
+                .tags("method", request.getMethod(), "uri", uri)
+                .register(meterRegistry)
+                .record(tally.nanos(), TimeUnit.NANOSECONDS);
+
+        int budget = properties.budgetFor(endpoint);
+        if (tally.count() > budget) {
+            log.warn("{} ran {} statements, its budget is {}", endpoint, tally.count(), budget);
+        }
+        Map.Entry<String, Integer> repeated = tally.mostRepeated();
+        if (repeated != null && repeated.getValue() > properties.repeatThreshold()) {
+            log.warn("{} ran the same statement {} times, likely an N+1: {}",
+                    endpoint, repeated.getValue(), repeated.getKey().strip());
+        }
+    }
+
+    //async writes can race the filter, so the switch from buffering to writing through is locked
+    private static final class BufferedResponse extends ContentCachingResponseWrapper {
+
+        private final Object lock = new Object();
+        private ServletOutputStream outputStream;
+        private boolean streaming;
+
+        BufferedResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        void startStreaming() throws IOException {
+            synchronized (lock) {
+                //not complete, a content length would cut the stream off
+                copyBodyToResponse(false);
+                getResponse().flushBuffer();
+                streaming = true;
+            }
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            synchronized (lock) {
+                if (outputStream == null) {
+                    outputStream = new StreamingOutputStream(super.getOutputStream());
+                }
+                return outputStream;
+            }
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            synchronized (lock) {
+                if (streaming) {
+                    getResponse().flushBuffer();
+                }
+            }
+        }
+
+        private final class StreamingOutputStream extends ServletOutputStream {
+
+            private final ServletOutputStream buffer;
+
+            StreamingOutputStream(ServletOutputStream buffer) {
+                this.buffer = buffer;
+            }
+
+            private ServletOutputStream target() throws IOException {
+                return streaming ? getResponse().getOutputStream() : buffer;
+            }
+
+            @Override
+            public void write(int b) throws IOException {
+                synchronized (lock) {
+                    target().write(b);
+                }
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                synchronized (lock) {
+                    target().write(b, off, len);
+                }
+            }
+
+            @Override
+            public void flush() throws IOException {
+                synchronized (lock) {
+                    if (streaming) {
+                        getResponse().getOutputStream().flush();
+                    }
+                }
+            }
+
+            @Override
+            public boolean isReady() {
+                return buffer.isReady();
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+                buffer.setWriteListener(writeListener);
+            }
+        }
+    }
+}
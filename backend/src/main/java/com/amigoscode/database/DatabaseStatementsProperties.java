@@ -0,0 +1,31 @@
+package com.amigoscode.database;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.util.Map;
+
+/**
+ * @param responseHeaders add X-DB-Queries and X-DB-Time to every response, leave off in production
+ * @param budget          statements a request may run before a warning is logged
+ * @param budgets         per endpoint budgets, keyed by method and path pattern,
+ *                        e.g. {@code "[PUT /api/v1/customers/{customerId}]": 3}
+ * @param repeatThreshold how often one statement may run in a request before it is logged as a likely N+1
+ */
+@ConfigurationProperties(prefix = "app.db-statements")
+public record DatabaseStatementsProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("false") boolean responseHeaders,
+        @DefaultValue("10") int budget,
+        Map<String, Integer> budgets,
+        @DefaultValue("5") int repeatThreshold
+) {
+
+    public DatabaseStatementsProperties {
+        budgets = budgets == null ? Map.of() : Map.copyOf(budgets);
+    }
+
+    int budgetFor(String endpoint) {
+        return budgets.getOrDefault(endpoint, budget);
+    }
+}
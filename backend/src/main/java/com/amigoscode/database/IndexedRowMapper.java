@@ -0,0 +1,80 @@
+package com.amigoscode.database;
+
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * A {@link RowMapper} that reads columns by position instead of by label. The positions of
+ * its columns are looked up once per result set by the extractors, {@link #list(int)} and
+ * {@link #single()}, so mapping a row is only the typed getters.
+ * <p>
+ * Used as a plain RowMapper it still works, but has to look the positions up for every row.
+ *
+ * @param <T> the type of object a row is mapped to
+ */
+public abstract class IndexedRowMapper<T> implements RowMapper<T> {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private final String[] labels;
+
+    /**
+     * @param labels the columns read by {@link #mapRow(ResultSet, int[])}, in the order of the
+     *               positions it's handed
+     */
+    protected IndexedRowMapper(String... labels) {
+        this.labels = labels;
+    }
+
+    /**
+     * @param columns the position of each column given to the constructor, in that order
+     */
+    protected abstract T mapRow(ResultSet rs, int[] columns) throws SQLException;
+
+    @Override
+    public T mapRow(ResultSet rs, int rowNum) throws SQLException {
+        return mapRow(rs, columns(rs));
+    }
+
+    /**
+     * All rows, in a list sized for {@code expectedRows} so it doesn't have to grow while the
+     * rows come in, e.g. the number of ids looked up.
+     */
+    public ResultSetExtractor<List<T>> list(int expectedRows) {
+        return rs -> {
+            List<T> rows = new ArrayList<>(expectedRows);
+            if (rs.next()) {
+                int[] columns = columns(rs);
+                do {
+                    rows.add(mapRow(rs, columns));
+                } while (rs.next());
+            }
+            return rows;
+        };
+    }
+
+    public ResultSetExtractor<List<T>> list() {
+        return list(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * The first row, rows after it are never read.
+     */
+    public ResultSetExtractor<Optional<T>> single() {
+        return rs -> rs.next() ? Optional.of(mapRow(rs, columns(rs))) : Optional.empty();
+    }
+
+    private int[] columns(ResultSet rs) throws SQLException {
+        int[] columns = new int[labels.length];
+        for (int i = 0; i < labels.length; i++) {
+            columns[i] = rs.findColumn(labels[i]);
+        }
+        return columns;
+    }
+}
@@ -0,0 +1,54 @@
+package com.amigoscode.database;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Counts and times the statements of the request being handled on the current thread.
+ * Statements run on other threads, e.g. by the batching DAO's loaders, are not attributed.
+ */
+class RequestStatements implements StatementListener {
+
+    private final ThreadLocal<Tally> current = new ThreadLocal<>();
+
+    Tally begin() {
+        Tally tally = new Tally();
+        current.set(tally);
+        return tally;
+    }
+
+    void end() {
+        current.remove();
+    }
+
+    @Override
+    public void statementExecuted(String sql, List<Object> parameters, long elapsedNanos) {
+        Tally tally = current.get();
+        if (tally != null) {
+            tally.count++;
+            tally.nanos += elapsedNanos;
+            tally.executions.merge(sql, 1, Integer::sum);
+        }
+    }
+
+    static final class Tally {
+
+        private int count;
+        private long nanos;
+        private final Map<String, Integer> executions = new HashMap<>();
+
+        int count() {
+            return count;
+        }
+
+        long nanos() {
+            return nanos;
+        }
+
+        //the statement run most often, the usual sign of an N+1
+        Map.Entry<String, Integer> mostRepeated() {
+            return executions.entrySet().stream().max(Map.Entry.comparingByValue()).orElse(null);
+        }
+    }
+}
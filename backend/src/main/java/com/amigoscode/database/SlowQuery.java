@@ -0,0 +1,25 @@
+package com.amigoscode.database;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * @param parameters the types of the bound values, with the length of strings, never the values
+ * @param plan       output of {@code EXPLAIN}, null until it has been looked up or for statements
+ *                   that can't be explained
+ */
+public record SlowQuery(
+        long id,
+        Instant executedAt,
+        Duration duration,
+        String sql,
+        List<String> parameters,
+        String thread,
+        String plan
+) {
+
+    SlowQuery withPlan(String plan) {
+        return new SlowQuery(id, executedAt, duration, sql, parameters, thread, plan);
+    }
+}
@@ -0,0 +1,167 @@
+package com.amigoscode.database;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps the latest statements that took longer than the threshold, and looks up their plans
+ * with {@code EXPLAIN (ANALYZE off)} on a background thread, so the slow request doesn't wait
+ * for it. Plans use the statement's own parameters, as a plan can change with the values.
+ */
+@Component
+@ConditionalOnProperty(name = "app.slow-queries.enabled", havingValue = "true", matchIfMissing = true)
+public class SlowQueryLog implements StatementListener {
+
+    private static final Logger log = LoggerFactory.getLogger(SlowQueryLog.class);
+    private static final String EXPLAIN = "EXPLAIN (ANALYZE off) ";
+    private static final Pattern EXPLAINABLE = Pattern.compile(
+            "^\\s*(select|insert|update|delete|with)\\b", Pattern.CASE_INSENSITIVE
+    );
+
+    private final long thresholdNanos;
+    private final boolean explain;
+    private final ObjectProvider<JdbcTemplate> jdbcTemplate;
+    private final Counter slowStatements;
+    private final AtomicLong ids = new AtomicLong();
+    private final Map<Long, SlowQuery> latest;
+    //one plan at a time, plans queued beyond that are dropped rather than piling up on a struggling database
+    private final ExecutorService explainer = new ThreadPoolExecutor(
+            1, 1, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(16),
+            runnable -> {
+                Thread thread = new Thread(runnable, "slow-query-explainer");
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.DiscardPolicy()
+    );
+
+    public SlowQueryLog(SlowQueryProperties properties,
+                        ObjectProvider<JdbcTemplate> jdbcTemplate,
+                        MeterRegistry meterRegistry) {
+        this.thresholdNanos = properties.threshold().toNanos();
+        this.explain = properties.explain();
+        this.jdbcTemplate = jdbcTemplate;
+        this.slowStatements = Counter.builder("db.statements.slow")
+                .description("Statements that took longer than app.slow-queries.threshold")
+                .register(meterRegistry);
+        this.latest = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, SlowQuery> eldest) {
+                return size() > properties.capacity();
+            }
+        };
+    }
+
+    @Override
+    public void statementExecuted(String sql, List<Object> parameters, long elapsedNanos) {
+        //the explainer's own statements are never captured, or a slow EXPLAIN would explain itself
+        if (elapsedNanos < thresholdNanos || sql.startsWith(EXPLAIN)) {
+            return;
+        }
+        slowStatements.increment();
+        SlowQuery slowQuery = new SlowQuery(
+                ids.incrementAndGet(),
+                Instant.now(),
+                Duration.ofNanos(elapsedNanos),
+                sql.strip(),
+                parameters.stream().map(SlowQueryLog::shape).toList(),
+                Thread.currentThread().getName(),
+                null
+        );
+        synchronized (latest) {
+            latest.put(slowQuery.id(), slowQuery);
+        }
+        log.warn("Statement took {} ms: {}", slowQuery.duration().toMillis(), slowQuery.sql());
+
+        if (explain && EXPLAINABLE.matcher(sql).find()) {
+            List<Object> values = new ArrayList<>(parameters);
+            explainer.execute(() -> explain(slowQuery, values));
+        }
+    }
+
+    //latest first
+    public List<SlowQuery> latest() {
+        synchronized (latest) {
+            List<SlowQuery> slowQueries = new ArrayList<>(latest.values());
+            Collections.reverse(slowQueries);
+            return slowQueries;
+        }
+    }
+
+    public void clear() {
+        synchronized (latest) {
+            latest.clear();
+        }
+    }
+
+    private void explain(SlowQuery slowQuery, List<Object> values) {
+        String plan;
+        try {
+            plan = jdbcTemplate.getObject().query(
+                    EXPLAIN + slowQuery.sql(),
+                    ps -> bind(ps, values),
+                    rs -> {
+                        StringBuilder lines = new StringBuilder();
+                        while (rs.next()) {
+                            lines.append(rs.getString(1)).append('\n');
+                        }
+                        return lines.toString();
+                    }
+            );
+        } catch (RuntimeException e) {
+            plan = "EXPLAIN failed: " + e.getMessage();
+        }
+        String found = plan;
+        synchronized (latest) {
+            latest.computeIfPresent(slowQuery.id(), (id, captured) -> captured.withPlan(found));
+        }
+    }
+
+    private static void bind(PreparedStatement ps, List<Object> values) throws SQLException {
+        for (int i = 0; i < values.size(); i++) {
+            //arrays belong to the connection that created them
+            if (values.get(i) instanceof Array array) {
+                ps.setArray(i + 1, ps.getConnection().createArrayOf(array.getBaseTypeName(), (Object[]) array.getArray()));
+            } else {
+                ps.setObject(i + 1, values.get(i));
+            }
+        }
+    }
+
+    private static String shape(Object value) {
+        if (value == null) {
+            return "null";
+        }
+        if (value instanceof CharSequence chars) {
+            return "String(" + chars.length() + ")";
+        }
+        if (value instanceof Array) {
+            return "Array";
+        }
+        return value.getClass().getSimpleName();
+    }
+}
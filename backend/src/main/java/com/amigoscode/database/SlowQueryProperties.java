@@ -0,0 +1,20 @@
+package com.amigoscode.database;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * @param threshold statements taking at least this long are captured
+ * @param capacity  how many of the latest slow statements are kept
+ * @param explain   look up the plan of captured statements in the background
+ */
+@ConfigurationProperties(prefix = "app.slow-queries")
+public record SlowQueryProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("200ms") Duration threshold,
+        @DefaultValue("100") int capacity,
+        @DefaultValue("true") boolean explain
+) {
+}
@@ -0,0 +1,18 @@
+package com.amigoscode.database;
+
+import java.util.List;
+
+/**
+ * Notified after every statement sent through the application's DataSource, on the thread
+ * that executed it. Implementations are beans and run inline, so they have to be cheap.
+ */
+public interface StatementListener {
+
+    /**
+     * @param sql          the statement as prepared, with {@code ?} placeholders
+     * @param parameters   the bound values by position, the first one is {@code ?} number 1,
+     *                     for a batch those of its last row; only valid during this call
+     * @param elapsedNanos time spent in the execute call, a batch counts as one statement
+     */
+    void statementExecuted(String sql, List<Object> parameters, long elapsedNanos);
+}
@@ -0,0 +1,134 @@
+package com.amigoscode.database;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Hands out connections whose statements report every execute call, with its SQL, bound
+ * parameters and duration, to the {@link StatementListener}s.
+ */
+public class StatementTrackingDataSource extends DelegatingDataSource {
+
+    private final Supplier<List<StatementListener>> listeners;
+
+    public StatementTrackingDataSource(DataSource target, Supplier<List<StatementListener>> listeners) {
+        super(target);
+        this.listeners = listeners;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return trackingConnection(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return trackingConnection(super.getConnection(username, password));
+    }
+
+    private Connection trackingConnection(Connection connection) {
+        return proxy(Connection.class, connection, (method, args) -> {
+            Object result = method.invoke(connection, args);
+            if (result instanceof CallableStatement statement) {
+                return trackingStatement(CallableStatement.class, statement, (String) args[0]);
+            }
+            if (result instanceof PreparedStatement statement) {
+                return trackingStatement(PreparedStatement.class, statement, (String) args[0]);
+            }
+            if (result instanceof Statement statement) {
+                return trackingStatement(Statement.class, statement, null);
+            }
+            return result;
+        });
+    }
+
+    private <S extends Statement> S trackingStatement(Class<S> type, S statement, String preparedSql) {
+        BoundParameters parameters = new BoundParameters();
+        return proxy(type, statement, (method, args) -> {
+            String name = method.getName();
+            if (!name.startsWith("execute")) {
+                //positional setters only, named ones of CallableStatement take a String first
+                if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                    parameters.set(index, name.equals("setNull") ? null : args[1]);
+                } else if (name.equals("clearParameters")) {
+                    parameters.clear();
+                }
+                return method.invoke(statement, args);
+            }
+            //plain statements get their SQL with the execute call
+            String sql = preparedSql != null ? preparedSql
+                    : args != null && args.length > 0 && args[0] instanceof String s ? s
+                    : "batch";
+            long started = System.nanoTime();
+            try {
+                return method.invoke(statement, args);
+            } finally {
+                long elapsed = System.nanoTime() - started;
+                for (StatementListener listener : listeners.get()) {
+                    listener.statementExecuted(sql, parameters.view(), elapsed);
+                }
+            }
+        });
+    }
+
+    private static <T> T proxy(Class<T> type, T target, Invocation invocation) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Tracking" + type.getSimpleName() + "[" + target + "]";
+                default:
+                    try {
+                        return invocation.invoke(method, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+            }
+        };
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+
+    private static final class BoundParameters {
+
+        private Object[] values = new Object[8];
+        private int size;
+
+        void set(int index, Object value) {
+            if (index > values.length) {
+                values = Arrays.copyOf(values, Math.max(index, values.length * 2));
+            }
+            values[index - 1] = value;
+            size = Math.max(size, index);
+        }
+
+        void clear() {
+            Arrays.fill(values, 0, size, null);
+            size = 0;
+        }
+
+        List<Object> view() {
+            return Arrays.asList(values).subList(0, size);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Invocation {
+        Object invoke(Method method, Object[] args) throws Throwable;
+    }
+}
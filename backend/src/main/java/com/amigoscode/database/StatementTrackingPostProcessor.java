@@ -0,0 +1,39 @@
+package com.amigoscode.database;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * Wraps every DataSource bean in a {@link StatementTrackingDataSource}, so JdbcTemplate,
+ * Hibernate and Flyway statements all reach the {@link StatementListener} beans.
+ */
+class StatementTrackingPostProcessor implements BeanPostProcessor {
+
+    private final ObjectProvider<StatementListener> listenerProvider;
+    //resolved on the first statement, the listeners may depend on beans not created yet
+    private volatile List<StatementListener> listeners;
+
+    StatementTrackingPostProcessor(ObjectProvider<StatementListener> listenerProvider) {
+        this.listenerProvider = listenerProvider;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource && !(bean instanceof StatementTrackingDataSource)) {
+            return new StatementTrackingDataSource(dataSource, this::listeners);
+        }
+        return bean;
+    }
+
+    private List<StatementListener> listeners() {
+        List<StatementListener> resolved = listeners;
+        if (resolved == null) {
+            resolved = listenerProvider.orderedStream().toList();
+            listeners = resolved;
+        }
+        return resolved;
+    }
+}
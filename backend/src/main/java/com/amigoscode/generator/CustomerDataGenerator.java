@@ -0,0 +1,65 @@
+package com.amigoscode.generator;
+
+import com.amigoscode.customer.Customer;
+import com.github.javafaker.Faker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.SplittableRandom;
+
+/**
+ * Produces realistic looking customers for load testing.
+ * <p>
+ * Every customer is a pure function of the seed and its index, so ranges can be
+ * generated in parallel and in any order while still giving the same data set.
+ * Faker is only used once to fill the name pools because it is far too slow to
+ * call per row when generating millions of customers.
+ */
+public class CustomerDataGenerator {
+
+    static final String EMAIL_DOMAIN = "amigoscode.com";
+    private static final int NAME_POOL_SIZE = 1_000;
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private final long seed;
+    private final String[] firstNames = new String[NAME_POOL_SIZE];
+    private final String[] lastNames = new String[NAME_POOL_SIZE];
+    private final String[] firstNamesForEmail = new String[NAME_POOL_SIZE];
+    private final String[] lastNamesForEmail = new String[NAME_POOL_SIZE];
+
+    public CustomerDataGenerator(long seed) {
+        this.seed = seed;
+        Faker faker = new Faker(new Random(seed));
+        for (int i = 0; i < NAME_POOL_SIZE; i++) {
+            firstNames[i] = faker.name().firstName();
+            lastNames[i] = faker.name().lastName();
+            firstNamesForEmail[i] = toEmailPart(firstNames[i]);
+            lastNamesForEmail[i] = toEmailPart(lastNames[i]);
+        }
+    }
+
+    public Customer generate(long index) {
+        SplittableRandom random = new SplittableRandom(seed + index * GOLDEN_GAMMA);
+        int first = random.nextInt(NAME_POOL_SIZE);
+        int last = random.nextInt(NAME_POOL_SIZE);
+        int age = random.nextInt(16, 99);
+
+        //the index keeps emails unique across the whole generated range
+        String email = firstNamesForEmail[first] + "." + lastNamesForEmail[last] + "." + index + "@" + EMAIL_DOMAIN;
+        return new Customer(age, firstNames[first] + " " + lastNames[last], email);
+    }
+
+    public List<Customer> generate(long fromIndex, int count) {
+        List<Customer> customers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            customers.add(generate(fromIndex + i));
+        }
+        return customers;
+    }
+
+    private static String toEmailPart(String name) {
+        return name.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]", "");
+    }
+}
@@ -0,0 +1,111 @@
+package com.amigoscode.generator;
+
+import com.amigoscode.customer.Customer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bulk loads generated customers when the application is started with the
+ * {@code generate} profile, e.g.
+ * {@code java -jar app.jar --spring.profiles.active=generate --generator.count=5000000}.
+ */
+@Component
+@Profile("generate")
+public class CustomerDataGeneratorRunner implements CommandLineRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(CustomerDataGeneratorRunner.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CustomerGeneratorProperties properties;
+
+    public CustomerDataGeneratorRunner(JdbcTemplate jdbcTemplate, CustomerGeneratorProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+    }
+
+    @Override
+    public void run(String... args) throws Exception {
+        CustomerDataGenerator generator = new CustomerDataGenerator(properties.seed());
+        AtomicLong inserted = new AtomicLong();
+        long total = properties.count();
+        long started = System.nanoTime();
+
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor();
+        reporter.scheduleAtFixedRate(
+                () -> logProgress(inserted.get(), total, started),
+                properties.progressIntervalSeconds(),
+                properties.progressIntervalSeconds(),
+                TimeUnit.SECONDS
+        );
+
+        ExecutorService workers = Executors.newFixedThreadPool(properties.threads());
+        try {
+            List<Future<?>> batches = new ArrayList<>();
+            long end = properties.startIndex() + total;
+            for (long from = properties.startIndex(); from < end; from += properties.batchSize()) {
+                long batchStart = from;
+                int batchSize = (int) Math.min(properties.batchSize(), end - from);
+                batches.add(workers.submit(() -> {
+                    insertBatch(generator.generate(batchStart, batchSize));
+                    inserted.addAndGet(batchSize);
+                }));
+            }
+            for (Future<?> batch : batches) {
+                batch.get();
+            }
+        } finally {
+            workers.shutdownNow();
+            reporter.shutdownNow();
+        }
+
+        logProgress(inserted.get(), total, started);
+    }
+
+    private void insertBatch(List<Customer> customers) {
+        var sql = """
+                INSERT INTO customer(age, name, email)
+                VALUES(?, ?, ?)
+                """;
+
+        jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Customer customer = customers.get(i);
+                ps.setInt(1, customer.getAge());
+                ps.setString(2, customer.getName());
+                ps.setString(3, customer.getEmail());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return customers.size();
+            }
+        });
+    }
+
+    private static void logProgress(long inserted, long total, long startedNanos) {
+        double seconds = Math.max((System.nanoTime() - startedNanos) / 1e9, 0.001);
+        log.info("Generated {}/{} customers ({}%) in {}s, {} rows/s",
+                inserted,
+                total,
+                total == 0 ? 100 : inserted * 100 / total,
+                Math.round(seconds),
+                Math.round(inserted / seconds));
+    }
+}
@@ -0,0 +1,15 @@
+package com.amigoscode.generator;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConfigurationProperties(prefix = "generator")
+public record CustomerGeneratorProperties(
+        @DefaultValue("1000000") long count,
+        @DefaultValue("0") long startIndex,
+        @DefaultValue("42") long seed,
+        @DefaultValue("5000") int batchSize,
+        @DefaultValue("4") int threads,
+        @DefaultValue("5") int progressIntervalSeconds
+) {
+}
@@ -0,0 +1,63 @@
+package com.amigoscode.hotkey;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size frequency table that never underestimates a key's count and overestimates
+ * it by at most {@code total / width} with high probability, however many keys there are.
+ */
+final class CountMinSketch {
+
+    private final int width;
+    private final int depth;
+    private final AtomicLongArray counts;
+
+    CountMinSketch(int width, int depth) {
+        if (Integer.bitCount(width) != 1) {
+            throw new IllegalArgumentException("width must be a power of two, was " + width);
+        }
+        this.width = width;
+        this.depth = depth;
+        this.counts = new AtomicLongArray(width * depth);
+    }
+
+    //returns the estimate including this occurrence, saving a second pass over the rows
+    long add(long key) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counts.incrementAndGet(index(key, row)));
+        }
+        return estimate;
+    }
+
+    long estimate(long key) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counts.get(index(key, row)));
+        }
+        return estimate;
+    }
+
+    //sketches of the same shape add up cell by cell to the sketch of all their keys
+    static CountMinSketch sum(List<CountMinSketch> sketches, int width, int depth) {
+        CountMinSketch sum = new CountMinSketch(width, depth);
+        for (CountMinSketch sketch : sketches) {
+            for (int i = 0; i < sum.counts.length(); i++) {
+                sum.counts.getAndAdd(i, sketch.counts.get(i));
+            }
+        }
+        return sum;
+    }
+
+    private int index(long key, int row) {
+        return row * width + (int) (mix(key + (row + 1) * 0x9E3779B97F4A7C15L) & (width - 1));
+    }
+
+    //splitmix64 finalizer, spreads sequential ids over all columns
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
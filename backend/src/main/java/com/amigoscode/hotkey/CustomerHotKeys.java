@@ -0,0 +1,49 @@
+package com.amigoscode.hotkey;
+
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Access frequencies of customer ids, split by reads and updates.
+ */
+@Component
+public class CustomerHotKeys {
+
+    private final boolean enabled;
+    private final List<Duration> windows;
+    private final HotKeyTracker reads;
+    private final HotKeyTracker updates;
+
+    public CustomerHotKeys(HotKeyProperties properties) {
+        this.enabled = properties.enabled();
+        this.windows = List.copyOf(properties.windows());
+        this.reads = properties.newTracker();
+        this.updates = properties.newTracker();
+    }
+
+    public void recordRead(Long id) {
+        if (enabled && id != null) {
+            reads.record(id);
+        }
+    }
+
+    public void recordUpdate(Long id) {
+        if (enabled && id != null) {
+            updates.record(id);
+        }
+    }
+
+    public HotKeyReport topReads(Duration window) {
+        return reads.top(window);
+    }
+
+    public List<HotKeyReport> readReports() {
+        return windows.stream().map(reads::top).toList();
+    }
+
+    public List<HotKeyReport> updateReports() {
+        return windows.stream().map(updates::top).toList();
+    }
+}
@@ -0,0 +1,7 @@
+package com.amigoscode.hotkey;
+
+public record HotKey(
+        long key,
+        long count
+) {
+}
@@ -0,0 +1,84 @@
+package com.amigoscode.hotkey;
+
+import com.amigoscode.customer.ConditionalOnCustomerDAOTier;
+import com.amigoscode.customer.CustomerCacheDataAccessService;
+import com.amigoscode.customer.CustomerDAO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the most read customers in the cache tier: every {@code refreshInterval} the hottest
+ * ids of the pin window are pinned, and those not cached yet are loaded through the tiered
+ * DAO, which back fills the cache.
+ */
+@Component
+@ConditionalOnCustomerDAOTier("cache")
+@ConditionalOnProperty(name = "customer.hot-keys.pin.enabled", havingValue = "true", matchIfMissing = true)
+public class HotKeyCacheWarmer implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(HotKeyCacheWarmer.class);
+
+    private final CustomerHotKeys hotKeys;
+    private final CustomerDAO customerDAO;
+    private final CustomerCacheDataAccessService cache;
+    private final Duration window;
+    private final Duration refreshInterval;
+    private ScheduledExecutorService scheduler;
+
+    public HotKeyCacheWarmer(CustomerHotKeys hotKeys,
+                             CustomerDAO customerDAO,
+                             CustomerCacheDataAccessService cache,
+                             HotKeyProperties properties) {
+        this.hotKeys = hotKeys;
+        this.customerDAO = customerDAO;
+        this.cache = cache;
+        this.window = properties.pin().window();
+        this.refreshInterval = properties.pin().refreshInterval();
+    }
+
+    void refresh() {
+        List<Long> hot = hotKeys.topReads(window).keys().stream().map(HotKey::key).toList();
+        //pinned before loading, so loading one hot customer can't evict another
+        cache.pin(hot);
+        List<Long> cold = hot.stream().filter(id -> !cache.existsPersonWithId(id)).toList();
+        if (!cold.isEmpty()) {
+            customerDAO.selectCustomersByIDs(cold);
+        }
+    }
+
+    @Override
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "customer-cache-warmer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                refresh();
+            } catch (RuntimeException e) {
+                log.warn("Could not warm the customer cache", e);
+            }
+        }, refreshInterval.toMillis(), refreshInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() {
+        scheduler.shutdownNow();
+        scheduler = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return scheduler != null;
+    }
+}
@@ -0,0 +1,31 @@
+package com.amigoscode.hotkey;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+@ConfigurationProperties(prefix = "customer.hot-keys")
+public record HotKeyProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("50") int topK,
+        @DefaultValue("2048") int sketchWidth,
+        @DefaultValue("4") int sketchDepth,
+        @DefaultValue("10s") Duration bucket,
+        @DefaultValue({"1m", "5m", "15m"}) List<Duration> windows,
+        @DefaultValue Pin pin
+) {
+
+    public record Pin(
+            @DefaultValue("true") boolean enabled,
+            @DefaultValue("5m") Duration window,
+            @DefaultValue("30s") Duration refreshInterval
+    ) {
+    }
+
+    HotKeyTracker newTracker() {
+        Duration longest = windows.stream().max(Duration::compareTo).orElse(bucket);
+        return new HotKeyTracker(topK, sketchWidth, sketchDepth, bucket, longest);
+    }
+}
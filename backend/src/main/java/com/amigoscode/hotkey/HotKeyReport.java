@@ -0,0 +1,15 @@
+package com.amigoscode.hotkey;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * @param total accesses of all keys in the window, to put the counts of the hot keys in proportion
+ * @param keys  the most accessed keys, most accessed first, with counts estimated from the sketch
+ */
+public record HotKeyReport(
+        Duration window,
+        long total,
+        List<HotKey> keys
+) {
+}
@@ -0,0 +1,139 @@
+package com.amigoscode.hotkey;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Tracks the most frequently accessed keys over sliding time windows in constant memory.
+ * <p>
+ * Time is cut into buckets of {@code bucket} length, each with its own {@link CountMinSketch}
+ * and a bounded set of candidate keys. Recording touches only the current bucket. A window
+ * report sums the sketches of the buckets it covers and ranks the union of their candidates,
+ * so the window slides one bucket at a time and its newest bucket is still filling up.
+ */
+public class HotKeyTracker {
+
+    private final int topK;
+    private final int width;
+    private final int depth;
+    private final long bucketNanos;
+    private final AtomicReferenceArray<Bucket> buckets;
+    private final LongSupplier nanoClock;
+
+    public HotKeyTracker(int topK, int width, int depth, Duration bucket, Duration longestWindow) {
+        this(topK, width, depth, bucket, longestWindow, System::nanoTime);
+    }
+
+    HotKeyTracker(int topK, int width, int depth, Duration bucket, Duration longestWindow, LongSupplier nanoClock) {
+        this.topK = topK;
+        this.width = width;
+        this.depth = depth;
+        this.bucketNanos = bucket.toNanos();
+        this.buckets = new AtomicReferenceArray<>(bucketsIn(longestWindow));
+        this.nanoClock = nanoClock;
+    }
+
+    public void record(long key) {
+        Bucket bucket = current();
+        bucket.total.increment();
+        bucket.offer(key, bucket.sketch.add(key));
+    }
+
+    public HotKeyReport top(Duration window) {
+        long now = epoch();
+        int covered = Math.min(bucketsIn(window), buckets.length());
+
+        List<CountMinSketch> sketches = new ArrayList<>(covered);
+        Set<Long> candidates = new HashSet<>();
+        long total = 0;
+        for (long epoch = now - covered + 1; epoch <= now; epoch++) {
+            Bucket bucket = buckets.get(slot(epoch));
+            if (bucket != null && bucket.epoch == epoch) {
+                sketches.add(bucket.sketch);
+                candidates.addAll(bucket.candidates.keySet());
+                total += bucket.total.sum();
+            }
+        }
+
+        CountMinSketch sum = CountMinSketch.sum(sketches, width, depth);
+        List<HotKey> keys = candidates.stream()
+                .map(key -> new HotKey(key, sum.estimate(key)))
+                .sorted(Comparator.comparingLong(HotKey::count).reversed())
+                .limit(topK)
+                .toList();
+        return new HotKeyReport(window, total, keys);
+    }
+
+    private Bucket current() {
+        long epoch = epoch();
+        int slot = slot(epoch);
+        Bucket bucket = buckets.get(slot);
+        while (bucket == null || bucket.epoch < epoch) {
+            //whoever wins the swap starts the new bucket, everyone else records into it
+            buckets.compareAndSet(slot, bucket, new Bucket(epoch));
+            bucket = buckets.get(slot);
+        }
+        return bucket;
+    }
+
+    private long epoch() {
+        return Math.floorDiv(nanoClock.getAsLong(), bucketNanos);
+    }
+
+    private int slot(long epoch) {
+        return (int) Math.floorMod(epoch, (long) buckets.length());
+    }
+
+    private int bucketsIn(Duration window) {
+        return (int) Math.max(1, (window.toNanos() + bucketNanos - 1) / bucketNanos);
+    }
+
+    private final class Bucket {
+
+        private final long epoch;
+        private final CountMinSketch sketch = new CountMinSketch(width, depth);
+        private final LongAdder total = new LongAdder();
+        //twice the reported size, so keys ranked just below the top in one bucket can still win the window
+        private final Map<Long, Long> candidates = new ConcurrentHashMap<>();
+        private final int capacity = topK * 2;
+        private volatile long threshold;
+
+        private Bucket(long epoch) {
+            this.epoch = epoch;
+        }
+
+        private void offer(long key, long estimate) {
+            if (candidates.replace(key, estimate) != null) {
+                return;
+            }
+            //the common case for a cold key, no lock taken
+            if (candidates.size() >= capacity && estimate <= threshold) {
+                return;
+            }
+            synchronized (this) {
+                if (candidates.size() >= capacity) {
+                    Map.Entry<Long, Long> coldest = candidates.entrySet().stream()
+                            .min(Map.Entry.comparingByValue())
+                            .orElseThrow();
+                    if (estimate <= coldest.getValue()) {
+                        return;
+                    }
+                    candidates.remove(coldest.getKey());
+                }
+                candidates.put(key, estimate);
+                if (candidates.size() >= capacity) {
+                    threshold = candidates.values().stream().mapToLong(Long::longValue).min().orElse(0);
+                }
+            }
+        }
+    }
+}
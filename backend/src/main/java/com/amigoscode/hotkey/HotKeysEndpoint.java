@@ -0,0 +1,44 @@
+package com.amigoscode.hotkey;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@code /actuator/hotkeys} lists the most read and most updated customer ids for every
+ * configured window, {@code /actuator/hotkeys/reads} and {@code /actuator/hotkeys/updates}
+ * one of them.
+ */
+@Component
+@Endpoint(id = "hotkeys")
+public class HotKeysEndpoint {
+
+    private final CustomerHotKeys hotKeys;
+
+    public HotKeysEndpoint(CustomerHotKeys hotKeys) {
+        this.hotKeys = hotKeys;
+    }
+
+    @ReadOperation
+    public Map<String, List<HotKeyReport>> hotKeys() {
+        Map<String, List<HotKeyReport>> reports = new LinkedHashMap<>();
+        reports.put("reads", hotKeys.readReports());
+        reports.put("updates", hotKeys.updateReports());
+        return reports;
+    }
+
+    @ReadOperation
+    public List<HotKeyReport> hotKeys(@Selector String operation) {
+        return switch (operation) {
+            case "reads" -> hotKeys.readReports();
+            case "updates" -> hotKeys.updateReports();
+            //unknown operations answer 404
+            default -> null;
+        };
+    }
+}
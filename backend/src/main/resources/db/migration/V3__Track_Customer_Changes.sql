@@ -0,0 +1,46 @@
+-- GET /api/v1/customers?modifiedSince= returns what changed after a watermark. Rows carry the
+-- transaction that last wrote them; a transaction id is only used as a watermark once every
+-- transaction before it has finished, so a slow commit can't be skipped.
+ALTER TABLE customer
+    ADD COLUMN updated_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+    ADD COLUMN change_xid xid8 NOT NULL DEFAULT pg_current_xact_id();
+
+CREATE INDEX customer_change_xid_idx ON customer (change_xid);
+
+-- inserts get both from the defaults
+CREATE FUNCTION customer_track_update() RETURNS trigger AS $$
+BEGIN
+    NEW.updated_at := now();
+    NEW.change_xid := pg_current_xact_id();
+    RETURN NEW;
+END
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER customer_track_update
+    BEFORE UPDATE ON customer
+    FOR EACH ROW EXECUTE FUNCTION customer_track_update();
+
+-- ids of deleted customers, until customer.sync.tombstone-retention has passed
+CREATE TABLE customer_tombstone(
+    id BIGINT PRIMARY KEY,
+    deleted_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+    change_xid xid8 NOT NULL DEFAULT pg_current_xact_id()
+);
+
+CREATE INDEX customer_tombstone_change_xid_idx ON customer_tombstone (change_xid);
+CREATE INDEX customer_tombstone_deleted_at_idx ON customer_tombstone (deleted_at);
+
+-- once per statement, so deleting many customers is one insert
+CREATE FUNCTION customer_record_tombstones() RETURNS trigger AS $$
+BEGIN
+    INSERT INTO customer_tombstone (id)
+    SELECT id FROM deleted_customers
+    ON CONFLICT (id) DO UPDATE SET deleted_at = now(), change_xid = pg_current_xact_id();
+    RETURN NULL;
+END
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER customer_record_tombstones
+    AFTER DELETE ON customer
+    REFERENCING OLD TABLE AS deleted_customers
+    FOR EACH STATEMENT EXECUTE FUNCTION customer_record_tombstones();
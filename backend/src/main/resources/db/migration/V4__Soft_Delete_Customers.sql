@@ -0,0 +1,9 @@
+-- deletes only set deleted_at, CustomerPurger removes the rows later in small batches
+ALTER TABLE customer ADD COLUMN deleted_at TIMESTAMPTZ;
+
+-- only live customers need unique emails, a deleted customer's email can be registered again
+ALTER TABLE customer DROP CONSTRAINT customer_email_unique;
+CREATE UNIQUE INDEX customer_email_unique ON customer (email) WHERE deleted_at IS NULL;
+
+-- the purger's queue, empty while nothing waits to be purged
+CREATE INDEX customer_deleted_at_idx ON customer (deleted_at) WHERE deleted_at IS NOT NULL;
@@ -0,0 +1,12 @@
+-- the DAOs look emails up in customer_email; while customer isn't partitioned, see
+-- db/partitioning/V5__Partition_Customers.sql, that is a view answered by customer_email_unique
+DO $$
+BEGIN
+    IF to_regclass('customer_email') IS NULL THEN
+        CREATE VIEW customer_email AS
+        SELECT email, id AS customer_id
+        FROM customer
+        WHERE deleted_at IS NULL;
+    END IF;
+END
+$$;
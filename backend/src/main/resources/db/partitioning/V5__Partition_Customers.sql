@@ -0,0 +1,174 @@
+-- customer becomes partitioned by id range: vacuum and index maintenance work one range at a time,
+-- and cold ranges can be archived, see CustomerPartitionService. The existing table is attached
+-- as the first partition, nothing is copied. Only applied with customer.partitions.enabled, which
+-- adds this location to Flyway's, possibly after V6 and later migrations ran.
+
+-- a unique index on a partitioned table has to include the partition key, so live customers'
+-- emails are kept unique here instead, by the triggers below; the view V6 made stands in for this table
+DROP VIEW IF EXISTS customer_email;
+DROP INDEX customer_email_unique;
+
+CREATE TABLE customer_email(
+    email TEXT NOT NULL,
+    customer_id BIGINT NOT NULL,
+    CONSTRAINT customer_email_unique PRIMARY KEY (email)
+);
+
+INSERT INTO customer_email (email, customer_id)
+SELECT email, id FROM customer WHERE deleted_at IS NULL;
+
+-- a partition can't have triggers with transition tables, they move to the partitioned table
+DROP TRIGGER customer_track_update ON customer;
+DROP TRIGGER customer_record_tombstones ON customer;
+
+ALTER TABLE customer RENAME TO customer_p0;
+ALTER INDEX customer_pkey RENAME TO customer_p0_pkey;
+ALTER INDEX customer_change_xid_idx RENAME TO customer_p0_change_xid_idx;
+ALTER INDEX customer_deleted_at_idx RENAME TO customer_p0_deleted_at_idx;
+
+CREATE TABLE customer(
+    id BIGINT NOT NULL DEFAULT nextval('customer_id_seq'),
+    name TEXT NOT NULL,
+    email TEXT NOT NULL,
+    age INT NOT NULL,
+    updated_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+    change_xid xid8 NOT NULL DEFAULT pg_current_xact_id(),
+    deleted_at TIMESTAMPTZ,
+    CONSTRAINT customer_pkey PRIMARY KEY (id)
+) PARTITION BY RANGE (id);
+
+ALTER SEQUENCE customer_id_seq OWNED BY customer.id;
+ALTER TABLE customer_p0 ALTER COLUMN id DROP DEFAULT;
+
+-- customer_p0's own indexes match and are attached with it rather than built again
+CREATE INDEX customer_change_xid_idx ON customer (change_xid);
+CREATE INDEX customer_deleted_at_idx ON customer (deleted_at) WHERE deleted_at IS NOT NULL;
+
+-- one scan of customer_p0 to check its rows are in range, under the migration's lock
+DO $$
+BEGIN
+    EXECUTE format(
+            'ALTER TABLE customer ATTACH PARTITION customer_p0 FOR VALUES FROM (MINVALUE) TO (%s)',
+            (SELECT (greatest(max(id), (SELECT last_value FROM customer_id_seq), 0) / 1000000 + 1) * 1000000
+             FROM customer_p0)
+    );
+END
+$$;
+
+CREATE TRIGGER customer_track_update
+    BEFORE UPDATE ON customer
+    FOR EACH ROW EXECUTE FUNCTION customer_track_update();
+
+CREATE TRIGGER customer_record_tombstones
+    AFTER DELETE ON customer
+    REFERENCING OLD TABLE AS deleted_customers
+    FOR EACH STATEMENT EXECUTE FUNCTION customer_record_tombstones();
+
+-- once per statement like the tombstones, soft deleted customers give up their email
+CREATE FUNCTION customer_email_insert() RETURNS trigger AS $$
+BEGIN
+    INSERT INTO customer_email (email, customer_id)
+    SELECT email, id FROM new_customers WHERE deleted_at IS NULL;
+    RETURN NULL;
+END
+$$ LANGUAGE plpgsql;
+
+CREATE FUNCTION customer_email_delete() RETURNS trigger AS $$
+BEGIN
+    DELETE FROM customer_email e
+    USING old_customers o
+    WHERE e.email = o.email AND e.customer_id = o.id;
+    RETURN NULL;
+END
+$$ LANGUAGE plpgsql;
+
+-- row by row, as a transition table would be filled for every update of a name or age too
+CREATE FUNCTION customer_email_update() RETURNS trigger AS $$
+BEGIN
+    IF OLD.deleted_at IS NULL THEN
+        DELETE FROM customer_email WHERE email = OLD.email AND customer_id = OLD.id;
+    END IF;
+    IF NEW.deleted_at IS NULL THEN
+        INSERT INTO customer_email (email, customer_id) VALUES (NEW.email, NEW.id);
+    END IF;
+    RETURN NULL;
+END
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER customer_email_insert
+    AFTER INSERT ON customer
+    REFERENCING NEW TABLE AS new_customers
+    FOR EACH STATEMENT EXECUTE FUNCTION customer_email_insert();
+
+CREATE TRIGGER customer_email_delete
+    AFTER DELETE ON customer
+    REFERENCING OLD TABLE AS old_customers
+    FOR EACH STATEMENT EXECUTE FUNCTION customer_email_delete();
+
+CREATE TRIGGER customer_email_update
+    AFTER UPDATE OF email, deleted_at ON customer
+    FOR EACH ROW
+    WHEN (OLD.email IS DISTINCT FROM NEW.email OR OLD.deleted_at IS DISTINCT FROM NEW.deleted_at)
+    EXECUTE FUNCTION customer_email_update();
+
+-- from_id is null for customer_p0, which starts at MINVALUE
+CREATE VIEW customer_partitions AS
+SELECT c.relname AS name,
+       substring(pg_get_expr(c.relpartbound, c.oid) FROM 'FROM \(''?(\d+)''?\)')::bigint AS from_id,
+       substring(pg_get_expr(c.relpartbound, c.oid) FROM 'TO \(''?(\d+)''?\)')::bigint AS to_id,
+       greatest(c.reltuples, 0)::bigint AS estimated_rows,
+       pg_total_relation_size(c.oid) AS bytes
+FROM pg_inherits i
+JOIN pg_class c ON c.oid = i.inhrelid
+WHERE i.inhparent = 'customer'::regclass;
+
+-- inserts fail once ids pass the last partition, so there are always ahead partitions past the
+-- sequence; returns how many were created
+CREATE FUNCTION customer_add_partitions(size BIGINT, ahead INT) RETURNS INT AS $$
+DECLARE
+    upper_id BIGINT := (SELECT max(to_id) FROM customer_partitions);
+    next_id BIGINT := (SELECT last_value FROM customer_id_seq);
+    added INT := 0;
+BEGIN
+    WHILE upper_id <= next_id + ahead * size LOOP
+        EXECUTE format(
+                'CREATE TABLE %I PARTITION OF customer FOR VALUES FROM (%s) TO (%s)',
+                'customer_p' || upper_id, upper_id, upper_id + size
+        );
+        upper_id := upper_id + size;
+        added := added + 1;
+    END LOOP;
+    RETURN added;
+END
+$$ LANGUAGE plpgsql;
+
+SELECT customer_add_partitions(1000000, 2);
+
+-- detached partitions are kept here, out of the application's way
+CREATE SCHEMA customer_archive;
+
+-- after ALTER TABLE customer DETACH PARTITION ... CONCURRENTLY, which can't run in a function:
+-- frees the emails of its customers, tombstones them for modifiedSince and moves the table to
+-- customer_archive; returns how many customers it had
+CREATE FUNCTION customer_archive_partition(partition_name TEXT) RETURNS BIGINT AS $$
+DECLARE
+    archived BIGINT;
+BEGIN
+    IF EXISTS (SELECT FROM pg_inherits WHERE inhrelid = partition_name::regclass) THEN
+        RAISE EXCEPTION 'partition % is still attached to customer', partition_name;
+    END IF;
+
+    EXECUTE format(
+            'DELETE FROM customer_email e USING %I c WHERE e.email = c.email AND e.customer_id = c.id',
+            partition_name
+    );
+    EXECUTE format(
+            'INSERT INTO customer_tombstone (id) SELECT id FROM %I
+             ON CONFLICT (id) DO UPDATE SET deleted_at = now(), change_xid = pg_current_xact_id()',
+            partition_name
+    );
+    GET DIAGNOSTICS archived = ROW_COUNT;
+    EXECUTE format('ALTER TABLE %I SET SCHEMA customer_archive', partition_name);
+    RETURN archived;
+END
+$$ LANGUAGE plpgsql;
@@ -0,0 +1,151 @@
+package com.amigoscode.concurrency;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConcurrencyLimitFilterTest {
+
+    @Test
+    void limitShrinksOnSlowRequestsAndGrowsBackWhenFast() {
+        AdaptiveConcurrencyLimiter underTest = new AdaptiveConcurrencyLimiter(
+                10, 2, 20, Duration.ofMillis(100), 0.5
+        );
+
+        int inFlight = underTest.tryAcquire();
+        underTest.release(inFlight, Duration.ofMillis(500).toNanos(), false);
+        assertThat(underTest.getLimit()).isEqualTo(5);
+
+        for (int i = 0; i < 50; i++) {
+            underTest.release(5, Duration.ofMillis(10).toNanos(), false);
+        }
+        assertThat(underTest.getLimit()).isGreaterThan(5);
+    }
+
+    @Test
+    void limitNeverDropsBelowMinimum() {
+        AdaptiveConcurrencyLimiter underTest = new AdaptiveConcurrencyLimiter(
+                4, 2, 20, Duration.ofMillis(100), 0.5
+        );
+
+        for (int i = 0; i < 10; i++) {
+            underTest.release(underTest.tryAcquire(), 0, true);
+        }
+
+        assertThat(underTest.getLimit()).isEqualTo(2);
+        assertThat(underTest.getInFlight()).isZero();
+    }
+
+    @Test
+    void rejectsWithRetryAfterWhenReadBudgetIsUsedUp() throws Exception {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        var budget = new ConcurrencyLimitProperties.Budget(1, 1, 1, Duration.ofSeconds(1), 0.9);
+        var underTest = new ConcurrencyLimitFilter(
+                new ConcurrencyLimitProperties(true, Duration.ofSeconds(2), budget, budget),
+                meterRegistry
+        );
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        MockHttpServletResponse write = new MockHttpServletResponse();
+
+        //the first read is still in flight while the others arrive
+        underTest.doFilter(new MockHttpServletRequest("GET", "/api/v1/customers"), new MockHttpServletResponse(),
+                (request, response) -> {
+                    underTest.doFilter(new MockHttpServletRequest("GET", "/api/v1/customers/1"), rejected,
+                            new MockFilterChain());
+                    underTest.doFilter(new MockHttpServletRequest("POST", "/api/v1/customers"), write,
+                            new MockFilterChain());
+                });
+
+        assertThat(rejected.getStatus()).isEqualTo(503);
+        assertThat(rejected.getHeader("Retry-After")).isEqualTo("2");
+        assertThat(write.getStatus()).isEqualTo(200);
+        assertThat(meterRegistry.counter("customer.concurrency.rejected", "type", "read").count()).isEqualTo(1);
+    }
+
+    @Test
+    void slowReadsOfEveryCustomerDoNotShrinkTheReadLimit() throws Exception {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        var budget = new ConcurrencyLimitProperties.Budget(10, 2, 20, Duration.ofMillis(1), 0.5);
+        var underTest = new ConcurrencyLimitFilter(
+                new ConcurrencyLimitProperties(true, Duration.ofSeconds(1), budget, budget),
+                meterRegistry
+        );
+        FilterChain slow = (request, response) -> sleep(5);
+
+        underTest.doFilter(new MockHttpServletRequest("GET", "/api/v1/customers"), new MockHttpServletResponse(), slow);
+        underTest.doFilter(new MockHttpServletRequest("GET", "/api/v1/customers/changes"), new MockHttpServletResponse(), slow);
+        assertThat(readLimit(meterRegistry)).isEqualTo(10);
+
+        MockHttpServletRequest byIds = new MockHttpServletRequest("GET", "/api/v1/customers");
+        byIds.setParameter("ids", "1,2");
+        underTest.doFilter(byIds, new MockHttpServletResponse(), slow);
+        assertThat(readLimit(meterRegistry)).isEqualTo(5);
+
+        underTest.doFilter(new MockHttpServletRequest("GET", "/api/v1/customers/1"), new MockHttpServletResponse(), slow);
+        assertThat(readLimit(meterRegistry)).isEqualTo(2);
+    }
+
+    @Test
+    void onlyTheLookupPostCountsAsRead() throws Exception {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        var budget = new ConcurrencyLimitProperties.Budget(10, 2, 20, Duration.ofMillis(1), 0.5);
+        var underTest = new ConcurrencyLimitFilter(
+                new ConcurrencyLimitProperties(true, Duration.ofSeconds(1), budget, budget),
+                meterRegistry
+        );
+        FilterChain slow = (request, response) -> sleep(5);
+
+        underTest.doFilter(new MockHttpServletRequest("POST", "/api/v1/customers/1/lookup"), new MockHttpServletResponse(), slow);
+        assertThat(readLimit(meterRegistry)).isEqualTo(10);
+
+        underTest.doFilter(new MockHttpServletRequest("POST", "/api/v1/customers/lookup"), new MockHttpServletResponse(), slow);
+        assertThat(readLimit(meterRegistry)).isEqualTo(5);
+    }
+
+    @Test
+    void slowExactCountsAndOperationsDoNotShrinkTheLimits() throws Exception {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        var budget = new ConcurrencyLimitProperties.Budget(10, 2, 20, Duration.ofMillis(1), 0.5);
+        var underTest = new ConcurrencyLimitFilter(
+                new ConcurrencyLimitProperties(true, Duration.ofSeconds(1), budget, budget),
+                meterRegistry
+        );
+        FilterChain slow = (request, response) -> sleep(5);
+
+        MockHttpServletRequest exactCount = new MockHttpServletRequest("GET", "/api/v1/customers/count");
+        exactCount.setParameter("exact", "true");
+        underTest.doFilter(exactCount, new MockHttpServletResponse(), slow);
+        underTest.doFilter(new MockHttpServletRequest("POST", "/api/v1/customers/operations"), new MockHttpServletResponse(), slow);
+        assertThat(readLimit(meterRegistry)).isEqualTo(10);
+        assertThat(writeLimit(meterRegistry)).isEqualTo(10);
+
+        underTest.doFilter(new MockHttpServletRequest("GET", "/api/v1/customers/count"), new MockHttpServletResponse(), slow);
+        underTest.doFilter(new MockHttpServletRequest("POST", "/api/v1/customers"), new MockHttpServletResponse(), slow);
+        assertThat(readLimit(meterRegistry)).isEqualTo(5);
+        assertThat(writeLimit(meterRegistry)).isEqualTo(5);
+    }
+
+    private static double readLimit(MeterRegistry meterRegistry) {
+        return meterRegistry.get("customer.concurrency.limit").tag("type", "read").gauge().value();
+    }
+
+    private static double writeLimit(MeterRegistry meterRegistry) {
+        return meterRegistry.get("customer.concurrency.limit").tag("type", "write").gauge().value();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.amigoscode.customer;
+
+import com.amigoscode.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BatchingCustomerDAOTest {
+
+    private ExecutorService executor;
+    @Mock private CustomerDAO customerDAO;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void fullBatchIsLoadedWithOneQuery() throws Exception {
+        //a long window, so only the batch size can trigger the load
+        BatchingCustomerDAO underTest = batching(Duration.ofSeconds(30), 4);
+        when(customerDAO.selectCustomersByIDs(anyCollection())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            return ids.stream().filter(id -> id != 3L).map(BatchingCustomerDAOTest::customer).toList();
+        });
+
+        List<Future<Optional<Customer>>> results = new ArrayList<>();
+        for (long id = 1; id <= 4; id++) {
+            long customerId = id;
+            results.add(executor.submit(() -> underTest.selectCustomerByID(customerId)));
+        }
+
+        assertThat(results.get(0).get()).hasValue(customer(1L));
+        assertThat(results.get(1).get()).hasValue(customer(2L));
+        assertThat(results.get(2).get()).isEmpty();
+        assertThat(results.get(3).get()).hasValue(customer(4L));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<Long>> ids = ArgumentCaptor.forClass(Collection.class);
+        verify(customerDAO, times(1)).selectCustomersByIDs(ids.capture());
+        assertThat(ids.getValue()).containsExactlyInAnyOrder(1L, 2L, 3L, 4L);
+    }
+
+    @Test
+    void partialBatchIsLoadedWhenWindowCloses() {
+        BatchingCustomerDAO underTest = batching(Duration.ofMillis(5), 100);
+        when(customerDAO.selectCustomersByIDs(anyCollection())).thenReturn(List.of(customer(1L)));
+
+        assertThat(underTest.selectCustomerByID(1L)).hasValue(customer(1L));
+    }
+
+    @Test
+    void failureCompletesEveryCallerInBatch() {
+        BatchingCustomerDAO underTest = batching(Duration.ofMillis(5), 100);
+        when(customerDAO.selectCustomersByIDs(anyCollection())).thenThrow(new IllegalStateException("db down"));
+
+        assertThatThrownBy(() -> underTest.selectCustomerByID(1L))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("db down");
+    }
+
+    @Test
+    void shutdownFailsWaitingLookupsAndLaterOnesGoStraightToDelegate() throws Exception {
+        BatchingCustomerDAO underTest = batching(Duration.ofSeconds(30), 100);
+        when(customerDAO.selectCustomerByID(2L)).thenReturn(Optional.of(customer(2L)));
+
+        Future<Optional<Customer>> waiting = executor.submit(() -> underTest.selectCustomerByID(1L));
+        Thread.sleep(50);
+        underTest.close();
+
+        assertThatThrownBy(waiting::get).hasCauseInstanceOf(ServiceUnavailableException.class);
+        assertThat(underTest.selectCustomerByID(2L)).hasValue(customer(2L));
+        verify(customerDAO, never()).selectCustomersByIDs(anyCollection());
+    }
+
+    @Test
+    void lookupInsideTransactionIsNotBatched() {
+        BatchingCustomerDAO underTest = batching(Duration.ofSeconds(30), 100);
+        when(customerDAO.selectCustomerByID(1L)).thenReturn(Optional.of(customer(1L)));
+
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            assertThat(underTest.selectCustomerByID(1L)).hasValue(customer(1L));
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+        verify(customerDAO, never()).selectCustomersByIDs(anyCollection());
+        underTest.close();
+    }
+
+    private BatchingCustomerDAO batching(Duration window, int maxBatchSize) {
+        return new BatchingCustomerDAO(
+                customerDAO, window, maxBatchSize, Duration.ofSeconds(5), 1, new SimpleMeterRegistry()
+        );
+    }
+
+    private static Customer customer(Long id) {
+        return new Customer(id, 20, "customer" + id, "customer" + id + "@gmail.com");
+    }
+}
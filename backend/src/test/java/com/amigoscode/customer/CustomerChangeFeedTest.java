@@ -0,0 +1,175 @@
+package com.amigoscode.customer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class CustomerChangeFeedTest {
+
+    private final CustomerDAO customerDAO = mock(CustomerDAO.class);
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private CustomerChangeFeed underTest;
+
+    @AfterEach
+    void tearDown() {
+        underTest.stop();
+    }
+
+    @Test
+    void newSubscriberIsSyncedThenGetsLiveChanges() throws Exception {
+        underTest = feed(10, 10);
+        RecordingEmitter emitter = new RecordingEmitter();
+
+        underTest.subscribe(null, false, emitter);
+        String synced = emitter.next();
+        underTest.onCustomerChanged(new CustomerChangedEvent(
+                CustomerChangedEvent.Type.CREATED, List.of(new Customer(1L, 20, "alex", "alex@"))
+        ));
+        underTest.onCustomerChanged(CustomerChangedEvent.deleted(List.of(1L)));
+
+        assertThat(synced).matches("id:\\w+:0\nevent:synced\ndata:\\{\"sequence\":0}\n\n");
+        assertThat(emitter.next()).endsWith(":1\nevent:created\ndata:{\"id\":1,\"name\":\"alex\",\"email\":\"alex@\",\"age\":20}\n\n");
+        assertThat(emitter.next()).endsWith(":2\nevent:deleted\ndata:{\"id\":1}\n\n");
+    }
+
+    @Test
+    void resumesAfterLastEventIdFromTheRing() throws Exception {
+        underTest = feed(10, 10);
+        RecordingEmitter first = new RecordingEmitter();
+        underTest.subscribe(null, false, first);
+        String epoch = first.next().split(":")[1];
+        underTest.onCustomerChanged(new CustomerChangedEvent(CustomerChangedEvent.Type.UPDATED, List.of(
+                new Customer(1L, 20, "alex", "alex@"),
+                new Customer(2L, 21, "maria", "maria@"),
+                new Customer(3L, 22, "jamila", "jamila@")
+        )));
+
+        RecordingEmitter resumed = new RecordingEmitter();
+        underTest.subscribe(epoch + ":1", false, resumed);
+
+        assertThat(resumed.next()).startsWith("id:" + epoch + ":2\nevent:updated").contains("maria@");
+        assertThat(resumed.next()).startsWith("id:" + epoch + ":3\nevent:updated").contains("jamila@");
+        assertThat(resumed.next()).startsWith("id:" + epoch + ":3\nevent:synced");
+        verifyNoInteractions(customerDAO);
+    }
+
+    @Test
+    void resetsWithSnapshotWhenChangesAreNoLongerRetained() throws Exception {
+        underTest = feed(2, 10);
+        underTest.onCustomerChanged(CustomerChangedEvent.deleted(List.of(7L, 8L, 9L)));
+        when(customerDAO.selectAllCustomers()).thenReturn(List.of(new Customer(1L, 20, "alex", "alex@")));
+
+        RecordingEmitter emitter = new RecordingEmitter();
+        underTest.subscribe("0:1", false, emitter);
+
+        assertThat(emitter.next()).isEqualTo("event:reset\ndata:{\"reason\":\"event [0:1] is no longer retained\"}\n\n");
+        assertThat(emitter.next()).isEqualTo("event:snapshot\ndata:{\"id\":1,\"name\":\"alex\",\"email\":\"alex@\",\"age\":20}\n\n");
+        assertThat(emitter.next()).contains(":3\nevent:synced");
+    }
+
+    @Test
+    void resetsWhenLastEventIdIsFromAnotherInstance() throws Exception {
+        CustomerChangeFeed other = feed(10, 10);
+        RecordingEmitter elsewhere = new RecordingEmitter();
+        other.subscribe(null, false, elsewhere);
+        String otherEpoch = elsewhere.next().split(":")[1];
+        other.stop();
+
+        underTest = feed(10, 10);
+        //the same sequence exists here, but stands for a different change
+        underTest.onCustomerChanged(CustomerChangedEvent.deleted(List.of(7L, 8L)));
+        when(customerDAO.selectAllCustomers()).thenReturn(List.of(new Customer(1L, 20, "alex", "alex@")));
+
+        RecordingEmitter emitter = new RecordingEmitter();
+        underTest.subscribe(otherEpoch + ":1", false, emitter);
+
+        assertThat(emitter.next()).startsWith("event:reset");
+        assertThat(emitter.next()).startsWith("event:snapshot");
+        assertThat(emitter.next()).contains(":2\nevent:synced");
+    }
+
+    @Test
+    void evictsSubscriberThatFallsBehind() throws Exception {
+        underTest = feed(10, 2);
+        CountDownLatch unblock = new CountDownLatch(1);
+        RecordingEmitter slow = new RecordingEmitter() {
+            @Override
+            public void send(SseEventBuilder builder) throws IOException {
+                super.send(builder);
+                try {
+                    unblock.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        RecordingEmitter fast = new RecordingEmitter();
+        underTest.subscribe(null, false, slow);
+        underTest.subscribe(null, false, fast);
+        slow.next();
+        fast.next();
+
+        for (long id = 1; id <= 4; id++) {
+            underTest.onCustomerChanged(CustomerChangedEvent.deleted(List.of(id)));
+            assertThat(fast.next()).contains(":" + id + "\nevent:deleted");
+        }
+
+        assertThat(slow.completed.await(5, TimeUnit.SECONDS)).isTrue();
+        unblock.countDown();
+        assertThat(meterRegistry.get("customer.change.feed.evicted").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("customer.change.feed.subscribers").gauge().value()).isEqualTo(1);
+    }
+
+    private CustomerChangeFeed feed(int capacity, int maxPending) {
+        CustomerChangeFeed feed = new CustomerChangeFeed(
+                customerDAO,
+                new CustomerChangeFeedProperties(true, capacity, maxPending, 10, Duration.ofMinutes(1), Duration.ofMinutes(1)),
+                meterRegistry
+        );
+        feed.start();
+        return feed;
+    }
+
+    //renders what would go over the wire, one string per event
+    private static class RecordingEmitter extends SseEmitter {
+
+        private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+        private final BlockingQueue<String> events = new LinkedBlockingQueue<>();
+        final CountDownLatch completed = new CountDownLatch(1);
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            StringBuilder event = new StringBuilder();
+            for (DataWithMediaType data : builder.build()) {
+                event.append(data.getData() instanceof String text ? text : OBJECT_MAPPER.writeValueAsString(data.getData()));
+            }
+            events.add(event.toString());
+        }
+
+        @Override
+        public void complete() {
+            completed.countDown();
+        }
+
+        String next() throws InterruptedException {
+            String event = events.poll(5, TimeUnit.SECONDS);
+            assertThat(event).as("an event within 5s").isNotNull();
+            return event;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.amigoscode.customer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CustomerCountServiceTest {
+
+    private CustomerCountService underTest;
+    @Mock private CustomerDAO customerDAO;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new CustomerCountService(customerDAO, new CustomerCountProperties(Duration.ofMinutes(1)));
+    }
+
+    @Test
+    void countsExactlyOnRequest() {
+        when(customerDAO.countCustomers()).thenReturn(42L);
+
+        CustomerCount actual = underTest.countCustomers(true);
+
+        assertThat(actual.count()).isEqualTo(42);
+        assertThat(actual.exact()).isTrue();
+        verify(customerDAO, never()).estimateCustomers();
+    }
+
+    @Test
+    void estimatesWhenNotExact() {
+        when(customerDAO.estimateCustomers()).thenReturn(40L);
+
+        CustomerCount actual = underTest.countCustomers(false);
+
+        assertThat(actual.count()).isEqualTo(40);
+        assertThat(actual.exact()).isFalse();
+        verify(customerDAO, never()).countCustomers();
+    }
+
+    @Test
+    void answersFromTheLastBackgroundCount() {
+        when(customerDAO.countCustomers()).thenReturn(42L, 43L);
+        underTest.refresh();
+
+        CustomerCount first = underTest.countCustomers(null);
+        CustomerCount second = underTest.countCustomers(null);
+
+        assertThat(first).isSameAs(second);
+        assertThat(first.count()).isEqualTo(42);
+        assertThat(first.exact()).isTrue();
+        verify(customerDAO, times(1)).countCustomers();
+    }
+
+    @Test
+    void estimatesUntilTheFirstBackgroundCount() {
+        when(customerDAO.estimateCustomers()).thenReturn(40L);
+
+        CustomerCount actual = underTest.countCustomers(null);
+
+        assertThat(actual.count()).isEqualTo(40);
+        assertThat(actual.exact()).isFalse();
+    }
+}
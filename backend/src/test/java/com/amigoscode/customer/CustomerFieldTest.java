@@ -0,0 +1,37 @@
+package com.amigoscode.customer;
+
+import com.amigoscode.exception.RequestValidationException;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CustomerFieldTest {
+
+    @Test
+    void parsesCommaSeparatedFields() {
+        assertThat(CustomerField.parse("email, id,email")).containsExactly(CustomerField.ID, CustomerField.EMAIL);
+        assertThat(CustomerField.parse(null)).isEqualTo(CustomerField.ALL);
+    }
+
+    @Test
+    void rejectsUnknownFields() {
+        assertThatThrownBy(() -> CustomerField.parse("id,password"))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessageContaining("[password]");
+        assertThatThrownBy(() -> CustomerField.parse(""))
+                .isInstanceOf(RequestValidationException.class);
+    }
+
+    @Test
+    void projectsWholeCustomers() {
+        Customer alex = new Customer(1L, 21, "Alex", "alex@amigoscode.com");
+
+        assertThat(CustomerField.project(List.of(alex), EnumSet.of(CustomerField.NAME)))
+                .containsExactly(new Customer(null, null, "Alex", null));
+        assertThat(CustomerField.project(alex, CustomerField.ALL)).isSameAs(alex);
+    }
+}
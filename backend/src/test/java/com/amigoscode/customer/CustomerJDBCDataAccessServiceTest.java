@@ -4,8 +4,10 @@ import com.amigoscode.AbstractTestcontainers;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -66,6 +68,48 @@ class CustomerJDBCDataAccessServiceTest extends AbstractTestcontainers {
         });
     }
 
+    @Test
+    void selectCustomerByIDWithFieldsReadsOnlyThoseColumns() {
+        String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        underTest.insertCustomer(new Customer(20, FAKER.name().fullName(), email));
+        Long id = underTest.selectAllCustomers(EnumSet.of(CustomerField.ID, CustomerField.EMAIL))
+                .stream()
+                .filter(c -> c.getEmail().equals(email))
+                .map(Customer::getId)
+                .findFirst()
+                .orElseThrow();
+
+        Optional<Customer> actual = underTest.selectCustomerByID(id, EnumSet.of(CustomerField.AGE));
+
+        assertThat(actual).contains(new Customer(null, 20, null, null));
+    }
+
+    @Test
+    void selectCustomersByIDs() {
+        String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        Customer customer = new Customer(
+                20,
+                FAKER.name().fullName(),
+                email
+        );
+
+        underTest.insertCustomer(customer);
+
+        Long id = underTest.selectAllCustomers()
+                .stream()
+                .filter(c -> c.getEmail().equals(email))
+                .map(Customer::getId)
+                .findFirst()
+                .orElseThrow();
+
+        List<Customer> actual = underTest.selectCustomersByIDs(List.of(id, 0L));
+
+        assertThat(actual).hasSize(1).first().satisfies(c -> {
+            assertThat(c.getId()).isEqualTo(id);
+            assertThat(c.getEmail()).isEqualTo(email);
+        });
+    }
+
     @Test
     void willReturnEmptyWhenSelectCustomerById() {
         Long id = 0L;
@@ -96,6 +140,18 @@ class CustomerJDBCDataAccessServiceTest extends AbstractTestcontainers {
         assertThat(actual).isFalse();
     }
 
+    @Test
+    void selectExistingEmails() {
+        String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        String unknown = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        underTest.insertCustomer(new Customer(20, FAKER.name().fullName(), email));
+
+        Set<String> actual = underTest.selectExistingEmails(List.of(email, unknown));
+
+        assertThat(actual).containsExactly(email);
+        assertThat(underTest.selectExistingEmails(List.of())).isEmpty();
+    }
+
     @Test
     void deleteCustomerById() {
         String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
@@ -316,4 +372,111 @@ class CustomerJDBCDataAccessServiceTest extends AbstractTestcontainers {
             assertThat(c.getAge()).isEqualTo(customer.getAge());
         });
     }
-}
\ No newline at end of file
+
+    @Test
+    void insertCustomersSetsGeneratedIds() {
+        Customer first = new Customer(20, FAKER.name().fullName(), FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID());
+        Customer second = new Customer(30, FAKER.name().fullName(), FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID());
+        Customer single = new Customer(40, FAKER.name().fullName(), FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID());
+
+        underTest.insertCustomers(List.of(first, second));
+        underTest.insertCustomer(single);
+
+        for (Customer customer : List.of(first, second, single)) {
+            assertThat(underTest.selectCustomerByID(customer.getId()))
+                    .hasValueSatisfying(c -> assertThat(c.getEmail()).isEqualTo(customer.getEmail()));
+        }
+    }
+
+    @Test
+    void updateCustomers() {
+        String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        String otherEmail = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        underTest.insertCustomers(List.of(
+                new Customer(20, FAKER.name().fullName(), email),
+                new Customer(30, FAKER.name().fullName(), otherEmail)
+        ));
+
+        List<Customer> inserted = underTest.selectAllCustomers()
+                .stream()
+                .filter(c -> c.getEmail().equals(email) || c.getEmail().equals(otherEmail))
+                .toList();
+        Customer first = new Customer();
+        first.setId(inserted.get(0).getId());
+        first.setName("renamed");
+        Customer second = new Customer();
+        second.setId(inserted.get(1).getId());
+        second.setAge(99);
+
+        underTest.updateCustomers(List.of(first, second));
+
+        assertThat(underTest.selectCustomerByID(first.getId())).hasValueSatisfying(c -> {
+            assertThat(c.getName()).isEqualTo("renamed");
+            assertThat(c.getAge()).isEqualTo(inserted.get(0).getAge());
+        });
+        assertThat(underTest.selectCustomerByID(second.getId())).hasValueSatisfying(c -> {
+            assertThat(c.getName()).isEqualTo(inserted.get(1).getName());
+            assertThat(c.getAge()).isEqualTo(99);
+        });
+    }
+
+    @Test
+    void deleteCustomersByIds() {
+        String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        underTest.insertCustomer(new Customer(20, FAKER.name().fullName(), email));
+
+        Long id = underTest.selectAllCustomers()
+                .stream()
+                .filter(c -> c.getEmail().equals(email))
+                .map(Customer::getId)
+                .findFirst()
+                .orElseThrow();
+
+        underTest.deleteCustomersByIds(List.of(id, 0L));
+
+        assertThat(underTest.selectCustomerByID(id)).isEmpty();
+    }
+
+    @Test
+    void deletedCustomersEmailCanBeReused() {
+        String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        Customer deleted = new Customer(20, FAKER.name().fullName(), email);
+        underTest.insertCustomer(deleted);
+
+        underTest.deleteCustomerById(deleted.getId());
+        assertThat(underTest.existsPersonWithEmail(email)).isFalse();
+        assertThat(underTest.existsPersonWithId(deleted.getId())).isFalse();
+
+        Customer customer = new Customer(30, FAKER.name().fullName(), email);
+        underTest.insertCustomer(customer);
+
+        assertThat(underTest.selectCustomerByID(customer.getId())).contains(customer);
+        assertThat(underTest.selectCustomerByID(deleted.getId())).isEmpty();
+    }
+
+    @Test
+    void countCustomers() {
+        long before = underTest.countCustomers();
+        underTest.insertCustomer(new Customer(
+                20,
+                FAKER.name().fullName(),
+                FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID()
+        ));
+
+        assertThat(underTest.countCustomers()).isEqualTo(before + 1);
+    }
+
+    @Test
+    void estimateCustomersAfterAnalyze() {
+        underTest.insertCustomer(new Customer(
+                20,
+                FAKER.name().fullName(),
+                FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID()
+        ));
+        getJdbcTemplate().execute("ANALYZE customer");
+
+        //soft deleted customers are estimated until they are purged
+        assertThat(underTest.estimateCustomers())
+                .isEqualTo(getJdbcTemplate().queryForObject("SELECT count(*) FROM customer", Long.class));
+    }
+}
@@ -1,11 +1,22 @@
 package com.amigoscode.customer;
 
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 class CustomerJPADataAccessServiceTest {
 
@@ -13,12 +24,13 @@ class CustomerJPADataAccessServiceTest {
     private AutoCloseable autoCloseable;
     @Mock
     private CustomerRepository customerRepository;
-
+    @Mock
+    private EntityManager entityManager;
 
     @BeforeEach
     void setUp() {
         autoCloseable = MockitoAnnotations.openMocks(this);
-        underTest = new CustomerJPADataAccessService(customerRepository);
+        underTest = new CustomerJPADataAccessService(customerRepository, entityManager);
     }
 
     @AfterEach
@@ -29,7 +41,7 @@ class CustomerJPADataAccessServiceTest {
     @Test
     void selectAllCustomers() {
         underTest.selectAllCustomers();
-        verify(customerRepository).findAll();
+        verify(customerRepository).findAllUnmanaged();
     }
 
     @Test
@@ -39,6 +51,29 @@ class CustomerJPADataAccessServiceTest {
         verify(customerRepository).findById(id);
     }
 
+    @Test
+    void selectAllCustomersWithFieldsSelectsOnlyThoseColumns() {
+        @SuppressWarnings("unchecked")
+        TypedQuery<Tuple> query = mock(TypedQuery.class);
+        Tuple tuple = mock(Tuple.class);
+        when(entityManager.createQuery("SELECT c.id AS id, c.email AS email FROM Customer c", Tuple.class))
+                .thenReturn(query);
+        when(query.getResultStream()).thenReturn(Stream.of(tuple));
+        when(tuple.get("id")).thenReturn(1L);
+        when(tuple.get("email")).thenReturn("mar@");
+
+        List<Customer> actual = underTest.selectAllCustomers(EnumSet.of(CustomerField.ID, CustomerField.EMAIL));
+
+        assertThat(actual).containsExactly(new Customer(1L, null, null, "mar@"));
+    }
+
+    @Test
+    void selectCustomersByIDs() {
+        List<Long> ids = List.of(1L, 2L);
+        underTest.selectCustomersByIDs(ids);
+        verify(customerRepository).findAllUnmanagedById(ids);
+    }
+
     @Test
     void insertCustomer() {
         Customer insertCustomer = new Customer(1L,11,"maria","mar@");
@@ -73,4 +108,30 @@ class CustomerJPADataAccessServiceTest {
         underTest.updateCustomerById(updateCustomer);
         verify(customerRepository).save(updateCustomer);
     }
-}
\ No newline at end of file
+
+    @Test
+    void updateCustomers() {
+        List<Customer> updates = List.of(new Customer(1L,11,"maria","mar@"));
+        underTest.updateCustomers(updates);
+        verify(customerRepository).saveAll(updates);
+    }
+
+    @Test
+    void deleteCustomersByIds() {
+        List<Long> ids = List.of(1L, 2L);
+        underTest.deleteCustomersByIds(ids);
+        verify(customerRepository).softDeleteAllById(ids);
+    }
+
+    @Test
+    void countCustomers() {
+        underTest.countCustomers();
+        verify(customerRepository).count();
+    }
+
+    @Test
+    void estimateCustomers() {
+        underTest.estimateCustomers();
+        verify(customerRepository).estimateCustomers();
+    }
+}
@@ -0,0 +1,207 @@
+package com.amigoscode.customer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CustomerLogStoreTest {
+
+    @TempDir
+    Path directory;
+
+    private final List<CustomerLogStore> opened = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() throws IOException {
+        for (CustomerLogStore store : opened) {
+            store.close();
+        }
+    }
+
+    @Test
+    void assignsIdsAndReadsBackWhatWasWritten() {
+        CustomerLogStore underTest = open(1 << 20);
+
+        underTest.insert(List.of(
+                new Customer(21, "Alex", "alex@amigoscode.com"),
+                new Customer(19, "Zoë Łukasiewicz", "zoe@amigoscode.com")
+        ));
+
+        assertThat(underTest.get(1L)).contains(new Customer(1L, 21, "Alex", "alex@amigoscode.com"));
+        assertThat(underTest.get(2L)).contains(new Customer(2L, 19, "Zoë Łukasiewicz", "zoe@amigoscode.com"));
+        assertThat(underTest.get(3L)).isEmpty();
+        assertThat(underTest.containsEmail("zoe@amigoscode.com")).isTrue();
+        assertThat(underTest.size()).isEqualTo(2);
+    }
+
+    @Test
+    void recoversAfterCrashByReplayingTheSegments() {
+        CustomerLogStore crashed = open(1 << 20);
+        crashed.insert(List.of(
+                new Customer(21, "Alex", "alex@amigoscode.com"),
+                new Customer(19, "Jamila", "jamila@amigoscode.com"),
+                new Customer(30, "Ali", "ali@amigoscode.com")
+        ));
+        crashed.update(List.of(new Customer(1L, 22, null, "alex@gmail.com")));
+        crashed.delete(List.of(2L));
+
+        CustomerLogStore underTest = open(1 << 20);
+
+        assertThat(underTest.get(1L)).contains(new Customer(1L, 22, "Alex", "alex@gmail.com"));
+        assertThat(underTest.get(2L)).isEmpty();
+        assertThat(underTest.containsEmail("alex@amigoscode.com")).isFalse();
+        assertThat(underTest.containsEmail("jamila@amigoscode.com")).isFalse();
+        assertThat(underTest.size()).isEqualTo(2);
+    }
+
+    @Test
+    void recoversFromCheckpointAndReplaysWritesAfterIt() throws IOException {
+        CustomerLogStore crashed = open(1 << 20);
+        crashed.insert(List.of(new Customer(21, "Alex", "alex@amigoscode.com")));
+        crashed.checkpoint();
+        crashed.insert(List.of(new Customer(19, "Jamila", "jamila@amigoscode.com")));
+        crashed.delete(List.of(1L));
+
+        CustomerLogStore underTest = open(1 << 20);
+        underTest.insert(List.of(new Customer(30, "Ali", "ali@amigoscode.com")));
+
+        assertThat(underTest.ids()).containsExactlyInAnyOrder(2L, 3L);
+        assertThat(underTest.get(2L)).contains(new Customer(2L, 19, "Jamila", "jamila@amigoscode.com"));
+    }
+
+    @Test
+    void cutsOffTornWriteAtTheEndOfTheLog() throws IOException {
+        CustomerLogStore crashed = open(1 << 20);
+        crashed.insert(List.of(new Customer(21, "Alex", "alex@amigoscode.com")));
+        Path segment = segments().get(0);
+        long intact = Files.size(segment);
+        //the length of a record and half of its checksum
+        Files.write(segment, new byte[]{0, 0, 0, 40, 1, 2}, StandardOpenOption.APPEND);
+
+        CustomerLogStore underTest = open(1 << 20);
+        underTest.insert(List.of(new Customer(19, "Jamila", "jamila@amigoscode.com")));
+
+        assertThat(underTest.ids()).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(Files.size(segment)).isGreaterThan(intact);
+        assertThat(open(1 << 20).get(2L)).contains(new Customer(2L, 19, "Jamila", "jamila@amigoscode.com"));
+    }
+
+    @Test
+    void rejectsBatchWithTakenEmailWithoutWritingAnyOfIt() {
+        CustomerLogStore underTest = open(1 << 20);
+        underTest.insert(List.of(new Customer(21, "Alex", "alex@amigoscode.com")));
+
+        assertThatThrownBy(() -> underTest.insert(List.of(
+                new Customer(19, "Jamila", "jamila@amigoscode.com"),
+                new Customer(22, "Alex", "alex@amigoscode.com")
+        ))).isInstanceOf(DuplicateKeyException.class);
+        assertThatThrownBy(() -> underTest.insert(List.of(
+                new Customer(19, "Jamila", "jamila@amigoscode.com"),
+                new Customer(20, "Jamila", "jamila@amigoscode.com")
+        ))).isInstanceOf(DuplicateKeyException.class);
+        assertThatThrownBy(() -> underTest.insert(List.of(new Customer(19, null, "jamila@amigoscode.com"))))
+                .isInstanceOf(DataIntegrityViolationException.class);
+        underTest.update(List.of(new Customer(1L, null, null, "jamila@amigoscode.com")));
+
+        assertThat(underTest.size()).isEqualTo(1);
+        assertThat(underTest.containsEmail("alex@amigoscode.com")).isFalse();
+    }
+
+    @Test
+    void updateKeepsNullFieldsAndFreesTheOldEmail() {
+        CustomerLogStore underTest = open(1 << 20);
+        underTest.insert(List.of(
+                new Customer(21, "Alex", "alex@amigoscode.com"),
+                new Customer(19, "Jamila", "jamila@amigoscode.com")
+        ));
+
+        underTest.update(List.of(
+                new Customer(1L, null, "Alexander", "alexander@amigoscode.com"),
+                new Customer(2L, 20, null, "alex@amigoscode.com"),
+                new Customer(9L, 20, null, "nobody@amigoscode.com")
+        ));
+
+        assertThat(underTest.get(1L)).contains(new Customer(1L, 21, "Alexander", "alexander@amigoscode.com"));
+        assertThat(underTest.get(2L)).contains(new Customer(2L, 20, "Jamila", "alex@amigoscode.com"));
+        assertThat(underTest.containsEmail("nobody@amigoscode.com")).isFalse();
+        assertThat(underTest.containsEmail("jamila@amigoscode.com")).isFalse();
+        assertThatThrownBy(() -> underTest.update(List.of(new Customer(1L, null, null, "alex@amigoscode.com"))))
+                .isInstanceOf(DuplicateKeyException.class);
+    }
+
+    @Test
+    void compactionDropsOverwrittenRecordsAndKeepsDeletes() throws IOException {
+        CustomerLogStore underTest = open(256);
+        for (int i = 0; i < 20; i++) {
+            underTest.insert(List.of(new Customer(20 + i, "Customer " + i, "customer" + i + "@amigoscode.com")));
+        }
+        for (long id = 1; id <= 20; id++) {
+            underTest.update(List.of(new Customer(id, 40, null, null)));
+        }
+        underTest.delete(List.of(1L, 2L, 3L));
+        long before = logBytes();
+
+        underTest.compact();
+
+        assertThat(logBytes()).isLessThan(before);
+        assertThat(underTest.size()).isEqualTo(17);
+        assertThat(underTest.get(4L)).contains(new Customer(4L, 40, "Customer 3", "customer3@amigoscode.com"));
+        //a full replay has to see the deletes too
+        Files.delete(directory.resolve("index.checkpoint"));
+        CustomerLogStore recovered = open(256);
+        assertThat(recovered.ids()).hasSize(17).doesNotContain(1L, 2L, 3L);
+        assertThat(recovered.get(20L)).contains(new Customer(20L, 40, "Customer 19", "customer19@amigoscode.com"));
+    }
+
+    @Test
+    void reopensFromCheckpointAfterCompaction() throws IOException {
+        CustomerLogStore closed = open(256);
+        for (int i = 0; i < 10; i++) {
+            closed.insert(List.of(new Customer(20 + i, "Customer " + i, "customer" + i + "@amigoscode.com")));
+        }
+        closed.delete(List.of(1L, 2L, 3L, 4L, 5L));
+        closed.compact();
+        closed.close();
+        opened.remove(closed);
+
+        CustomerLogStore underTest = open(256);
+        underTest.insert(List.of(new Customer(30, "Ali", "ali@amigoscode.com")));
+
+        assertThat(underTest.ids()).containsExactlyInAnyOrder(6L, 7L, 8L, 9L, 10L, 11L);
+        assertThat(underTest.get(6L)).contains(new Customer(6L, 25, "Customer 5", "customer5@amigoscode.com"));
+    }
+
+    private CustomerLogStore open(long segmentSize) {
+        CustomerLogStore store = new CustomerLogStore(directory, segmentSize, true, Duration.ofHours(1), 0.5);
+        opened.add(store);
+        return store;
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".log")).sorted().toList();
+        }
+    }
+
+    private long logBytes() throws IOException {
+        long bytes = 0;
+        for (Path segment : segments()) {
+            bytes += Files.size(segment);
+        }
+        return bytes;
+    }
+}
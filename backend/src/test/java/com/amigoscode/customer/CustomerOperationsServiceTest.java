@@ -0,0 +1,175 @@
+package com.amigoscode.customer;
+
+import com.amigoscode.exception.DuplicateResourceException;
+import com.amigoscode.exception.RequestValidationException;
+import com.amigoscode.exception.ResourceNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CustomerOperationsServiceTest {
+
+    private CustomerOperationsService underTest;
+    @Mock private CustomerDAO customerDAO;
+    @Mock private ApplicationEventPublisher eventPublisher;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new CustomerOperationsService(customerDAO, TransactionOperations.withoutTransaction(), eventPublisher);
+    }
+
+    @Test
+    void groupsConsecutiveOperationsOfTheSameType() {
+        when(customerDAO.selectCustomersByIDs(List.of(1L)))
+                .thenReturn(List.of(new Customer(1L, 20, "alex", "alex@")));
+        when(customerDAO.selectCustomersByIDs(List.of(2L, 3L)))
+                .thenReturn(List.of(new Customer(2L, 21, "maria", "maria@"), new Customer(3L, 22, "jamila", "jamila@")));
+
+        CustomerOperationsResponse actual = underTest.execute(new CustomerOperationsRequest(List.of(
+                create("ana", "ana@", 30),
+                create("bob", "bob@", 31),
+                new CustomerOperation(CustomerOperation.Type.UPDATE, 1L, "alexander", null, null),
+                delete(2L),
+                delete(3L)
+        ), null));
+
+        assertThat(actual.results()).allMatch(CustomerOperationResult::succeeded);
+        verify(customerDAO).insertCustomers(List.of(new Customer(30, "ana", "ana@"), new Customer(31, "bob", "bob@")));
+        verify(customerDAO).updateCustomers(List.of(new Customer(1L, 20, "alexander", "alex@")));
+        verify(customerDAO).deleteCustomersByIds(List.of(2L, 3L));
+        verify(eventPublisher).publishEvent(new CustomerChangedEvent(
+                CustomerChangedEvent.Type.CREATED, List.of(new Customer(30, "ana", "ana@"), new Customer(31, "bob", "bob@"))
+        ));
+        verify(eventPublisher).publishEvent(new CustomerChangedEvent(
+                CustomerChangedEvent.Type.UPDATED, List.of(new Customer(1L, 20, "alexander", "alex@"))
+        ));
+        verify(eventPublisher).publishEvent(CustomerChangedEvent.deleted(List.of(2L, 3L)));
+        verifyNoMoreInteractions(eventPublisher);
+        verifyNoMoreInteractions(customerDAO);
+    }
+
+    @Test
+    void atomicRequestFailsOnFirstInvalidOperation() {
+        when(customerDAO.selectCustomersByIDs(List.of(7L))).thenReturn(List.of());
+
+        assertThatThrownBy(() -> underTest.execute(new CustomerOperationsRequest(List.of(
+                create("ana", "ana@", 30),
+                delete(7L)
+        ), true)))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessage("operation [1]: Customer with id [7] not found");
+
+        verify(customerDAO, never()).deleteCustomersByIds(any());
+    }
+
+    @Test
+    void atomicRequestReportsDuplicateEmail() {
+        doThrow(new DataIntegrityViolationException("customer_email_unique"))
+                .when(customerDAO).insertCustomers(anyList());
+
+        assertThatThrownBy(() -> underTest.execute(new CustomerOperationsRequest(List.of(
+                create("ana", "ana@", 30),
+                create("bob", "ana@", 31)
+        ), true)))
+                .isInstanceOf(DuplicateResourceException.class)
+                .hasMessage("operations [0, 1]: email already taken");
+    }
+
+    //the jpa tier only writes when the persistence context is flushed
+    @Test
+    void atomicRequestReportsDuplicateEmailFoundOnFlush() {
+        TransactionStatus status = mock(TransactionStatus.class);
+        doThrow(new DataIntegrityViolationException("customer_email_unique")).when(status).flush();
+        TransactionOperations transactionOperations = new TransactionOperations() {
+            @Override
+            public <T> T execute(TransactionCallback<T> action) {
+                return action.doInTransaction(status);
+            }
+        };
+        underTest = new CustomerOperationsService(customerDAO, transactionOperations, eventPublisher);
+
+        assertThatThrownBy(() -> underTest.execute(new CustomerOperationsRequest(List.of(
+                create("ana", "ana@", 30)
+        ), true)))
+                .isInstanceOf(DuplicateResourceException.class)
+                .hasMessage("operation [0]: email already taken");
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void nonAtomicRequestReportsFailuresPerOperation() {
+        when(customerDAO.selectCustomersByIDs(List.of(1L, 7L)))
+                .thenReturn(List.of(new Customer(1L, 20, "alex", "alex@")));
+
+        CustomerOperationsResponse actual = underTest.execute(new CustomerOperationsRequest(List.of(
+                create("ana", null, 30),
+                delete(1L),
+                delete(7L),
+                delete(1L)
+        ), false));
+
+        assertThat(actual.results()).containsExactly(
+                CustomerOperationResult.failed(0, "name, email and age are required"),
+                CustomerOperationResult.succeeded(1),
+                CustomerOperationResult.failed(2, "Customer with id [7] not found"),
+                CustomerOperationResult.failed(3, "Customer with id [1] not found")
+        );
+        verify(customerDAO, never()).insertCustomers(any());
+        verify(customerDAO).deleteCustomersByIds(List.of(1L));
+    }
+
+    @Test
+    void nonAtomicRequestRetriesFailedBatchOneOperationAtATime() {
+        doThrow(new DataIntegrityViolationException("customer_email_unique"))
+                .when(customerDAO).insertCustomers(List.of(new Customer(30, "ana", "ana@"), new Customer(31, "bob", "bob@")));
+        lenient().doThrow(new DataIntegrityViolationException("customer_email_unique"))
+                .when(customerDAO).insertCustomers(List.of(new Customer(31, "bob", "bob@")));
+
+        CustomerOperationsResponse actual = underTest.execute(new CustomerOperationsRequest(List.of(
+                create("ana", "ana@", 30),
+                create("bob", "bob@", 31)
+        ), false));
+
+        assertThat(actual.results()).containsExactly(
+                CustomerOperationResult.succeeded(0),
+                CustomerOperationResult.failed(1, "operation [1]: email already taken")
+        );
+        verify(customerDAO).insertCustomers(List.of(new Customer(30, "ana", "ana@")));
+    }
+
+    @Test
+    void willThrowWhenOperationHasNoType() {
+        assertThatThrownBy(() -> underTest.execute(new CustomerOperationsRequest(List.of(
+                create("ana", "ana@", 30),
+                new CustomerOperation(null, 1L, null, null, null)
+        ), false)))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("operation [1]: type is required");
+
+        verifyNoInteractions(customerDAO);
+    }
+
+    private static CustomerOperation create(String name, String email, Integer age) {
+        return new CustomerOperation(CustomerOperation.Type.CREATE, null, name, email, age);
+    }
+
+    private static CustomerOperation delete(Long id) {
+        return new CustomerOperation(CustomerOperation.Type.DELETE, id, null, null, null);
+    }
+}
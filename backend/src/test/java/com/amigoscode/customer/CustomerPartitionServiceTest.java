@@ -0,0 +1,134 @@
+package com.amigoscode.customer;
+
+import com.amigoscode.exception.RequestValidationException;
+import com.amigoscode.exception.ResourceNotFoundException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.InOrder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class CustomerPartitionServiceTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private CustomerPartitionService underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new CustomerPartitionService(
+                jdbcTemplate,
+                new CustomerPartitionProperties(true, 1_000_000, 2, Duration.ofHours(1)),
+                meterRegistry
+        );
+        when(jdbcTemplate.query(startsWith("SELECT p.name"), ArgumentMatchers.<RowMapper<CustomerPartition>>any())).thenReturn(List.of(
+                new CustomerPartition("customer_p0", null, 1_000_000, 999_000, 180_000_000, false),
+                new CustomerPartition("customer_p1000000", 1_000_000L, 2_000_000, 4_000, 900_000, true)
+        ));
+    }
+
+    @Test
+    void archiveDetachesThePartitionBeforeArchivingIt() {
+        partitionState("customer_p0", "attached");
+        lowestLiveId(1_200_000L);
+        when(jdbcTemplate.queryForObject("SELECT customer_archive_partition(?)", Long.class, "customer_p0"))
+                .thenReturn(999_000L);
+
+        long actual = underTest.archive("customer_p0");
+
+        assertThat(actual).isEqualTo(999_000);
+        InOrder inOrder = inOrder(jdbcTemplate);
+        inOrder.verify(jdbcTemplate).execute("ALTER TABLE customer DETACH PARTITION customer_p0 CONCURRENTLY");
+        inOrder.verify(jdbcTemplate).queryForObject("SELECT customer_archive_partition(?)", Long.class, "customer_p0");
+    }
+
+    @Test
+    void archiveFinishesAnInterruptedDetach() {
+        partitionState("customer_p0", "detaching");
+        when(jdbcTemplate.queryForObject("SELECT customer_archive_partition(?)", Long.class, "customer_p0"))
+                .thenReturn(999_000L);
+
+        long actual = underTest.archive("customer_p0");
+
+        assertThat(actual).isEqualTo(999_000);
+        InOrder inOrder = inOrder(jdbcTemplate);
+        inOrder.verify(jdbcTemplate).execute("ALTER TABLE customer DETACH PARTITION customer_p0 FINALIZE");
+        inOrder.verify(jdbcTemplate).queryForObject("SELECT customer_archive_partition(?)", Long.class, "customer_p0");
+        verify(jdbcTemplate, never()).execute(endsWith("CONCURRENTLY"));
+    }
+
+    @Test
+    void archiveArchivesAPartitionDetachedAlready() {
+        partitionState("customer_p0", "detached");
+        when(jdbcTemplate.queryForObject("SELECT customer_archive_partition(?)", Long.class, "customer_p0"))
+                .thenReturn(999_000L);
+
+        long actual = underTest.archive("customer_p0");
+
+        assertThat(actual).isEqualTo(999_000);
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+
+    @Test
+    void willNotArchiveThePartitionNewCustomersGoTo() {
+        partitionState("customer_p1000000", "attached");
+        assertThatThrownBy(() -> underTest.archive("customer_p1000000"))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("customer partition [customer_p1000000] still gets new customers");
+
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+
+    @Test
+    void willNotArchiveAPartitionHoldingLiveCustomers() {
+        partitionState("customer_p0", "attached");
+        lowestLiveId(999_999L);
+
+        assertThatThrownBy(() -> underTest.archive("customer_p0"))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("customer partition [customer_p0] holds live customers from id 999999");
+
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+
+    @Test
+    void willThrowWhenArchivingUnknownPartition() {
+        assertThatThrownBy(() -> underTest.archive("customer; DROP TABLE customer"))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessage("customer partition [customer; DROP TABLE customer] not found");
+
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+
+    @Test
+    void addPartitionsUpdatesHeadroom() {
+        when(jdbcTemplate.queryForObject("SELECT customer_add_partitions(?, ?)", Integer.class, 1_000_000L, 2))
+                .thenReturn(1);
+        when(jdbcTemplate.queryForObject(startsWith("SELECT max(p.to_id)"), eq(Long.class))).thenReturn(2_500_000L);
+
+        int actual = underTest.addPartitions();
+
+        assertThat(actual).isEqualTo(1);
+        assertThat(meterRegistry.get("customer.partitions.headroom").gauge().value()).isEqualTo(2_500_000);
+    }
+
+    private void partitionState(String name, String state) {
+        when(jdbcTemplate.queryForList(startsWith("SELECT CASE"), eq(String.class), eq(name))).thenReturn(List.of(state));
+    }
+
+    private void lowestLiveId(Long id) {
+        when(jdbcTemplate.queryForObject("SELECT min(id) FROM customer WHERE deleted_at IS NULL", Long.class))
+                .thenReturn(id);
+    }
+}
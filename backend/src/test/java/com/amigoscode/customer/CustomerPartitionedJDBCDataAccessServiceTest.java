@@ -0,0 +1,54 @@
+package com.amigoscode.customer;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+//every jdbc tier test again, on a customer table partitioned after the other migrations like
+//customer.partitions.enabled does
+class CustomerPartitionedJDBCDataAccessServiceTest extends CustomerJDBCDataAccessServiceTest {
+
+    private final CustomerJDBCDataAccessService underTest = new CustomerJDBCDataAccessService(
+            getJdbcTemplate(),
+            new CustomerRowMapper()
+    );
+
+    @BeforeAll
+    static void partitionCustomers() {
+        Flyway flyway = Flyway.configure().dataSource(
+                postgreSQLContainer.getJdbcUrl(),
+                postgreSQLContainer.getUsername(),
+                postgreSQLContainer.getPassword()
+        ).locations("classpath:db/migration", "classpath:db/partitioning").outOfOrder(true).load();
+        flyway.migrate();
+    }
+
+    @Test
+    void emailStaysUniqueAcrossPartitions() {
+        String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        Customer customer = new Customer(20, FAKER.name().fullName(), email);
+        underTest.insertCustomer(customer);
+        //the next id is the first one of the next partition
+        getJdbcTemplate().execute("""
+                SELECT setval('customer_id_seq', p.to_id - 1)
+                FROM customer_partitions p, customer_id_seq s
+                WHERE s.last_value >= coalesce(p.from_id, 0) AND s.last_value < p.to_id
+                """);
+
+        assertThatThrownBy(() -> underTest.insertCustomer(new Customer(30, FAKER.name().fullName(), email)))
+                .isInstanceOf(DuplicateKeyException.class);
+
+        underTest.deleteCustomerById(customer.getId());
+        Customer again = new Customer(30, FAKER.name().fullName(), email);
+        underTest.insertCustomer(again);
+
+        assertThat(underTest.existsPersonWithEmail(email)).isTrue();
+        assertThat(underTest.selectCustomerByID(again.getId())).contains(again);
+    }
+}
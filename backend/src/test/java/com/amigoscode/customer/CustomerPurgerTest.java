@@ -0,0 +1,74 @@
+package com.amigoscode.customer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class CustomerPurgerTest {
+
+    private static final Instant IN_WINDOW = Instant.parse("2026-10-19T02:00:00Z");
+    private static final Instant OFF_PEAK_OVER = Instant.parse("2026-10-19T12:00:00Z");
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void purgesOneBatchPerCallInsideTheWindow() {
+        CustomerPurger underTest = purger(LocalTime.of(1, 0), LocalTime.of(5, 0));
+        when(jdbcTemplate.update(startsWith("DELETE FROM customer"), eq(86400.0), eq(100))).thenReturn(100, 100, 30);
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class))).thenReturn(0L);
+
+        underTest.purge(IN_WINDOW);
+        underTest.purge(IN_WINDOW);
+        underTest.purge(IN_WINDOW);
+
+        verify(jdbcTemplate, times(3)).update(startsWith("DELETE FROM customer"), eq(86400.0), eq(100));
+        //counted once the batch came back short
+        verify(jdbcTemplate, times(1)).queryForObject(anyString(), eq(Long.class));
+        assertThat(meterRegistry.get("customer.purge.purged").counter().count()).isEqualTo(230);
+        assertThat(meterRegistry.get("customer.purge.batch").timer().count()).isEqualTo(3);
+        assertThat(meterRegistry.get("customer.purge.backlog").gauge().value()).isZero();
+    }
+
+    @Test
+    void onlyCountsTheBacklogOutsideTheWindow() {
+        CustomerPurger underTest = purger(LocalTime.of(1, 0), LocalTime.of(5, 0));
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class))).thenReturn(1234L);
+
+        underTest.purge(OFF_PEAK_OVER);
+        underTest.purge(OFF_PEAK_OVER.plusSeconds(1));
+
+        verify(jdbcTemplate, times(1)).queryForObject(anyString(), eq(Long.class));
+        verifyNoMoreInteractions(jdbcTemplate);
+        assertThat(meterRegistry.get("customer.purge.backlog").gauge().value()).isEqualTo(1234);
+    }
+
+    @Test
+    void windowMayCrossMidnight() {
+        CustomerPurger underTest = purger(LocalTime.of(22, 0), LocalTime.of(4, 0));
+
+        assertThat(underTest.inWindow(LocalTime.of(23, 30))).isTrue();
+        assertThat(underTest.inWindow(LocalTime.of(3, 59))).isTrue();
+        assertThat(underTest.inWindow(LocalTime.of(4, 0))).isFalse();
+        assertThat(underTest.inWindow(LocalTime.of(12, 0))).isFalse();
+        assertThat(purger(LocalTime.MIDNIGHT, LocalTime.MIDNIGHT).inWindow(LocalTime.NOON)).isTrue();
+    }
+
+    private CustomerPurger purger(LocalTime windowStart, LocalTime windowEnd) {
+        return new CustomerPurger(
+                jdbcTemplate,
+                new CustomerPurgeProperties(true, Duration.ofDays(1), 100, Duration.ofSeconds(1), windowStart, windowEnd, ZoneId.of("UTC")),
+                meterRegistry
+        );
+    }
+}
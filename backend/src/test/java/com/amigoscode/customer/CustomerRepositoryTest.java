@@ -7,7 +7,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.context.ApplicationContext;
+import jakarta.persistence.EntityManager;
 
+import java.util.List;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -22,6 +24,9 @@ class CustomerRepositoryTest extends AbstractTestcontainers {
     @Autowired
     private ApplicationContext applicationContext;
 
+    @Autowired
+    private EntityManager entityManager;
+
     @BeforeEach
     void setUp() {
         underTest.deleteAll();
@@ -84,4 +89,17 @@ class CustomerRepositoryTest extends AbstractTestcontainers {
 
         assertThat(actual).isFalse();
     }
-}
\ No newline at end of file
+
+    @Test
+    void findAllUnmanagedReturnsCustomersOutsideThePersistenceContext() {
+        String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        Customer saved = underTest.saveAndFlush(new Customer(20, FAKER.name().fullName(), email));
+        entityManager.clear();
+
+        List<Customer> all = underTest.findAllUnmanaged();
+        List<Customer> byId = underTest.findAllUnmanagedById(List.of(saved.getId(), 0L));
+
+        assertThat(all).containsExactly(saved).noneMatch(entityManager::contains);
+        assertThat(byId).containsExactly(saved).noneMatch(entityManager::contains);
+    }
+}
@@ -0,0 +1,93 @@
+package com.amigoscode.customer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+class CustomerResponseCacheTest {
+
+    private final CustomerService customerService = mock(CustomerService.class);
+    private final Customer alex = new Customer(1L, 21, "Alex", "alex@amigoscode.com");
+    private CustomerResponseCache underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new CustomerResponseCache(
+                customerService,
+                new CustomerResponseCacheProperties(true, 100),
+                new MappingJackson2HttpMessageConverter(),
+                new MappingJackson2CborHttpMessageConverter(),
+                new MappingJackson2SmileHttpMessageConverter(),
+                new SimpleMeterRegistry()
+        );
+    }
+
+    @Test
+    void encodesOnceAndAnswersLaterReadsWithTheSameBytes() throws Exception {
+        when(customerService.getCustomer(1L)).thenReturn(alex);
+
+        var first = underTest.getCustomer(1L, "application/json");
+        var second = underTest.getCustomer(1L, null);
+
+        assertThat(second).isSameAs(first);
+        assertThat(new ObjectMapper().readValue(first.body(), Customer.class)).isEqualTo(alex);
+        assertThat(first.eTag()).matches("\"[0-9a-f]{32}\"");
+        verify(customerService, times(1)).getCustomer(1L);
+        verify(customerService).recordCachedRead(1L);
+    }
+
+    @Test
+    void picksTheFormatFromTheAcceptHeader() throws Exception {
+        when(customerService.getCustomer(1L)).thenReturn(alex);
+
+        assertThat(underTest.getCustomer(1L, "*/*").contentType()).isEqualTo(MediaType.APPLICATION_JSON);
+        assertThat(underTest.getCustomer(1L, "application/cbor").contentType()).isEqualTo(MediaType.APPLICATION_CBOR);
+        assertThat(underTest.getCustomer(1L, "application/x-jackson-smile;q=0.5, application/cbor").contentType())
+                .isEqualTo(MediaType.APPLICATION_CBOR);
+        assertThat(underTest.getCustomer(1L, "text/html, application/*;q=0.8").contentType())
+                .isEqualTo(MediaType.APPLICATION_JSON);
+        assertThat(underTest.getCustomer(1L, "application/cbor").eTag())
+                .isNotEqualTo(underTest.getCustomer(1L, "application/json").eTag());
+        assertThatThrownBy(() -> underTest.getCustomer(1L, "text/html"))
+                .isInstanceOf(HttpMediaTypeNotAcceptableException.class);
+    }
+
+    @Test
+    void changedCustomersAreEncodedAgainInEveryFormat() throws Exception {
+        when(customerService.getCustomer(1L)).thenReturn(alex);
+        underTest.getCustomer(1L, "application/json");
+        underTest.getCustomer(1L, "application/cbor");
+
+        underTest.onCustomerChanged(CustomerChangedEvent.deleted(List.of(1L)));
+        underTest.getCustomer(1L, "application/json");
+        underTest.getCustomer(1L, "application/cbor");
+
+        verify(customerService, times(4)).getCustomer(1L);
+    }
+
+    @Test
+    void doesNotCacheBodyLoadedWhileCustomerChanged() throws Exception {
+        when(customerService.getCustomer(1L)).thenAnswer(invocation -> {
+            underTest.onCustomerChanged(CustomerChangedEvent.deleted(List.of(1L)));
+            return alex;
+        }).thenReturn(alex);
+
+        underTest.getCustomer(1L, null);
+        underTest.getCustomer(1L, null);
+        underTest.getCustomer(1L, null);
+
+        verify(customerService, times(2)).getCustomer(1L);
+    }
+}
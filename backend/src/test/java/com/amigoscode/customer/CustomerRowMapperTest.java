@@ -5,22 +5,23 @@ import org.junit.jupiter.api.Test;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.List;
+import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 
 class CustomerRowMapperTest {
 
+    private final CustomerRowMapper customerRowMapper = new CustomerRowMapper();
 
     @Test
     void mapRow() throws SQLException {
-        CustomerRowMapper customerRowMapper = new CustomerRowMapper();
-        ResultSet resultSet = mock(ResultSet.class);
-        when(resultSet.getLong("id")).thenReturn(1L);
-        when(resultSet.getInt("age")).thenReturn(15);
-        when(resultSet.getString("name")).thenReturn("Jamila");
-        when(resultSet.getString("email")).thenReturn("J@gmail.com");
+        ResultSet resultSet = resultSet();
+        when(resultSet.getLong(1)).thenReturn(1L);
+        when(resultSet.getInt(2)).thenReturn(15);
+        when(resultSet.getString(3)).thenReturn("Jamila");
+        when(resultSet.getString(4)).thenReturn("J@gmail.com");
 
         Customer actual = customerRowMapper.mapRow(resultSet, 1);
 
@@ -28,4 +29,52 @@ class CustomerRowMapperTest {
 
         assertThat(actual).isEqualTo(expected);
     }
-}
\ No newline at end of file
+
+    @Test
+    void listLooksUpColumnsOncePerResultSet() throws SQLException {
+        ResultSet resultSet = resultSet();
+        when(resultSet.next()).thenReturn(true, true, false);
+        when(resultSet.getLong(1)).thenReturn(1L, 2L);
+        when(resultSet.getInt(2)).thenReturn(15, 30);
+        when(resultSet.getString(3)).thenReturn("Jamila", "Alex");
+        when(resultSet.getString(4)).thenReturn("J@gmail.com", "A@gmail.com");
+
+        List<Customer> actual = customerRowMapper.list(2).extractData(resultSet);
+
+        assertThat(actual).containsExactly(
+                new Customer(1L, 15, "Jamila", "J@gmail.com"),
+                new Customer(2L, 30, "Alex", "A@gmail.com")
+        );
+        verify(resultSet, times(1)).findColumn("id");
+    }
+
+    @Test
+    void singleStopsAfterTheFirstRow() throws SQLException {
+        ResultSet resultSet = resultSet();
+        when(resultSet.next()).thenReturn(true, true, false);
+        when(resultSet.getLong(1)).thenReturn(1L);
+
+        Optional<Customer> actual = customerRowMapper.single().extractData(resultSet);
+
+        assertThat(actual).map(Customer::getId).contains(1L);
+        verify(resultSet, times(1)).next();
+    }
+
+    @Test
+    void singleIsEmptyWithoutRows() throws SQLException {
+        ResultSet resultSet = resultSet();
+
+        assertThat(customerRowMapper.single().extractData(resultSet)).isEmpty();
+        verify(resultSet, never()).findColumn(anyString());
+    }
+
+    //columns in the order of SELECT id, age, name, email
+    private static ResultSet resultSet() throws SQLException {
+        ResultSet resultSet = mock(ResultSet.class);
+        when(resultSet.findColumn("id")).thenReturn(1);
+        when(resultSet.findColumn("age")).thenReturn(2);
+        when(resultSet.findColumn("name")).thenReturn(3);
+        when(resultSet.findColumn("email")).thenReturn(4);
+        return resultSet;
+    }
+}
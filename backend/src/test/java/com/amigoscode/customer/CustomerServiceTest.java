@@ -3,6 +3,7 @@ package com.amigoscode.customer;
 import com.amigoscode.exception.DuplicateResourceException;
 import com.amigoscode.exception.RequestValidationException;
 import com.amigoscode.exception.ResourceNotFoundException;
+import com.amigoscode.hotkey.CustomerHotKeys;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -11,8 +12,14 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.LongStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -23,10 +30,12 @@ import static org.mockito.Mockito.*;
 class CustomerServiceTest {
     private CustomerService underTest;
     @Mock private CustomerDAO customerDAO;
+    @Mock private CustomerHotKeys hotKeys;
+    @Mock private ApplicationEventPublisher eventPublisher;
 
     @BeforeEach
     void setUp() {
-        underTest = new CustomerService(customerDAO);
+        underTest = new CustomerService(customerDAO, hotKeys, eventPublisher);
     }
 
     @Test
@@ -35,6 +44,16 @@ class CustomerServiceTest {
         verify(customerDAO).selectAllCustomers();
     }
 
+    @Test
+    void getAllCustomersWithSomeFieldsAsksTheDaoForOnlyThose() {
+        Set<CustomerField> fields = EnumSet.of(CustomerField.ID, CustomerField.EMAIL);
+
+        underTest.getAllCustomers(fields);
+
+        verify(customerDAO).selectAllCustomers(fields);
+        verify(customerDAO, never()).selectAllCustomers();
+    }
+
     @Test
     void canGetCustomer() {
         long id = 1L;
@@ -46,6 +65,48 @@ class CustomerServiceTest {
         Customer actual = underTest.getCustomer(id);
 
         assertThat(actual).isEqualTo(customer);
+        verify(hotKeys).recordRead(id);
+    }
+
+    @Test
+    void canGetCustomersInRequestedOrder() {
+        Customer first = new Customer(1L, 11, "maria", "mar@");
+        Customer third = new Customer(3L, 12, "jamila", "jam@");
+        when(customerDAO.selectCustomersByIDs(List.of(3L, 2L, 1L))).thenReturn(List.of(first, third));
+
+        CustomerLookupResponse actual = underTest.getCustomers(List.of(3L, 2L, 3L, 1L));
+
+        assertThat(actual.customers()).containsExactly(third, first);
+        assertThat(actual.missingIds()).containsExactly(2L);
+    }
+
+    @Test
+    void willThrowWhenGetCustomersWithoutIds() {
+        assertThatThrownBy(() -> underTest.getCustomers(List.of()))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("no customer ids given");
+
+        verifyNoInteractions(customerDAO);
+    }
+
+    @Test
+    void willThrowWhenGetCustomersWithNullId() {
+        assertThatThrownBy(() -> underTest.getCustomers(Arrays.asList(1L, null)))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("customer ids must not be null");
+
+        verifyNoInteractions(customerDAO);
+    }
+
+    @Test
+    void willThrowWhenGetCustomersWithTooManyIds() {
+        List<Long> ids = LongStream.rangeClosed(1, CustomerService.MAX_LOOKUP_IDS + 1).boxed().toList();
+
+        assertThatThrownBy(() -> underTest.getCustomers(ids))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("at most %s customer ids per request".formatted(CustomerService.MAX_LOOKUP_IDS));
+
+        verifyNoInteractions(customerDAO);
     }
 
     @Test
@@ -80,6 +141,9 @@ class CustomerServiceTest {
         assertThat(capturedCustomer.getName()).isEqualTo(request.name());
         assertThat(capturedCustomer.getEmail()).isEqualTo(request.email());
         assertThat(capturedCustomer.getAge()).isEqualTo(request.age());
+        verify(eventPublisher).publishEvent(
+                new CustomerChangedEvent(CustomerChangedEvent.Type.CREATED, List.of(capturedCustomer))
+        );
     }
 
     @Test
@@ -107,6 +171,7 @@ class CustomerServiceTest {
         underTest.deleteCustomerById(id);
 
         verify(customerDAO).deleteCustomerById(id);
+        verify(eventPublisher).publishEvent(CustomerChangedEvent.deleted(List.of(id)));
     }
 
     @Test
@@ -138,10 +203,13 @@ class CustomerServiceTest {
         when(customerDAO.existsPersonWithEmail(newEmail)).thenReturn(false);
 
         underTest.updateCustomer(request, id);
+        verify(hotKeys).recordUpdate(id);
+        verify(hotKeys, never()).recordRead(id);
         ArgumentCaptor<Customer> argumentCaptor = ArgumentCaptor.forClass(
                 Customer.class
         );
         verify(customerDAO).updateCustomerById(argumentCaptor.capture());
+        verify(eventPublisher).publishEvent(new CustomerChangedEvent(CustomerChangedEvent.Type.UPDATED, List.of(customer)));
         Customer capturedCustomer = argumentCaptor.getValue();
 
         assertThat(capturedCustomer.getId()).isEqualTo(id);
@@ -272,5 +340,6 @@ class CustomerServiceTest {
                 .hasMessage("no data changes found");
 
         verify(customerDAO, never()).updateCustomerById(any());
+        verifyNoInteractions(eventPublisher);
     }
 }
\ No newline at end of file
@@ -0,0 +1,90 @@
+package com.amigoscode.customer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static java.nio.file.StandardOpenOption.WRITE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CustomerSnapshotTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsBackWhatWasWrittenSortedById() throws IOException {
+        Path file = directory.resolve("customers.snapshot");
+        Instant createdAt = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        List<Customer> customers = List.of(
+                new Customer(7L, 30, "Zoë Łukasiewicz", "zoe@amigoscode.com"),
+                new Customer(2L, 19, "Jamila", "jamila@amigoscode.com"),
+                new Customer(5L, 21, "", "nameless@amigoscode.com")
+        );
+
+        CustomerSnapshot.write(file, customers, 42L, createdAt);
+        CustomerSnapshot actual = CustomerSnapshot.open(file);
+
+        assertThat(actual.size()).isEqualTo(3);
+        assertThat(actual.changeXmin()).isEqualTo(42L);
+        assertThat(actual.createdAt()).isEqualTo(createdAt);
+        assertThat(actual.customers()).containsExactly(
+                new Customer(2L, 19, "Jamila", "jamila@amigoscode.com"),
+                new Customer(5L, 21, "", "nameless@amigoscode.com"),
+                new Customer(7L, 30, "Zoë Łukasiewicz", "zoe@amigoscode.com")
+        );
+        assertThat(Files.list(directory)).containsExactly(file);
+    }
+
+    @Test
+    void writesEmptySnapshot() throws IOException {
+        Path file = directory.resolve("customers.snapshot");
+
+        CustomerSnapshot.write(file, List.of(), 0L, Instant.now());
+
+        CustomerSnapshot actual = CustomerSnapshot.open(file);
+        assertThat(actual.customers()).isEmpty();
+        assertThat(actual.changeXmin()).isZero();
+    }
+
+    @Test
+    void replacesPreviousSnapshot() throws IOException {
+        Path file = directory.resolve("customers.snapshot");
+        CustomerSnapshot.write(file, List.of(new Customer(1L, 20, "Alex", "alex@amigoscode.com")), 1L, Instant.now());
+
+        CustomerSnapshot.write(file, List.of(new Customer(2L, 19, "Jamila", "jamila@amigoscode.com")), 2L, Instant.now());
+
+        assertThat(CustomerSnapshot.open(file).customers()).extracting(Customer::getId).containsExactly(2L);
+    }
+
+    @Test
+    void rejectsFileThatIsNotSnapshot() throws IOException {
+        Path file = Files.writeString(directory.resolve("customers.snapshot"), "id,age,name,email\n");
+
+        assertThatThrownBy(() -> CustomerSnapshot.open(file))
+                .isInstanceOf(IOException.class)
+                .hasMessage("not a customer snapshot");
+    }
+
+    @Test
+    void rejectsTruncatedSnapshot() throws IOException {
+        Path file = directory.resolve("customers.snapshot");
+        CustomerSnapshot.write(file, List.of(new Customer(1L, 20, "Alex", "alex@amigoscode.com")), 1L, Instant.now());
+        try (FileChannel channel = FileChannel.open(file, WRITE)) {
+            channel.truncate(channel.size() - 1);
+        }
+
+        assertThatThrownBy(() -> CustomerSnapshot.open(file))
+                .isInstanceOf(IOException.class)
+                .hasMessage("customer snapshot is truncated");
+    }
+}
@@ -0,0 +1,134 @@
+package com.amigoscode.customer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class CustomerSnapshotWarmerTest {
+
+    @TempDir
+    Path directory;
+
+    private final CustomerSyncService customerSyncService = mock(CustomerSyncService.class);
+    private final Instant createdAt = Instant.ofEpochSecond(Instant.now().getEpochSecond());
+    private CustomerCacheDataAccessService cache;
+    private CustomerSnapshotWarmer underTest;
+
+    @BeforeEach
+    void setUp() {
+        cache = new CustomerCacheDataAccessService(
+                new CustomerDAOProperties(
+                        List.of("cache", "jdbc"),
+                        new CustomerDAOProperties.Cache(3),
+                        new CustomerDAOProperties.SingleFlight(false, Duration.ZERO),
+                        new CustomerDAOProperties.Batching(false, Duration.ZERO, 1, Duration.ZERO, 1),
+                        new CustomerDAOProperties.Log(Path.of("data/customers"), DataSize.ofMegabytes(64), true, Duration.ofMinutes(1), 0.5)
+                )
+        );
+        underTest = new CustomerSnapshotWarmer(
+                cache,
+                customerSyncService,
+                new CustomerSnapshotProperties(true, directory.resolve("customers.snapshot"), Duration.ofMinutes(15), Duration.ofHours(1))
+        );
+    }
+
+    @Test
+    void loadsSnapshotThenCustomersInsertedSince() throws IOException {
+        writeSnapshot(new Customer(1L, 20, "Alex", "alex@amigoscode.com"), new Customer(2L, 19, "Jamila", "jamila@amigoscode.com"));
+        changedSince(new CustomerSyncResponse(
+                List.of(new Customer(3L, 33, "Maria", "maria@amigoscode.com"), new Customer(4L, 44, "Ali", "ali@amigoscode.com")),
+                List.of(),
+                "101-" + createdAt.getEpochSecond(),
+                false
+        ));
+
+        underTest.load();
+
+        //the cache holds 3
+        assertThat(cache.selectAllCustomers()).extracting(Customer::getId).containsExactlyInAnyOrder(1L, 2L, 3L);
+        assertThat(cache.existsPersonWithEmail("maria@amigoscode.com")).isTrue();
+    }
+
+    @Test
+    void appliesUpdatesAndDeletesMadeAfterTheSnapshot() throws IOException {
+        writeSnapshot(new Customer(1L, 20, "Alex", "alex@amigoscode.com"), new Customer(2L, 19, "Jamila", "jamila@amigoscode.com"));
+        //Alex changed his email, Jamila was soft deleted or purged since
+        changedSince(new CustomerSyncResponse(
+                List.of(new Customer(1L, 21, "Alex", "alex@gmail.com")),
+                List.of(2L),
+                "101-" + createdAt.getEpochSecond(),
+                false
+        ));
+
+        underTest.load();
+
+        assertThat(cache.selectAllCustomers()).containsExactly(new Customer(1L, 21, "Alex", "alex@gmail.com"));
+        assertThat(cache.existsPersonWithEmail("alex@amigoscode.com")).isFalse();
+        assertThat(cache.existsPersonWithEmail("jamila@amigoscode.com")).isFalse();
+    }
+
+    @Test
+    void loadsEveryCustomerWhenChangesSinceTheSnapshotAreGone() throws IOException {
+        writeSnapshot(new Customer(1L, 20, "Alex", "alex@amigoscode.com"), new Customer(2L, 19, "Jamila", "jamila@amigoscode.com"));
+        changedSince(new CustomerSyncResponse(
+                List.of(new Customer(1L, 20, "Alex", "alex@amigoscode.com")),
+                List.of(),
+                "101-" + createdAt.getEpochSecond(),
+                true
+        ));
+
+        underTest.load();
+
+        assertThat(cache.selectAllCustomers()).extracting(Customer::getId).containsExactly(1L);
+    }
+
+    @Test
+    void skipsSnapshotOlderThanMaxAge() throws IOException {
+        CustomerSnapshot.write(
+                directory.resolve("customers.snapshot"),
+                List.of(new Customer(1L, 20, "Alex", "alex@amigoscode.com")),
+                100L,
+                Instant.now().minus(Duration.ofHours(2))
+        );
+
+        underTest.load();
+
+        assertThat(cache.selectAllCustomers()).isEmpty();
+        verifyNoInteractions(customerSyncService);
+    }
+
+    @Test
+    void writesEveryCustomerWithTheirSyncToken() throws IOException {
+        when(customerSyncService.modifiedSince(null)).thenReturn(new CustomerSyncResponse(
+                List.of(new Customer(1L, 20, "Alex", "alex@amigoscode.com")),
+                List.of(),
+                "100-" + createdAt.getEpochSecond(),
+                true
+        ));
+
+        underTest.write();
+
+        CustomerSnapshot snapshot = CustomerSnapshot.open(directory.resolve("customers.snapshot"));
+        assertThat(snapshot.customers()).containsExactly(new Customer(1L, 20, "Alex", "alex@amigoscode.com"));
+        assertThat(snapshot.changeXmin()).isEqualTo(100L);
+        assertThat(snapshot.createdAt()).isEqualTo(createdAt);
+    }
+
+    private void writeSnapshot(Customer... customers) throws IOException {
+        CustomerSnapshot.write(directory.resolve("customers.snapshot"), List.of(customers), 100L, createdAt);
+    }
+
+    private void changedSince(CustomerSyncResponse changes) {
+        when(customerSyncService.modifiedSince("100-" + createdAt.getEpochSecond())).thenReturn(changes);
+    }
+}
@@ -0,0 +1,89 @@
+package com.amigoscode.customer;
+
+import com.amigoscode.AbstractTestcontainers;
+import com.amigoscode.exception.RequestValidationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CustomerSyncServiceTest extends AbstractTestcontainers {
+
+    private final JdbcTemplate jdbcTemplate = getJdbcTemplate();
+    private CustomerJDBCDataAccessService customerDAO;
+    private CustomerSyncService underTest;
+
+    @BeforeEach
+    void setUp() {
+        customerDAO = new CustomerJDBCDataAccessService(jdbcTemplate, new CustomerRowMapper());
+        underTest = new CustomerSyncService(
+                jdbcTemplate,
+                new CustomerRowMapper(),
+                new DataSourceTransactionManager(jdbcTemplate.getDataSource()),
+                new CustomerSyncProperties(Duration.ofDays(30), Duration.ofHours(1)),
+                new CustomerDAOProperties(List.of("jdbc"), null, null, null, null)
+        );
+    }
+
+    @Test
+    void withoutTokenReturnsEveryCustomer() {
+        Customer customer = insert();
+
+        CustomerSyncResponse actual = underTest.modifiedSince("");
+
+        assertThat(actual.reset()).isTrue();
+        assertThat(actual.customers()).contains(customer);
+        assertThat(actual.token()).matches("\\d+-\\d+");
+    }
+
+    @Test
+    void returnsOnlyWhatChangedAfterTheToken() {
+        Customer unchanged = insert();
+        Customer updated = insert();
+        Customer deleted = insert();
+        String token = underTest.modifiedSince("").token();
+
+        updated.setAge(99);
+        customerDAO.updateCustomerById(updated);
+        Customer created = insert();
+        customerDAO.deleteCustomerById(deleted.getId());
+        CustomerSyncResponse actual = underTest.modifiedSince(token);
+
+        assertThat(actual.reset()).isFalse();
+        assertThat(actual.customers()).contains(updated, created).doesNotContain(unchanged);
+        assertThat(actual.deletedIds()).containsExactly(deleted.getId());
+        assertThat(underTest.modifiedSince(actual.token()).customers()).doesNotContain(updated, created);
+    }
+
+    @Test
+    void tokenOlderThanTheTombstonesReturnsEveryCustomer() {
+        Customer customer = insert();
+        String token = underTest.modifiedSince("").token();
+        String expired = token.substring(0, token.indexOf('-') + 1) + "0";
+
+        CustomerSyncResponse actual = underTest.modifiedSince(expired);
+
+        assertThat(actual.reset()).isTrue();
+        assertThat(actual.customers()).contains(customer);
+    }
+
+    @Test
+    void willThrowOnInvalidToken() {
+        assertThatThrownBy(() -> underTest.modifiedSince("yesterday"))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("invalid modifiedSince token [yesterday]");
+    }
+
+    private Customer insert() {
+        Customer customer = new Customer(20, FAKER.name().fullName(), FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID());
+        customerDAO.insertCustomer(customer);
+        return customer;
+    }
+}
@@ -0,0 +1,232 @@
+package com.amigoscode.customer;
+
+import com.amigoscode.exception.DuplicateResourceException;
+import com.amigoscode.exception.TooManyRequestsException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CustomerWriteBehindRegistrarTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private CustomerWriteBehindRegistrar underTest;
+    @Mock private CustomerDAO customerDAO;
+    @Mock private ApplicationEventPublisher eventPublisher;
+    @TempDir Path journalDirectory;
+
+    @AfterEach
+    void tearDown() {
+        if (underTest != null && underTest.isRunning()) {
+            underTest.stop();
+        }
+    }
+
+    @Test
+    void registrationIsInsertedInBackground() {
+        underTest = registrar(10);
+        underTest.start();
+
+        underTest.register(new CustomerRegistrationRequest(20, "maria", "maria@gmail.com"));
+
+        ArgumentCaptor<List<Customer>> inserted = insertedBatch();
+        assertThat(inserted.getValue()).containsExactly(new Customer(20, "maria", "maria@gmail.com"));
+        verify(eventPublisher, timeout(5_000)).publishEvent(new CustomerChangedEvent(
+                CustomerChangedEvent.Type.CREATED, List.of(new Customer(20, "maria", "maria@gmail.com"))
+        ));
+    }
+
+    @Test
+    void willThrowWhenEmailIsAlreadyPending() throws Exception {
+        CountDownLatch release = blockInserts();
+        underTest = registrar(10);
+        underTest.start();
+
+        underTest.register(new CustomerRegistrationRequest(20, "maria", "maria@gmail.com"));
+
+        assertThatThrownBy(() -> underTest.register(new CustomerRegistrationRequest(30, "other", "maria@gmail.com")))
+                .isInstanceOf(DuplicateResourceException.class)
+                .hasMessage("email already taken");
+        release.countDown();
+    }
+
+    @Test
+    void willThrowWhenQueueIsFull() throws Exception {
+        CountDownLatch release = blockInserts();
+        underTest = registrar(1);
+        underTest.start();
+
+        underTest.register(new CustomerRegistrationRequest(20, "maria", "maria@gmail.com"));
+
+        assertThatThrownBy(() -> underTest.register(new CustomerRegistrationRequest(30, "petros", "petros@gmail.com")))
+                .isInstanceOf(TooManyRequestsException.class);
+        release.countDown();
+    }
+
+    @Test
+    void replaysJournaledRegistrationsOnStart() throws Exception {
+        try (var journal = new CustomerRegistrationJournal(journalDirectory, objectMapper)) {
+            journal.append(new CustomerRegistrationRequest(20, "maria", "maria@gmail.com"));
+            journal.append(new CustomerRegistrationRequest(30, "petros", "petros@gmail.com"));
+            journal.sync();
+        }
+        //a registration torn by a crash was never acknowledged
+        Files.writeString(journalDirectory.resolve("registrations.log"), "{\"sequence\":3,\"ag",
+                StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        underTest = registrar(10);
+        underTest.start();
+
+        //the writer may pick up the replayed registrations in more than one batch
+        List<Customer> inserted = List.of();
+        for (int attempt = 0; attempt < 500 && inserted.size() < 2; attempt++) {
+            Thread.sleep(10);
+            inserted = mockingDetails(customerDAO).getInvocations().stream()
+                    .filter(invocation -> invocation.getMethod().getName().equals("insertCustomers"))
+                    .flatMap(invocation -> invocation.<List<Customer>>getArgument(0).stream())
+                    .toList();
+        }
+        assertThat(inserted).containsExactly(
+                new Customer(20, "maria", "maria@gmail.com"),
+                new Customer(30, "petros", "petros@gmail.com")
+        );
+    }
+
+    @Test
+    void registrationDoesNotWaitForEmailCheck() {
+        CountDownLatch release = new CountDownLatch(1);
+        when(customerDAO.selectExistingEmails(anyCollection())).thenAnswer(invocation -> {
+            release.await();
+            return Set.of();
+        });
+        underTest = registrar(10);
+        underTest.start();
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5),
+                () -> underTest.register(new CustomerRegistrationRequest(20, "maria", "maria@gmail.com")));
+
+        verify(customerDAO, timeout(5_000)).selectExistingEmails(List.of("maria@gmail.com"));
+        release.countDown();
+        insertedBatch();
+    }
+
+    @Test
+    void writerDropsRegistrationWhoseEmailIsTaken() {
+        when(customerDAO.selectExistingEmails(anyCollection())).thenAnswer(invocation ->
+                invocation.<Collection<String>>getArgument(0).contains("maria@gmail.com") ? Set.of("maria@gmail.com") : Set.of());
+        underTest = registrar(10);
+        underTest.start();
+
+        underTest.register(new CustomerRegistrationRequest(20, "maria", "maria@gmail.com"));
+        underTest.register(new CustomerRegistrationRequest(30, "petros", "petros@gmail.com"));
+
+        verify(customerDAO, timeout(5_000)).insertCustomers(List.of(new Customer(30, "petros", "petros@gmail.com")));
+        verify(customerDAO, never()).insertCustomers(argThat(customers -> customers.stream()
+                .anyMatch(c -> c.getEmail().equals("maria@gmail.com"))));
+        //checked per batch, not per registration
+        verify(customerDAO, never()).existsPersonWithEmail(anyString());
+    }
+
+    //written before a crash, but not checkpointed
+    @Test
+    void replayDoesNotInsertRegistrationsAgain() throws Exception {
+        try (var journal = new CustomerRegistrationJournal(journalDirectory, objectMapper)) {
+            journal.append(new CustomerRegistrationRequest(20, "maria", "maria@gmail.com"));
+            journal.sync();
+        }
+        when(customerDAO.selectExistingEmails(List.of("maria@gmail.com"))).thenReturn(Set.of("maria@gmail.com"));
+
+        underTest = registrar(10);
+        underTest.start();
+
+        verify(customerDAO, timeout(5_000)).selectExistingEmails(List.of("maria@gmail.com"));
+        underTest.stop();
+        verify(customerDAO, never()).insertCustomers(anyList());
+        verify(customerDAO, never()).insertCustomer(any());
+        try (var journal = new CustomerRegistrationJournal(journalDirectory, objectMapper)) {
+            assertThat(journal.pendingEntries()).isEmpty();
+        }
+    }
+
+    @Test
+    void checkpointedRegistrationsAreNotReplayed() throws Exception {
+        try (var journal = new CustomerRegistrationJournal(journalDirectory, objectMapper)) {
+            journal.append(new CustomerRegistrationRequest(20, "maria", "maria@gmail.com"));
+            journal.checkpoint(1);
+        }
+
+        try (var journal = new CustomerRegistrationJournal(journalDirectory, objectMapper)) {
+            assertThat(journal.pendingEntries()).isEmpty();
+            assertThat(journal.append(new CustomerRegistrationRequest(30, "petros", "petros@gmail.com")).sequence())
+                    .isEqualTo(2);
+        }
+    }
+
+    //a checkpoint renamed into place but never written out, e.g. after a power loss
+    @Test
+    void emptyCheckpointReplaysWholeJournal() throws Exception {
+        try (var journal = new CustomerRegistrationJournal(journalDirectory, objectMapper)) {
+            journal.append(new CustomerRegistrationRequest(20, "maria", "maria@gmail.com"));
+            journal.append(new CustomerRegistrationRequest(30, "petros", "petros@gmail.com"));
+            journal.sync();
+        }
+        Files.writeString(journalDirectory.resolve("registrations.checkpoint"), "");
+
+        try (var journal = new CustomerRegistrationJournal(journalDirectory, objectMapper)) {
+            assertThat(journal.pendingEntries())
+                    .extracting(CustomerRegistrationJournal.Entry::email)
+                    .containsExactly("maria@gmail.com", "petros@gmail.com");
+        }
+    }
+
+    private CustomerWriteBehindRegistrar registrar(int capacity) {
+        return new CustomerWriteBehindRegistrar(
+                customerDAO,
+                new CustomerWriteBehindProperties(true, journalDirectory, capacity, 100),
+                objectMapper,
+                new SimpleMeterRegistry(),
+                eventPublisher
+        );
+    }
+
+    private CountDownLatch blockInserts() {
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            release.await();
+            return null;
+        }).when(customerDAO).insertCustomers(anyList());
+        return release;
+    }
+
+    @SuppressWarnings("unchecked")
+    private ArgumentCaptor<List<Customer>> insertedBatch() {
+        ArgumentCaptor<List<Customer>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(customerDAO, timeout(5_000).atLeastOnce()).insertCustomers(inserted.capture());
+        return inserted;
+    }
+}
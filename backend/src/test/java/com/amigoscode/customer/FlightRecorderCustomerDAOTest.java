@@ -0,0 +1,61 @@
+package com.amigoscode.customer;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class FlightRecorderCustomerDAOTest {
+
+    @TempDir
+    Path recordings;
+
+    private final CustomerDAO delegate = mock(CustomerDAO.class);
+    private final FlightRecorderCustomerDAO underTest = new FlightRecorderCustomerDAO("cache", delegate);
+
+    @Test
+    void emitsEventPerCall() throws Exception {
+        Customer customer = new Customer(1L, 20, "alex", "alex@");
+        when(delegate.selectCustomerByID(1L)).thenReturn(Optional.of(customer));
+        when(delegate.selectCustomerByID(2L)).thenReturn(Optional.empty());
+
+        List<RecordedEvent> events = record(() -> {
+            assertThat(underTest.selectCustomerByID(1L)).hasValue(customer);
+            assertThat(underTest.selectCustomerByID(2L)).isEmpty();
+            underTest.insertCustomers(List.of(customer, customer));
+        });
+
+        assertThat(events).hasSize(3);
+        assertThat(events).allSatisfy(event -> assertThat(event.getString("dao")).isEqualTo("cache"));
+        assertThat(events.get(0).getString("operation")).isEqualTo("selectCustomerByID");
+        assertThat(events.get(0).getLong("customerId")).isEqualTo(1L);
+        assertThat(events.get(0).getBoolean("hit")).isTrue();
+        assertThat(events.get(1).getBoolean("hit")).isFalse();
+        assertThat(events.get(1).getInt("rows")).isZero();
+        assertThat(events.get(2).getString("operation")).isEqualTo("insertCustomers");
+        assertThat(events.get(2).getInt("rows")).isEqualTo(2);
+    }
+
+    private List<RecordedEvent> record(Runnable calls) throws Exception {
+        Path file = recordings.resolve("customer.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("com.amigoscode.CustomerDAO");
+            recording.start();
+            calls.run();
+            recording.stop();
+            recording.dump(file);
+        }
+        return RecordingFile.readAllEvents(file).stream()
+                .filter(event -> event.getEventType().getName().equals("com.amigoscode.CustomerDAO"))
+                .toList();
+    }
+}
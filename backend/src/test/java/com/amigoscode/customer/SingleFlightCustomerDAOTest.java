@@ -0,0 +1,167 @@
+package com.amigoscode.customer;
+
+import com.amigoscode.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SingleFlightCustomerDAOTest {
+
+    private static final int CALLERS = 8;
+
+    private SingleFlightCustomerDAO underTest;
+    private MeterRegistry meterRegistry;
+    private ExecutorService executor;
+    @Mock private CustomerDAO customerDAO;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        executor = Executors.newFixedThreadPool(CALLERS);
+        underTest = new SingleFlightCustomerDAO(customerDAO, Duration.ofSeconds(5), meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentLookupsOfSameIdShareOneQuery() throws Exception {
+        long id = 1L;
+        Customer customer = new Customer(id, 20, "maria", "maria@gmail.com");
+        CountDownLatch release = new CountDownLatch(1);
+        when(customerDAO.selectCustomerByID(id)).thenAnswer(invocation -> {
+            release.await();
+            return Optional.of(customer);
+        });
+
+        List<Future<Optional<Customer>>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(executor.submit(() -> underTest.selectCustomerByID(id)));
+        }
+        waitUntil(() -> coalesced("selectCustomerByID") == CALLERS - 1);
+        release.countDown();
+
+        for (Future<Optional<Customer>> result : results) {
+            assertThat(result.get()).hasValue(customer);
+        }
+        verify(customerDAO, times(1)).selectCustomerByID(id);
+    }
+
+    @Test
+    void callerMutatingItsCustomerDoesNotChangeOtherCallers() throws Exception {
+        long id = 1L;
+        CountDownLatch release = new CountDownLatch(1);
+        when(customerDAO.selectCustomerByID(id)).thenAnswer(invocation -> {
+            release.await();
+            return Optional.of(new Customer(id, 20, "maria", "maria@gmail.com"));
+        });
+
+        Future<Optional<Customer>> leader = executor.submit(() -> underTest.selectCustomerByID(id));
+        verify(customerDAO, timeout(5_000)).selectCustomerByID(id);
+        Future<Optional<Customer>> first = executor.submit(() -> underTest.selectCustomerByID(id));
+        Future<Optional<Customer>> second = executor.submit(() -> underTest.selectCustomerByID(id));
+        waitUntil(() -> coalesced("selectCustomerByID") == 2);
+        release.countDown();
+
+        first.get().orElseThrow().setName("petros");
+        leader.get().orElseThrow().setEmail("petros@gmail.com");
+
+        assertThat(second.get()).hasValue(new Customer(id, 20, "maria", "maria@gmail.com"));
+        assertThat(first.get()).hasValue(new Customer(id, 20, "petros", "maria@gmail.com"));
+    }
+
+    @Test
+    void callerInsideTransactionRunsItsOwnQuery() throws Exception {
+        String email = "maria@gmail.com";
+        CountDownLatch release = new CountDownLatch(1);
+        //the transaction has just inserted maria, outside it she doesn't exist yet
+        when(customerDAO.existsPersonWithEmail(email)).thenAnswer(invocation -> {
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                return true;
+            }
+            release.await();
+            return false;
+        });
+
+        Future<Boolean> leader = executor.submit(() -> underTest.existsPersonWithEmail(email));
+        verify(customerDAO, timeout(5_000)).existsPersonWithEmail(email);
+
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            assertThat(underTest.existsPersonWithEmail(email)).isTrue();
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+        release.countDown();
+
+        assertThat(leader.get()).isFalse();
+        assertThat(coalesced("existsPersonWithEmail")).isZero();
+    }
+
+    @Test
+    void waiterTimesOutWithoutCancellingSharedQuery() throws Exception {
+        underTest = new SingleFlightCustomerDAO(customerDAO, Duration.ofMillis(50), meterRegistry);
+        String email = "maria@gmail.com";
+        CountDownLatch release = new CountDownLatch(1);
+        when(customerDAO.existsPersonWithEmail(email)).thenAnswer(invocation -> {
+            release.await();
+            return true;
+        });
+
+        Future<Boolean> leader = executor.submit(() -> underTest.existsPersonWithEmail(email));
+        verify(customerDAO, timeout(5_000)).existsPersonWithEmail(email);
+
+        assertThatThrownBy(() -> underTest.existsPersonWithEmail(email))
+                .isInstanceOf(ServiceUnavailableException.class);
+
+        release.countDown();
+        assertThat(leader.get()).isTrue();
+    }
+
+    @Test
+    void failureIsSharedAndNotCached() {
+        long id = 1L;
+        when(customerDAO.selectCustomerByID(id))
+                .thenThrow(new IllegalStateException("db down"))
+                .thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> underTest.selectCustomerByID(id))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(underTest.selectCustomerByID(id)).isEmpty();
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).isLessThan(deadline);
+            Thread.sleep(5);
+        }
+    }
+
+    private double coalesced(String operation) {
+        return meterRegistry.counter("customer.dao.coalesced", "operation", operation).count();
+    }
+}
@@ -0,0 +1,166 @@
+package com.amigoscode.customer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TieredCustomerDAOTest {
+
+    private TieredCustomerDAO underTest;
+    private CustomerCacheDataAccessService cache;
+    @Mock private CustomerDAO database;
+
+    @BeforeEach
+    void setUp() {
+        cache = new CustomerCacheDataAccessService(
+                new CustomerDAOProperties(
+                        List.of("cache", "jdbc"),
+                        new CustomerDAOProperties.Cache(2),
+                        new CustomerDAOProperties.SingleFlight(false, Duration.ZERO),
+                        new CustomerDAOProperties.Batching(false, Duration.ZERO, 1, Duration.ZERO, 1),
+                        new CustomerDAOProperties.Log(Path.of("data/customers"), DataSize.ofMegabytes(64), true, Duration.ofMinutes(1), 0.5)
+                )
+        );
+        underTest = new TieredCustomerDAO(List.of(cache, database));
+    }
+
+    @Test
+    void readMissBackFillsFasterTier() {
+        long id = 1L;
+        Customer customer = new Customer(id, 20, "maria", "maria@gmail.com");
+        when(database.selectCustomerByID(id)).thenReturn(Optional.of(customer));
+
+        assertThat(underTest.selectCustomerByID(id)).hasValue(customer);
+        assertThat(underTest.selectCustomerByID(id)).hasValue(customer);
+
+        verify(database, times(1)).selectCustomerByID(id);
+        assertThat(cache.existsPersonWithEmail("maria@gmail.com")).isTrue();
+    }
+
+    @Test
+    void existingEmailsFoundInFasterTierAreNotLookedUpAgain() {
+        cache.insertCustomer(new Customer(1L, 20, "maria", "maria@gmail.com"));
+        when(database.selectExistingEmails(Set.of("petros@gmail.com", "ali@gmail.com")))
+                .thenReturn(Set.of("petros@gmail.com"));
+
+        assertThat(underTest.selectExistingEmails(List.of("maria@gmail.com", "petros@gmail.com", "ali@gmail.com")))
+                .containsExactlyInAnyOrder("maria@gmail.com", "petros@gmail.com");
+    }
+
+    @Test
+    void cachedCustomerIsNotChangedByCallerMutations() {
+        long id = 1L;
+        cache.insertCustomer(new Customer(id, 20, "maria", "maria@gmail.com"));
+
+        underTest.selectCustomerByID(id).orElseThrow().setName("petros");
+
+        assertThat(underTest.selectCustomerByID(id)).hasValueSatisfying(
+                c -> assertThat(c.getName()).isEqualTo("maria")
+        );
+        verifyNoInteractions(database);
+    }
+
+    @Test
+    void writesGoToSystemOfRecordFirst() {
+        CustomerDAO fastTier = mock(CustomerDAO.class);
+        underTest = new TieredCustomerDAO(List.of(fastTier, database));
+        Customer update = new Customer(1L, 21, "maria", "maria@gmail.com");
+
+        underTest.updateCustomerById(update);
+        underTest.deleteCustomerById(1L);
+
+        InOrder inOrder = inOrder(database, fastTier);
+        inOrder.verify(database).updateCustomerById(update);
+        inOrder.verify(fastTier).updateCustomerById(update);
+        inOrder.verify(database).deleteCustomerById(1L);
+        inOrder.verify(fastTier).deleteCustomerById(1L);
+    }
+
+    @Test
+    void updatePropagatesToCachedCustomer() {
+        long id = 1L;
+        cache.insertCustomer(new Customer(id, 20, "maria", "maria@gmail.com"));
+        Customer update = new Customer();
+        update.setId(id);
+        update.setEmail("new@gmail.com");
+
+        underTest.updateCustomerById(update);
+
+        verify(database).updateCustomerById(update);
+        assertThat(cache.existsPersonWithEmail("maria@gmail.com")).isFalse();
+        assertThat(cache.selectCustomerByID(id)).hasValue(new Customer(id, 20, "maria", "new@gmail.com"));
+    }
+
+    @Test
+    void selectAllCustomersReadsSystemOfRecord() {
+        cache.insertCustomer(new Customer(1L, 20, "maria", "maria@gmail.com"));
+
+        underTest.selectAllCustomers();
+
+        verify(database).selectAllCustomers();
+    }
+
+    @Test
+    void cacheEvictsWhenFull() {
+        cache.insertCustomer(new Customer(1L, 20, "a", "a@gmail.com"));
+        cache.insertCustomer(new Customer(2L, 20, "b", "b@gmail.com"));
+        cache.insertCustomer(new Customer(3L, 20, "c", "c@gmail.com"));
+
+        assertThat(cache.selectAllCustomers()).hasSize(2);
+        assertThat(cache.existsPersonWithId(3L)).isTrue();
+    }
+
+    @Test
+    void listTierInFrontOfDatabaseHidesNoneOfItsCustomers() {
+        CustomerListDataAccessService list = new CustomerListDataAccessService(properties(List.of("list", "jdbc")));
+        underTest = new TieredCustomerDAO(List.of(list, database));
+        Customer alex = new Customer(1L, 40, "alex", "alex@amigoscode.com");
+        when(database.selectCustomerByID(1L)).thenReturn(Optional.of(alex));
+
+        assertThat(underTest.selectCustomerByID(1L)).hasValue(alex);
+        assertThat(list.selectCustomerByID(1L)).hasValue(alex);
+    }
+
+    @Test
+    void customersWithoutIdAreNotWrittenToFasterTiers() {
+        CustomerDAO fastTier = mock(CustomerDAO.class);
+        underTest = new TieredCustomerDAO(List.of(fastTier, database));
+        Customer customer = new Customer(20, "maria", "maria@gmail.com");
+
+        underTest.insertCustomer(customer);
+        underTest.insertCustomers(List.of(customer));
+
+        verify(database).insertCustomer(customer);
+        verify(database).insertCustomers(List.of(customer));
+        verifyNoInteractions(fastTier);
+    }
+
+    @Test
+    void listTierAsSystemOfRecordHandsOutIds() {
+        CustomerListDataAccessService list = new CustomerListDataAccessService(properties(List.of("list")));
+        Customer customer = new Customer(20, "maria", "maria@gmail.com");
+
+        list.insertCustomer(customer);
+
+        assertThat(customer.getId()).isEqualTo(3L);
+        assertThat(list.selectAllCustomers()).hasSize(3);
+    }
+
+    private static CustomerDAOProperties properties(List<String> tiers) {
+        return new CustomerDAOProperties(tiers, null, null, null, null);
+    }
+}
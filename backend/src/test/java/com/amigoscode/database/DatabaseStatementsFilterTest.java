@@ -0,0 +1,102 @@
+package com.amigoscode.database;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DatabaseStatementsFilterTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RequestStatements requestStatements = new RequestStatements();
+
+    @Test
+    void countsStatementsOfTheRequest() throws Exception {
+        var underTest = filter(true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        requestStatements.statementExecuted("SELECT 1", List.of(), 1_000_000);
+        underTest.doFilter(new MockHttpServletRequest("PUT", "/api/v1/customers/1"), response, (req, res) -> {
+            req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/v1/customers/{customerId}");
+            requestStatements.statementExecuted("SELECT * FROM customer WHERE id = ?", List.of(), 2_000_000);
+            requestStatements.statementExecuted("UPDATE customer SET name = ? WHERE id = ?", List.of(), 500_000);
+            res.getWriter().write("body");
+        });
+        //after the request, nothing is attributed to it anymore
+        requestStatements.statementExecuted("SELECT 1", List.of(), 1_000_000);
+
+        assertThat(response.getHeader("X-DB-Queries")).isEqualTo("2");
+        assertThat(response.getHeader("X-DB-Time")).isEqualTo("2.500");
+        assertThat(response.getContentAsString()).isEqualTo("body");
+        assertThat(meterRegistry.get("http.server.requests.db.statements")
+                .tags("method", "PUT", "uri", "/api/v1/customers/{customerId}")
+                .summary()
+                .totalAmount()).isEqualTo(2);
+    }
+
+    @Test
+    void letsAsyncStreamsThroughOnceTheHandlerReturns() throws Exception {
+        var underTest = filter(true);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/customers/changes");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        AtomicReference<ServletResponse> streamed = new AtomicReference<>();
+
+        underTest.doFilter(request, response, (req, res) -> {
+            request.setAsyncStarted(true);
+            res.getOutputStream().write("event: synced\n\n".getBytes(StandardCharsets.UTF_8));
+            streamed.set(res);
+        });
+        streamed.get().getOutputStream().write("event: created\n\n".getBytes(StandardCharsets.UTF_8));
+        streamed.get().flushBuffer();
+
+        assertThat(response.getHeader("X-DB-Queries")).isEqualTo("0");
+        assertThat(response.getHeader("Content-Length")).isNull();
+        assertThat(response.getContentAsString()).isEqualTo("event: synced\n\nevent: created\n\n");
+        assertThat(response.isCommitted()).isTrue();
+    }
+
+    @Test
+    void leavesHeadersOffWhenDisabled() throws Exception {
+        var underTest = filter(false);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        underTest.doFilter(new MockHttpServletRequest("GET", "/api/v1/customers"), response, (req, res) ->
+                requestStatements.statementExecuted("SELECT id, age, name, email FROM customer", List.of(), 1_000));
+
+        assertThat(response.getHeader("X-DB-Queries")).isNull();
+        assertThat(meterRegistry.get("http.server.requests.db.statements")
+                .tags("uri", "UNKNOWN")
+                .summary()
+                .count()).isEqualTo(1);
+    }
+
+    @Test
+    void tracksMostRepeatedStatement() {
+        RequestStatements.Tally tally = requestStatements.begin();
+        for (int i = 0; i < 3; i++) {
+            requestStatements.statementExecuted("SELECT * FROM customer WHERE id = ?", List.of(), 1);
+        }
+        requestStatements.statementExecuted("SELECT 1", List.of(), 1);
+        requestStatements.end();
+
+        assertThat(tally.mostRepeated()).isEqualTo(Map.entry("SELECT * FROM customer WHERE id = ?", 3));
+    }
+
+    private DatabaseStatementsFilter filter(boolean responseHeaders) {
+        return new DatabaseStatementsFilter(
+                requestStatements,
+                new DatabaseStatementsProperties(true, responseHeaders, 10, null, 5),
+                meterRegistry
+        );
+    }
+}
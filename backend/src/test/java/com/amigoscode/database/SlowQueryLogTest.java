@@ -0,0 +1,90 @@
+package com.amigoscode.database;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.ResultSetExtractor;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class SlowQueryLogTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    @SuppressWarnings("unchecked")
+    private final ObjectProvider<JdbcTemplate> jdbcTemplateProvider = mock(ObjectProvider.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void keepsTheLatestSlowStatementsWithTheShapeOfTheirParameters() {
+        SlowQueryLog underTest = slowQueryLog(false, 2);
+
+        underTest.statementExecuted("SELECT 1", List.of(), millis(50));
+        underTest.statementExecuted("SELECT * FROM customer WHERE id = ?", List.of(1L), millis(150));
+        underTest.statementExecuted("UPDATE customer SET name = ? WHERE id = ?", Arrays.asList("Alex", null), millis(300));
+        underTest.statementExecuted("DELETE FROM customer WHERE id = ?", List.of(2L), millis(100));
+
+        assertThat(underTest.latest())
+                .extracting(SlowQuery::sql)
+                .containsExactly("DELETE FROM customer WHERE id = ?", "UPDATE customer SET name = ? WHERE id = ?");
+        assertThat(underTest.latest().get(1).parameters()).containsExactly("String(4)", "null");
+        assertThat(underTest.latest().get(1).duration()).isEqualTo(Duration.ofMillis(300));
+        assertThat(meterRegistry.get("db.statements.slow").counter().count()).isEqualTo(3);
+        verifyNoInteractions(jdbcTemplateProvider);
+
+        underTest.clear();
+
+        assertThat(underTest.latest()).isEmpty();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void explainsSlowStatementsInTheBackground() throws InterruptedException {
+        when(jdbcTemplateProvider.getObject()).thenReturn(jdbcTemplate);
+        when(jdbcTemplate.query(
+                eq("EXPLAIN (ANALYZE off) SELECT * FROM customer WHERE id = ?"),
+                any(PreparedStatementSetter.class),
+                any(ResultSetExtractor.class))
+        ).thenReturn("Index Scan using customer_pkey on customer\n");
+        SlowQueryLog underTest = slowQueryLog(true, 10);
+
+        underTest.statementExecuted("SELECT * FROM customer WHERE id = ?", List.of(1L), millis(150));
+        //the explainer's own statement is never captured
+        underTest.statementExecuted("EXPLAIN (ANALYZE off) SELECT * FROM customer WHERE id = ?", List.of(1L), millis(150));
+        underTest.statementExecuted("SET statement_timeout = 0", List.of(), millis(150));
+
+        waitUntil(() -> underTest.latest().get(1).plan() != null);
+        assertThat(underTest.latest()).extracting(SlowQuery::plan)
+                .containsExactly(null, "Index Scan using customer_pkey on customer\n");
+    }
+
+    private SlowQueryLog slowQueryLog(boolean explain, int capacity) {
+        return new SlowQueryLog(
+                new SlowQueryProperties(true, Duration.ofMillis(100), capacity, explain),
+                jdbcTemplateProvider,
+                meterRegistry
+        );
+    }
+
+    private static long millis(long millis) {
+        return TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).isLessThan(deadline);
+            Thread.sleep(5);
+        }
+    }
+}
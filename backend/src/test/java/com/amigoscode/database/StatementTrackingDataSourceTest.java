@@ -0,0 +1,91 @@
+package com.amigoscode.database;
+
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+class StatementTrackingDataSourceTest {
+
+    private final List<String> executed = new ArrayList<>();
+    private final DataSource target = mock(DataSource.class);
+    private final Connection connection = mock(Connection.class);
+    private final StatementTrackingDataSource underTest = new StatementTrackingDataSource(
+            target, () -> List.of((sql, parameters, elapsedNanos) -> executed.add(sql + " " + parameters))
+    );
+
+    @Test
+    void reportsExecutesOfPreparedAndPlainStatements() throws Exception {
+        PreparedStatement prepared = mock(PreparedStatement.class);
+        Statement plain = mock(Statement.class);
+        when(target.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement("SELECT * FROM customer WHERE id = ?")).thenReturn(prepared);
+        when(connection.createStatement()).thenReturn(plain);
+
+        try (Connection tracked = underTest.getConnection()) {
+            PreparedStatement statement = tracked.prepareStatement("SELECT * FROM customer WHERE id = ?");
+            statement.setLong(1, 1L);
+            statement.executeQuery();
+            statement.addBatch();
+            statement.executeBatch();
+            tracked.createStatement().execute("SELECT 1");
+        }
+
+        assertThat(executed).containsExactly(
+                "SELECT * FROM customer WHERE id = ? [1]",
+                "SELECT * FROM customer WHERE id = ? [1]",
+                "SELECT 1 []"
+        );
+        verify(prepared).setLong(1, 1L);
+        verify(connection).close();
+    }
+
+    @Test
+    void reportsTheParametersBoundAtEachExecute() throws Exception {
+        PreparedStatement prepared = mock(PreparedStatement.class);
+        when(target.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement("UPDATE customer SET name = ?, age = ? WHERE id = ?")).thenReturn(prepared);
+
+        PreparedStatement statement = underTest.getConnection()
+                .prepareStatement("UPDATE customer SET name = ?, age = ? WHERE id = ?");
+        statement.setString(1, "Alex");
+        statement.setInt(2, 30);
+        statement.setLong(3, 1L);
+        statement.executeUpdate();
+        statement.clearParameters();
+        statement.setNull(1, Types.VARCHAR);
+        statement.setNull(2, Types.INTEGER);
+        statement.setLong(3, 2L);
+        statement.executeUpdate();
+
+        assertThat(executed).containsExactly(
+                "UPDATE customer SET name = ?, age = ? WHERE id = ? [Alex, 30, 1]",
+                "UPDATE customer SET name = ?, age = ? WHERE id = ? [null, null, 2]"
+        );
+    }
+
+    @Test
+    void reportsFailedExecutesAndRethrowsTheirException() throws Exception {
+        PreparedStatement prepared = mock(PreparedStatement.class);
+        when(target.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement("DELETE FROM customer")).thenReturn(prepared);
+        when(prepared.executeUpdate()).thenThrow(new SQLException("boom"));
+
+        PreparedStatement statement = underTest.getConnection().prepareStatement("DELETE FROM customer");
+
+        assertThatThrownBy(statement::executeUpdate)
+                .isInstanceOf(SQLException.class)
+                .hasMessage("boom");
+        assertThat(executed).containsExactly("DELETE FROM customer []");
+    }
+}
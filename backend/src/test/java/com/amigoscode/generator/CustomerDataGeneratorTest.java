@@ -0,0 +1,45 @@
+package com.amigoscode.generator;
+
+import com.amigoscode.customer.Customer;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CustomerDataGeneratorTest {
+
+    @Test
+    void sameSeedGeneratesSameCustomers() {
+        List<Customer> first = new CustomerDataGenerator(7L).generate(0, 100);
+        List<Customer> second = new CustomerDataGenerator(7L).generate(0, 100);
+
+        assertThat(first).isEqualTo(second);
+    }
+
+    @Test
+    void customerDependsOnlyOnItsIndex() {
+        CustomerDataGenerator underTest = new CustomerDataGenerator(7L);
+
+        List<Customer> range = underTest.generate(10, 5);
+
+        assertThat(range.get(3)).isEqualTo(underTest.generate(13));
+    }
+
+    @Test
+    void generatesUniqueEmails() {
+        List<Customer> customers = new CustomerDataGenerator(7L).generate(0, 10_000);
+
+        Set<String> emails = new HashSet<>();
+        customers.forEach(c -> emails.add(c.getEmail()));
+
+        assertThat(emails).hasSize(customers.size());
+        assertThat(customers).allSatisfy(c -> {
+            assertThat(c.getId()).isNull();
+            assertThat(c.getAge()).isBetween(16, 98);
+            assertThat(c.getEmail()).endsWith("@" + CustomerDataGenerator.EMAIL_DOMAIN);
+        });
+    }
+}
@@ -0,0 +1,78 @@
+package com.amigoscode.hotkey;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HotKeyTrackerTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private final HotKeyTracker underTest = new HotKeyTracker(
+            3, 1024, 4, Duration.ofSeconds(10), Duration.ofMinutes(1), clock::get
+    );
+
+    @Test
+    void findsHeavyHittersAmongManyColdKeys() {
+        for (long key = 1_000; key < 21_000; key++) {
+            underTest.record(key);
+            if (key % 10 == 0) {
+                underTest.record(1);
+            }
+            if (key % 20 == 0) {
+                underTest.record(2);
+            }
+            if (key % 40 == 0) {
+                underTest.record(3);
+            }
+        }
+
+        HotKeyReport actual = underTest.top(Duration.ofMinutes(1));
+
+        assertThat(actual.keys()).extracting(HotKey::key).containsExactly(1L, 2L, 3L);
+        //never below the true count, at most a little above it
+        assertThat(actual.keys().get(0).count()).isBetween(2_000L, 2_100L);
+        assertThat(actual.total()).isEqualTo(20_000 + 2_000 + 1_000 + 500);
+    }
+
+    @Test
+    void windowSlidesOverOlderBuckets() {
+        record(1, 100);
+        advance(Duration.ofSeconds(30));
+        record(2, 10);
+
+        assertThat(underTest.top(Duration.ofSeconds(10)).keys())
+                .containsExactly(new HotKey(2, 10));
+        assertThat(underTest.top(Duration.ofMinutes(1)).keys())
+                .containsExactly(new HotKey(1, 100), new HotKey(2, 10));
+
+        advance(Duration.ofSeconds(40));
+
+        assertThat(underTest.top(Duration.ofMinutes(1)).keys())
+                .containsExactly(new HotKey(2, 10));
+    }
+
+    @Test
+    void reusedBucketStartsEmpty() {
+        record(1, 100);
+        advance(Duration.ofMinutes(1));
+        record(2, 1);
+
+        HotKeyReport actual = underTest.top(Duration.ofMinutes(1));
+
+        assertThat(actual.keys()).containsExactly(new HotKey(2, 1));
+        assertThat(actual.total()).isEqualTo(1);
+    }
+
+    private void record(long key, int times) {
+        for (int i = 0; i < times; i++) {
+            underTest.record(key);
+        }
+    }
+
+    private void advance(Duration duration) {
+        clock.addAndGet(duration.toNanos());
+    }
+}
@@ -0,0 +1,79 @@
+package com.amigoscode.journey;
+
+import com.amigoscode.customer.Customer;
+import com.amigoscode.customer.CustomerRegistrationRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//the log tier on its own starts and serves requests without Postgres
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "customer.dao.tiers=log",
+                //nothing listens here, any connection attempt fails the context
+                "spring.datasource.url=jdbc:postgresql://localhost:1/customer"
+        }
+)
+public class CustomerLogTierIntegrationTest {
+    @Autowired
+    private WebTestClient webTestClient;
+    @Autowired
+    private ApplicationContext context;
+
+    private static final String CUSTOMER_URI = "api/v1/customers";
+
+    @DynamicPropertySource
+    static void logDirectory(DynamicPropertyRegistry registry) throws IOException {
+        String directory = Files.createTempDirectory("customers").toString();
+        registry.add("customer.dao.log.directory", () -> directory);
+    }
+
+    @Test
+    void startsWithoutDataSource() {
+        assertThat(context.getBeanNamesForType(DataSource.class)).isEmpty();
+    }
+
+    @Test
+    void canRegisterACustomer() {
+        CustomerRegistrationRequest request = new CustomerRegistrationRequest(
+                30, "maria", "maria@amigoscode.com"
+        );
+        webTestClient.post()
+                .uri(CUSTOMER_URI)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Mono.just(request), CustomerRegistrationRequest.class)
+                .exchange()
+                .expectStatus()
+                .isOk();
+
+        List<Customer> allCustomers = webTestClient.get()
+                .uri(CUSTOMER_URI)
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBodyList(new ParameterizedTypeReference<Customer>() {
+                })
+                .returnResult()
+                .getResponseBody();
+
+        assertThat(allCustomers)
+                .extracting(Customer::getEmail)
+                .containsExactly("maria@amigoscode.com");
+    }
+}
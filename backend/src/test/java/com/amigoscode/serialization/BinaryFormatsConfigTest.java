@@ -0,0 +1,51 @@
+package com.amigoscode.serialization;
+
+import com.amigoscode.customer.Customer;
+import com.amigoscode.customer.CustomerRegistrationRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.http.MockHttpInputMessage;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BinaryFormatsConfigTest {
+
+    private final BinaryFormatsConfig underTest = new BinaryFormatsConfig();
+
+    @Test
+    void cborReadsRequestsAndWritesCustomers() throws IOException {
+        var converter = underTest.cborHttpMessageConverter(Jackson2ObjectMapperBuilder.json());
+
+        assertRoundTrip(converter, MediaType.APPLICATION_CBOR);
+    }
+
+    @Test
+    void smileReadsRequestsAndWritesCustomers() throws IOException {
+        var converter = underTest.smileHttpMessageConverter(Jackson2ObjectMapperBuilder.json());
+
+        assertRoundTrip(converter, MediaType.valueOf("application/x-jackson-smile"));
+    }
+
+    private static void assertRoundTrip(AbstractJackson2HttpMessageConverter converter, MediaType mediaType) throws IOException {
+        var request = new CustomerRegistrationRequest(21, "Alex", "alex@amigoscode.com");
+        var customers = List.of(new Customer(1L, 21, "Alex", "alex@amigoscode.com"));
+
+        assertThat(converter.canRead(CustomerRegistrationRequest.class, mediaType)).isTrue();
+        assertThat(converter.read(CustomerRegistrationRequest.class, new MockHttpInputMessage(write(converter, request, mediaType))))
+                .isEqualTo(request);
+        byte[] json = Jackson2ObjectMapperBuilder.json().build().writeValueAsBytes(customers);
+        assertThat(write(converter, customers, mediaType)).hasSizeLessThan(json.length);
+    }
+
+    private static byte[] write(AbstractJackson2HttpMessageConverter converter, Object body, MediaType mediaType) throws IOException {
+        var output = new MockHttpOutputMessage();
+        converter.write(body, mediaType, output);
+        return output.getBodyAsBytes();
+    }
+}